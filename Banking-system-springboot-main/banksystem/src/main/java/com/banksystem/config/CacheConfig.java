@@ -1,25 +1,102 @@
 package com.banksystem.config;
 
+import com.banksystem.security.TokenCacheKey;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
-import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.support.SimpleCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bounded Caffeine caches. Token-derived caches expire with the token they were
+ * built from; the others use a fixed time to live. All caches record statistics,
+ * which actuator publishes as cache.gets / cache.puts / cache.evictions metrics.
+ */
 @Configuration
 @EnableCaching
 public class CacheConfig {
 
+    // Caches keyed by TokenCacheKey (see tokenCacheKeyGenerator)
+    private static final List<String> TOKEN_CACHES = List.of(
+            "tellerDetailsCache",
+            "managerDetailsCache",
+            "headAdminDetailsCache"
+    );
+
+    @Value("${app.cache.token-max-size:10000}")
+    private long tokenMaxSize;
+
+    @Value("${app.cache.token-max-ttl-minutes:1440}")
+    private long tokenMaxTtlMinutes;
+
+    @Value("${app.cache.default-max-size:1000}")
+    private long defaultMaxSize;
+
+    @Value("${app.cache.default-ttl-minutes:60}")
+    private long defaultTtlMinutes;
+
     @Bean
     public CacheManager cacheManager() {
-        return new ConcurrentMapCacheManager(
-                "tellerCache",
-                "tellerDetailsCache",
-                "managerCache",
-                "managerDetailsCache",
-                "customerCache",
-                "headAdminCache",
-                "headAdminDetailsCache"
-        );
+        List<CaffeineCache> caches = new ArrayList<>();
+        for (String name : TOKEN_CACHES) {
+            caches.add(new CaffeineCache(name, Caffeine.newBuilder()
+                    .maximumSize(tokenMaxSize)
+                    .expireAfter(new TokenExpiry(Duration.ofMinutes(tokenMaxTtlMinutes).toNanos()))
+                    .recordStats()
+                    .build()));
+        }
+        caches.add(fixedTtlCache("branchLoanStatsCache"));
+        caches.add(fixedTtlCache("headBankLoanOffersCache"));
+        caches.add(fixedTtlCache("headBankCardRulesCache"));
+
+        SimpleCacheManager cacheManager = new SimpleCacheManager();
+        cacheManager.setCaches(caches);
+        return cacheManager;
+    }
+
+    private CaffeineCache fixedTtlCache(String name) {
+        return new CaffeineCache(name, Caffeine.newBuilder()
+                .maximumSize(defaultMaxSize)
+                .expireAfterWrite(Duration.ofMinutes(defaultTtlMinutes))
+                .recordStats()
+                .build());
+    }
+
+    /**
+     * Keeps an entry until its token's exp claim, never longer than maxNanos.
+     */
+    private static final class TokenExpiry implements Expiry<Object, Object> {
+        private final long maxNanos;
+
+        private TokenExpiry(long maxNanos) {
+            this.maxNanos = maxNanos;
+        }
+
+        @Override
+        public long expireAfterCreate(Object key, Object value, long currentTime) {
+            if (key instanceof TokenCacheKey tokenKey && tokenKey.expiresAtMillis() > 0) {
+                long remaining = Duration.ofMillis(tokenKey.expiresAtMillis() - System.currentTimeMillis()).toNanos();
+                return Math.max(0, Math.min(remaining, maxNanos));
+            }
+            return maxNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(Object key, Object value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(Object key, Object value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
     }
-}
\ No newline at end of file
+}
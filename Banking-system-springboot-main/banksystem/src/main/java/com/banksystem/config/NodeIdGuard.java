@@ -0,0 +1,116 @@
+package com.banksystem.config;
+
+import com.banksystem.repository.NodeLeaseRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.Profiles;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.UUID;
+
+/**
+ * Startup check for app.node-id, which is part of every generated reference and
+ * account/card number. Locally it defaults to 0; under the prod profile NODE_ID must
+ * be set explicitly.
+ *
+ * Before the web server starts, the instance takes a lease on its node id in node_lease
+ * and keeps renewing it. If another live instance holds the lease the startup waits
+ * one lease period (a crashed predecessor's lease runs out in that time) and then fails,
+ * so two instances never issue numbers under the same node id.
+ */
+@Component
+@Slf4j
+public class NodeIdGuard implements SmartInitializingSingleton {
+
+    private static final String PRODUCTION_PROFILE = "prod";
+
+    private final NodeLeaseRepository nodeLeaseRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Environment environment;
+    private final int nodeId;
+    private final long leaseSeconds;
+    private final String instanceId = UUID.randomUUID().toString();
+
+    private volatile boolean held;
+
+    public NodeIdGuard(NodeLeaseRepository nodeLeaseRepository,
+                       PlatformTransactionManager transactionManager,
+                       Environment environment,
+                       @Value("${app.node-id}") int nodeId,
+                       @Value("${app.node-lease-seconds:30}") long leaseSeconds) {
+        this.nodeLeaseRepository = nodeLeaseRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.environment = environment;
+        this.nodeId = nodeId;
+        this.leaseSeconds = leaseSeconds;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (environment.acceptsProfiles(Profiles.of(PRODUCTION_PROFILE)) && !environment.containsProperty("NODE_ID")) {
+            throw new IllegalStateException("NODE_ID must be set under the " + PRODUCTION_PROFILE + " profile");
+        }
+
+        long deadline = System.currentTimeMillis() + leaseSeconds * 1000;
+        while (!claim()) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new IllegalStateException("app.node-id " + nodeId + " is held by another running instance");
+            }
+            log.warn("app.node-id {} is held by another instance, waiting for its lease to expire", nodeId);
+            sleepOneSecond();
+        }
+        held = true;
+        log.info("Holding app.node-id {} as instance {}", nodeId, instanceId);
+    }
+
+    @Scheduled(fixedDelayString = "${app.node-lease-renew-ms:10000}")
+    public void renew() {
+        if (!held) {
+            return;
+        }
+        try {
+            if (!claim()) {
+                // Only possible after this node missed renewals for a whole lease period
+                log.error("Lost the lease on app.node-id {} to another instance", nodeId);
+            }
+        } catch (DataAccessException e) {
+            log.warn("Could not renew the lease on app.node-id {}: {}", nodeId, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void release() {
+        if (!held) {
+            return;
+        }
+        held = false;
+        try {
+            transactionTemplate.executeWithoutResult(status -> nodeLeaseRepository.release(nodeId, instanceId));
+        } catch (DataAccessException e) {
+            log.warn("Could not release the lease on app.node-id {}, it expires on its own: {}", nodeId, e.getMessage());
+        }
+    }
+
+    private boolean claim() {
+        return Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+            nodeLeaseRepository.claim(nodeId, instanceId, leaseSeconds);
+            return nodeLeaseRepository.findHolder(nodeId).map(instanceId::equals).orElse(false);
+        }));
+    }
+
+    private static void sleepOneSecond() {
+        try {
+            Thread.sleep(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the app.node-id lease", e);
+        }
+    }
+}
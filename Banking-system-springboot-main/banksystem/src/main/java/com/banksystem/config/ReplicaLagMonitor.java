@@ -0,0 +1,88 @@
+package com.banksystem.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures replication lag with a heartbeat row: the primary stamps
+ * replica_heartbeat with its clock, and the lag is the primary's current time
+ * minus the stamp the replica returns. Both times come from the primary's clock,
+ * so clock skew between hosts does not matter.
+ *
+ * Until the first successful measurement, or while the replica cannot be read,
+ * the lag is unknown and reads stay on the primary.
+ */
+@Slf4j
+public class ReplicaLagMonitor {
+
+    private final JdbcTemplate primary;
+    private final JdbcTemplate replica;
+    private final long maxLagMs;
+
+    // -1 while unknown
+    private volatile long lagMillis = -1;
+
+    public ReplicaLagMonitor(DataSource primaryDataSource, DataSource replicaDataSource,
+                             long maxLagMs, MeterRegistry meterRegistry) {
+        this.primary = new JdbcTemplate(primaryDataSource);
+        this.replica = new JdbcTemplate(replicaDataSource);
+        this.maxLagMs = maxLagMs;
+
+        TimeGauge.builder("datasource.replica.lag", this,
+                        TimeUnit.MILLISECONDS, m -> m.lagMillis < 0 ? Double.NaN : m.lagMillis)
+                .description("Replication lag seen through the heartbeat row (NaN while unknown)")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${app.datasource.replica.heartbeat-interval-ms:1000}")
+    public void heartbeat() {
+        try {
+            primary.update("""
+                INSERT INTO replica_heartbeat (id, beat_at) VALUES (1, NOW(6))
+                ON DUPLICATE KEY UPDATE beat_at = NOW(6)
+                """);
+        } catch (DataAccessException e) {
+            // First run on a fresh schema: the table replicates like any other DDL
+            try {
+                primary.execute("CREATE TABLE IF NOT EXISTS replica_heartbeat "
+                        + "(id INT PRIMARY KEY, beat_at TIMESTAMP(6) NOT NULL)");
+            } catch (DataAccessException ddlFailure) {
+                log.warn("Replica heartbeat could not be written: {}", e.getMessage());
+            }
+            lagMillis = -1;
+            return;
+        }
+
+        Timestamp seen = null;
+        Timestamp now = null;
+        try {
+            seen = replica.queryForObject("SELECT beat_at FROM replica_heartbeat WHERE id = 1", Timestamp.class);
+            now = primary.queryForObject("SELECT NOW(6)", Timestamp.class);
+        } catch (DataAccessException e) {
+            if (lagMillis != -1) {
+                log.warn("Replica lag unknown, reads fall back to the primary: {}", e.getMessage());
+            }
+        }
+        lagMillis = seen != null && now != null ? Math.max(0, now.getTime() - seen.getTime()) : -1;
+    }
+
+    /**
+     * True if reads may go to the replica. A max lag of 0 or less disables the check,
+     * e.g. for a local setup where the "replica" is a second schema without replication.
+     */
+    public boolean isWithinLag() {
+        if (maxLagMs <= 0) {
+            return true;
+        }
+        long lag = lagMillis;
+        return lag >= 0 && lag <= maxLagMs;
+    }
+}
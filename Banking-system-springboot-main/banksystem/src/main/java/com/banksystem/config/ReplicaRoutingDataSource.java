@@ -0,0 +1,105 @@
+package com.banksystem.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Sends read-only service transactions to the replica pool and everything else to
+ * the primary. Must sit behind a LazyConnectionDataSourceProxy, so the route is
+ * chosen at the first statement, after the transaction's read-only flag and name are set.
+ *
+ * A transaction reads from the replica only if all of these hold:
+ * - it is read-only and was started by a method in servicePackage (the implicit
+ *   read-only transactions of Spring Data repository methods, e.g. the login and
+ *   token revocation lookups, stay on the primary);
+ * - the authenticated user has not run a read-write transaction on this node within
+ *   the sticky window (read-your-writes, e.g. history right after a transfer);
+ * - the measured replication lag is within bounds.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    enum Target { PRIMARY, REPLICA }
+
+    private final String servicePackage;
+    private final ReplicaLagMonitor lagMonitor;
+    private final Cache<String, Boolean> recentWriters;
+
+    private final Counter readWrite;
+    private final Counter notService;
+    private final Counter sticky;
+    private final Counter lagging;
+    private final Counter replicaRead;
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, String servicePackage,
+                                    ReplicaLagMonitor lagMonitor, Duration stickyWindow,
+                                    MeterRegistry meterRegistry) {
+        this.servicePackage = servicePackage;
+        this.lagMonitor = lagMonitor;
+        this.recentWriters = Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .expireAfterWrite(stickyWindow)
+                .build();
+
+        this.readWrite = routeCounter(meterRegistry, Target.PRIMARY, "read_write");
+        this.notService = routeCounter(meterRegistry, Target.PRIMARY, "not_service");
+        this.sticky = routeCounter(meterRegistry, Target.PRIMARY, "sticky");
+        this.lagging = routeCounter(meterRegistry, Target.PRIMARY, "lagging");
+        this.replicaRead = routeCounter(meterRegistry, Target.REPLICA, "read_only");
+
+        setTargetDataSources(Map.of(Target.PRIMARY, primary, Target.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        String user = currentUser();
+
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (user != null && TransactionSynchronizationManager.isActualTransactionActive()) {
+                recentWriters.put(user, Boolean.TRUE);
+            }
+            readWrite.increment();
+            return Target.PRIMARY;
+        }
+
+        String txName = TransactionSynchronizationManager.getCurrentTransactionName();
+        if (txName == null || !txName.startsWith(servicePackage)) {
+            notService.increment();
+            return Target.PRIMARY;
+        }
+        if (user != null && recentWriters.getIfPresent(user) != null) {
+            sticky.increment();
+            return Target.PRIMARY;
+        }
+        if (!lagMonitor.isWithinLag()) {
+            lagging.increment();
+            return Target.PRIMARY;
+        }
+        replicaRead.increment();
+        return Target.REPLICA;
+    }
+
+    private static String currentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.isAuthenticated() ? authentication.getName() : null;
+    }
+
+    private static Counter routeCounter(MeterRegistry registry, Target target, String reason) {
+        return Counter.builder("datasource.route")
+                .description("Connections routed per target and reason")
+                .tag("target", target.name().toLowerCase())
+                .tag("reason", reason)
+                .register(registry);
+    }
+}
@@ -2,8 +2,12 @@ package com.banksystem.controller;
 
 import com.banksystem.dto.*;
 import com.banksystem.entity.User;
+import com.banksystem.exception.ServiceBusyException;
 import com.banksystem.repository.UserRepository;
+import com.banksystem.security.JwtHelperService;
+import com.banksystem.security.JwtPrincipal;
 import com.banksystem.security.JwtUtils;
+import com.banksystem.security.TokenRevocationService;
 import com.banksystem.services.AuthService;
 import com.banksystem.services.AdminUserManagementService;
 import jakarta.validation.Valid;
@@ -25,17 +29,23 @@ public class AuthController {
     private final JwtUtils jwtUtils;
     private final UserRepository userRepository;
     private final AdminUserManagementService adminUserManagementService;
+    private final JwtHelperService jwtHelper;
+    private final TokenRevocationService tokenRevocationService;
 
     public AuthController(AuthenticationManager authenticationManager,
                           AuthService authService,
                           JwtUtils jwtUtils,
                           UserRepository userRepository,
-                          AdminUserManagementService adminUserManagementService) {
+                          AdminUserManagementService adminUserManagementService,
+                          JwtHelperService jwtHelper,
+                          TokenRevocationService tokenRevocationService) {
         this.authenticationManager = authenticationManager;
         this.authService = authService;
         this.jwtUtils = jwtUtils;
         this.userRepository = userRepository;
         this.adminUserManagementService = adminUserManagementService;
+        this.jwtHelper = jwtHelper;
+        this.tokenRevocationService = tokenRevocationService;
     }
 
     // 1. PUBLIC SIGNUP (Always creates a CUSTOMER)
@@ -72,8 +82,12 @@ public class AuthController {
             String role = user.getRole().name();
             log.info("User role: {}", role);
 
-            // Use repository query to get specificId WITHOUT loading lazy entities
-            Long specificId = userRepository.findSpecificIdByUsername(loginRequest.getUsername());
+            // Identity columns on the users row: no join over the role tables
+            Long specificId = user.getSpecificId();
+            if (specificId == null) {
+                log.warn("Identity columns not set for user: {}, resolving through role tables", loginRequest.getUsername());
+                specificId = userRepository.findSpecificIdByUsername(loginRequest.getUsername());
+            }
 
             // If specificId is null (shouldn't happen but safe fallback), use user ID
             if (specificId == null) {
@@ -84,15 +98,33 @@ public class AuthController {
             log.info("SpecificId retrieved: {}", specificId);
 
             // Generate JWT token
-            String jwt = jwtUtils.generateToken(user.getUsername(), role, specificId);
+            String jwt = jwtUtils.generateToken(user.getUsername(), role, specificId,
+                    user.getBranchId(), user.getHeadBankId());
             log.info("JWT token generated successfully for user: {}", loginRequest.getUsername());
 
             return ResponseEntity.ok(new AuthResponseDTO(jwt, user.getUsername(), role, specificId));
 
+        } catch (ServiceBusyException e) {
+            // Password hashing pool is saturated: answered as 429 by GlobalExceptionHandler
+            log.warn("Login rejected for user {}: {}", loginRequest.getUsername(), e.getMessage());
+            throw e;
         } catch (Exception e) {
             log.error("Login failed for user: {}", loginRequest.getUsername(), e);
             return ResponseEntity.badRequest()
                     .body(ApiResponse.error("Login failed: " + e.getMessage()));
         }
     }
+
+    // 3. LOGOUT (Revokes the presented token on every node)
+    @PostMapping("/logout")
+    public ResponseEntity<?> logout(@RequestHeader("Authorization") String authHeader) {
+        String token = jwtHelper.extractToken(authHeader);
+        JwtPrincipal principal = jwtHelper.getPrincipal(token);
+
+        tokenRevocationService.revokeToken(token, principal);
+        SecurityContextHolder.clearContext();
+        log.info("User {} logged out", principal.username());
+
+        return ResponseEntity.ok(ApiResponse.success("Logged out successfully", null));
+    }
 }
@@ -2,17 +2,23 @@ package com.banksystem.controller;
 
 import com.banksystem.dto.ApiResponse;
 import com.banksystem.dto.TellerDTO;
+import com.banksystem.dto.TransactionPageDTO;
 import com.banksystem.entity.*;
 import com.banksystem.enums.BankType;
+import com.banksystem.enums.ExportFormat;
 import com.banksystem.security.JwtHelperService;
 import com.banksystem.services.ChargesService;
+import com.banksystem.services.StatementExportService;
 import com.banksystem.services.branchManagerService;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -26,13 +32,16 @@ public class BranchManagerController {
 
     private final branchManagerService branchManagerService;
     private final ChargesService chargesService;
+    private final StatementExportService statementExportService;
     private final JwtHelperService jwtHelper;
 
     public BranchManagerController(branchManagerService branchManagerService,
                                    ChargesService chargesService,
+                                   StatementExportService statementExportService,
                                    JwtHelperService jwtHelper) {
         this.branchManagerService = branchManagerService;
         this.chargesService = chargesService;
+        this.statementExportService = statementExportService;
         this.jwtHelper = jwtHelper;
     }
 
@@ -255,6 +264,50 @@ public class BranchManagerController {
         return ResponseEntity.ok(ApiResponse.success("Transactions retrieved successfully", transactions));
     }
 
+    @GetMapping("/transactions/page")
+    public ResponseEntity<ApiResponse<TransactionPageDTO>> getTransactionPageByDateRange(
+            @RequestHeader("Authorization") String authHeader,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size) {
+
+        String token = jwtHelper.extractToken(authHeader);
+        JwtHelperService.ManagerDetails details = jwtHelper.getManagerDetails(token);
+
+        log.info("Branch Manager {} fetching a transaction page from {} to {}",
+                details.getManagerId(), startDate, endDate);
+
+        TransactionPageDTO page = branchManagerService.getTransactionPageByDateRange(
+                details.getBranchId(), startDate, endDate, cursor, size);
+
+        log.info("Found {} transactions", page.getTransactions().size());
+        return ResponseEntity.ok(ApiResponse.success("Transactions retrieved successfully", page));
+    }
+
+    @GetMapping("/transactions/export")
+    public ResponseEntity<StreamingResponseBody> exportTransactions(
+            @RequestHeader("Authorization") String authHeader,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @RequestParam(defaultValue = "CSV") ExportFormat format) {
+
+        String token = jwtHelper.extractToken(authHeader);
+        JwtHelperService.ManagerDetails details = jwtHelper.getManagerDetails(token);
+
+        log.info("Branch Manager {} exporting {} transactions from {} to {}",
+                details.getManagerId(), format, startDate, endDate);
+
+        StreamingResponseBody body = out -> statementExportService.writeBranchStatement(
+                details.getBranchId(), startDate, endDate, format, out);
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(StatementExportService.contentType(format)))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" +
+                        StatementExportService.fileName("branch-" + details.getBranchId() + "-transactions", format) + "\"")
+                .body(body);
+    }
+
     @GetMapping("/customers")
     public ResponseEntity<ApiResponse<List<Customer>>> getAllCustomersByBranch(
             @RequestHeader("Authorization") String authHeader) {
@@ -3,17 +3,26 @@ package com.banksystem.controller;
 import com.banksystem.dto.*;
 import com.banksystem.entity.*;
 import com.banksystem.enums.AccountHolderType;
+import com.banksystem.enums.ExportFormat;
 import com.banksystem.security.JwtHelperService;
 import com.banksystem.services.CustomerService;
-import com.banksystem.services.TransactionService;
+import com.banksystem.services.HeadBankCatalogService;
+import com.banksystem.services.StatementExportService;
+import com.banksystem.services.TransferPipeline;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -22,14 +31,17 @@ import java.util.List;
 public class CustomerController {
 
     private final CustomerService customerService;
-    private final TransactionService transactionService;
+    private final TransferPipeline transferPipeline;
+    private final StatementExportService statementExportService;
     private final JwtHelperService jwtHelper;
 
     public CustomerController(CustomerService customerService,
-                              TransactionService transactionService,
+                              TransferPipeline transferPipeline,
+                              StatementExportService statementExportService,
                               JwtHelperService jwtHelper) {
         this.customerService = customerService;
-        this.transactionService = transactionService;
+        this.transferPipeline = transferPipeline;
+        this.statementExportService = statementExportService;
         this.jwtHelper = jwtHelper;
     }
 
@@ -38,6 +50,7 @@ public class CustomerController {
     @PostMapping("/transaction")
     public ResponseEntity<ApiResponse<Transaction>> makeTransaction(
             @RequestHeader("Authorization") String authHeader,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
             @RequestBody TransactionDto transactionDto) {
 
         String token = jwtHelper.extractToken(authHeader);
@@ -46,7 +59,7 @@ public class CustomerController {
         transactionDto.setAccountHolderType(AccountHolderType.CUSTOMER);
 
         log.info("Customer {} making transaction", customerId);
-        Transaction transaction = transactionService.makeTransaction(transactionDto);
+        Transaction transaction = transferPipeline.submit(transactionDto, idempotencyKey);
         log.info("Transaction successful {}", transaction);
 
         return ResponseEntity.status(HttpStatus.ACCEPTED)
@@ -126,9 +139,13 @@ public class CustomerController {
         Long customerId = jwtHelper.getCustomerIdFromToken(token);
 
         log.info("Fetching available loan offers for customer: {}", customerId);
-        List<LoanOffers> offers = customerService.getAvailableLoanOffers(customerId);
+        HeadBankCatalogService.Catalog<LoanOffers> offers = customerService.getAvailableLoanOffers(customerId);
 
-        return ResponseEntity.ok(ApiResponse.success("Loan offers retrieved successfully", offers));
+        // Conditional GET: a matching If-None-Match is answered with 304 and no body
+        return ResponseEntity.ok()
+                .eTag(offers.etag())
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body(ApiResponse.success("Loan offers retrieved successfully", offers.items()));
     }
 
     // ==================== DEBIT CARD REQUESTS ====================
@@ -285,6 +302,65 @@ public class CustomerController {
         return ResponseEntity.ok(ApiResponse.success("Transaction history retrieved successfully", transactions));
     }
 
+    @GetMapping("/accounts/{accountId}/transactions/page")
+    public ResponseEntity<ApiResponse<TransactionPageDTO>> getTransactionHistoryPage(
+            @RequestHeader("Authorization") String authHeader,
+            @PathVariable Long accountId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size) {
+
+        String token = jwtHelper.extractToken(authHeader);
+        Long customerId = jwtHelper.getCustomerIdFromToken(token);
+
+        TransactionPageDTO page = customerService.getTransactionHistoryPage(
+                customerId, accountId, startDate, endDate, cursor, size);
+
+        return ResponseEntity.ok(ApiResponse.success("Transaction history retrieved successfully", page));
+    }
+
+    @GetMapping("/accounts/{accountId}/statement")
+    public ResponseEntity<StreamingResponseBody> exportStatement(
+            @RequestHeader("Authorization") String authHeader,
+            @PathVariable Long accountId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(defaultValue = "CSV") ExportFormat format) {
+
+        String token = jwtHelper.extractToken(authHeader);
+        Long customerId = jwtHelper.getCustomerIdFromToken(token);
+
+        // Ownership is checked before the response starts streaming
+        Account account = customerService.getAccountDetails(customerId, accountId);
+        log.info("Customer {} exporting {} statement of account {} from {} to {}",
+                customerId, format, accountId, startDate, endDate);
+
+        StreamingResponseBody body = out -> statementExportService.writeAccountStatement(
+                accountId, startDate.atStartOfDay(), endDate.plusDays(1).atStartOfDay(), format, out);
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(StatementExportService.contentType(format)))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" +
+                        StatementExportService.fileName("statement-" + account.getAccountNumber(), format) + "\"")
+                .body(body);
+    }
+
+    @GetMapping("/accounts/{accountId}/balance")
+    public ResponseEntity<ApiResponse<BigDecimal>> getBalanceAt(
+            @RequestHeader("Authorization") String authHeader,
+            @PathVariable Long accountId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at) {
+
+        String token = jwtHelper.extractToken(authHeader);
+        Long customerId = jwtHelper.getCustomerIdFromToken(token);
+
+        log.info("Fetching balance of account {} for customer {} as of {}", accountId, customerId, at);
+        BigDecimal balance = customerService.getBalanceAt(customerId, accountId, at);
+
+        return ResponseEntity.ok(ApiResponse.success("Balance retrieved successfully", balance));
+    }
+
     @PutMapping("/pin/update")
     public ResponseEntity<ApiResponse<Void>> updateTransactionPin(
             @RequestHeader("Authorization") String authHeader,
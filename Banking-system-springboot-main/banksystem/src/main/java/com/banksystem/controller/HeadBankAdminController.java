@@ -9,9 +9,11 @@ import com.banksystem.security.JwtHelperService;
 import com.banksystem.services.ChargesService;
 import com.banksystem.services.DebitCardRulesService;
 import com.banksystem.services.HeadBankAdminSerivice;
+import com.banksystem.services.HeadBankCatalogService;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -217,6 +219,29 @@ public class HeadBankAdminController {
                 .body(ApiResponse.success("Bank earnings retrieved successfully", earnings));
     }
 
+    // ==================== TRANSACTIONS ====================
+
+    @GetMapping("/transactions/page")
+    public ResponseEntity<ApiResponse<TransactionPageDTO>> getTransactionPageByDateRange(
+            @RequestHeader("Authorization") String authHeader,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size) {
+
+        String token = jwtHelper.extractToken(authHeader);
+        JwtHelperService.HeadAdminDetails details = jwtHelper.getHeadAdminDetails(token);
+
+        log.info("Head Bank Admin {} fetching a transaction page from {} to {}",
+                details.getAdminId(), startDate, endDate);
+
+        TransactionPageDTO page = headBankAdminSerivice.getTransactionPageByDateRange(
+                details.getHeadBankId(), startDate, endDate, cursor, size);
+
+        log.info("Found {} transactions", page.getTransactions().size());
+        return ResponseEntity.ok(ApiResponse.success("Transactions retrieved successfully", page));
+    }
+
     // ==================== CHARGES ENDPOINTS ====================
 
     @GetMapping("/charges/date-range")
@@ -345,10 +370,15 @@ public class HeadBankAdminController {
         JwtHelperService.HeadAdminDetails details = jwtHelper.getHeadAdminDetails(token);
 
         log.info("Head Bank Admin {} fetching all debit card rules", details.getAdminId());
-        List<DebitCardRules> rules = debitCardRulesService.getAllDebitCardRulesByHeadBank(details.getHeadBankId());
-        log.info("Successfully retrieved {} debit card rules", rules.size());
-
-        return ResponseEntity.ok(ApiResponse.success("Debit card rules retrieved successfully", rules));
+        HeadBankCatalogService.Catalog<DebitCardRules> rules =
+                debitCardRulesService.getAllDebitCardRulesByHeadBank(details.getHeadBankId());
+        log.info("Successfully retrieved {} debit card rules", rules.items().size());
+
+        // Conditional GET: a matching If-None-Match is answered with 304 and no body
+        return ResponseEntity.ok()
+                .eTag(rules.etag())
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body(ApiResponse.success("Debit card rules retrieved successfully", rules.items()));
     }
 
     @GetMapping("/branches")
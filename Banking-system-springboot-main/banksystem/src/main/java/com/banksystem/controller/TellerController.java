@@ -233,19 +233,12 @@ public class TellerController {
             @RequestHeader("Authorization") String authHeader) {
 
         String token = jwtHelper.extractToken(authHeader);
-        Long tellerId = jwtHelper.getTellerIdFromToken(token);
-
-        log.info("Teller {} fetching pending requests summary", tellerId);
+        JwtHelperService.TellerDetails details = jwtHelper.getTellerDetails(token);
 
-        List<AccountRequest> accountRequests = tellerService.getPendingAccountRequests(tellerId);
-        List<CardRequest> cardRequests = tellerService.getPendingCardRequests(tellerId);
-        List<ChequeBookRequest> chequeBookRequests = tellerService.getPendingChequeBookRequests(tellerId);
+        log.info("Teller {} fetching pending requests summary", details.getTellerId());
 
-        PendingSummaryDTO summary = new PendingSummaryDTO(
-                accountRequests.size(),
-                cardRequests.size(),
-                chequeBookRequests.size()
-        );
+        // Served from the in-memory per-branch counters
+        PendingSummaryDTO summary = tellerService.getPendingRequestsSummary(details.getBranchId());
 
         log.info("Summary: {} account requests, {} card requests, {} cheque book requests",
                 summary.getPendingAccountRequests(),
@@ -1,15 +1,23 @@
 package com.banksystem.controller;
 
 import com.banksystem.dto.ApiResponse;
+import com.banksystem.dto.BatchTransactionResultDTO;
 import com.banksystem.dto.TransactionDto;
 import com.banksystem.entity.Transaction;
+import com.banksystem.exception.BusinessRuleException;
+import com.banksystem.exception.IdempotencyConflictException;
+import com.banksystem.security.JwtHelperService;
+import com.banksystem.security.JwtPrincipal;
 import com.banksystem.services.TransactionService;
+import com.banksystem.services.TransferPipeline;
+import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -19,14 +27,24 @@ public class TransactionController {
 
     private final TransactionService transactionService;
 
-    public TransactionController(TransactionService transactionService) {
+    private final TransferPipeline transferPipeline;
+
+    private final JwtHelperService jwtHelper;
+
+    public TransactionController(TransactionService transactionService,
+                                 TransferPipeline transferPipeline,
+                                 JwtHelperService jwtHelper) {
         this.transactionService = transactionService;
+        this.transferPipeline = transferPipeline;
+        this.jwtHelper = jwtHelper;
     }
 
     @PostMapping("/transfer")
-    public ResponseEntity<ApiResponse<TransactionDto>> makeTransaction(@RequestBody TransactionDto transactionDto) {
+    public ResponseEntity<ApiResponse<TransactionDto>> makeTransaction(
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+            @RequestBody TransactionDto transactionDto) {
         try {
-            Transaction transaction = transactionService.makeTransaction(transactionDto);
+            Transaction transaction = transferPipeline.submit(transactionDto, idempotencyKey);
 
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
@@ -39,6 +57,9 @@ public class TransactionController {
             response.put("transactionDate", transaction.getTransactionDate());
 
             return ResponseEntity.status(HttpStatus.ACCEPTED).body(ApiResponse.success("ok done ",transactionDto));
+        } catch (IdempotencyConflictException e) {
+            // Answered as 422 by GlobalExceptionHandler
+            throw e;
         } catch (Exception e) {
             Map<String, Object> errorResponse = new HashMap<>();
             errorResponse.put("success", false);
@@ -49,6 +70,27 @@ public class TransactionController {
         }
     }
 
+    // Payroll / merchant settlement: one lock pass and batched writes for the whole list.
+    // Branch operators only (SecurityConfig); every sender account must be held at their branch.
+    @PostMapping("/batch")
+    public ResponseEntity<ApiResponse<BatchTransactionResultDTO>> makeTransactions(
+            @RequestHeader("Authorization") String authHeader,
+            @Valid @RequestBody List<TransactionDto> transactionDtos) {
+        Long branchId = operatorBranchId(jwtHelper.extractToken(authHeader));
+        BatchTransactionResultDTO result = transactionService.makeTransactions(transactionDtos, branchId);
+        return ResponseEntity.ok(ApiResponse.success(
+                "Batch processed: " + result.getSucceeded() + " succeeded, " + result.getFailed() + " failed", result));
+    }
+
+    private Long operatorBranchId(String token) {
+        JwtPrincipal principal = jwtHelper.getPrincipal(token);
+        return switch (principal.role()) {
+            case TELLER -> jwtHelper.getTellerDetails(token).getBranchId();
+            case BRANCHMANAGER -> jwtHelper.getManagerDetails(token).getBranchId();
+            default -> throw new BusinessRuleException("Access denied: Batch transfers require a branch operator");
+        };
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<?> getTransactionById(@PathVariable Long id) {
         try {
@@ -0,0 +1,62 @@
+package com.banksystem.dto;
+
+import com.banksystem.entity.Transaction;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchTransactionResultDTO {
+    private int total;
+    private int succeeded;
+    private int failed;
+    private List<ItemResult> results;
+
+    // Custom constructor that auto-calculates the counters
+    public BatchTransactionResultDTO(List<ItemResult> results) {
+        this.results = results;
+        this.total = results.size();
+        this.succeeded = (int) results.stream().filter(ItemResult::isSuccess).count();
+        this.failed = this.total - this.succeeded;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ItemResult {
+        private int index;
+        private boolean success;
+        private String senderAccountNumber;
+        private String receiverAccountNumber;
+        private BigDecimal amount;
+        private String transactionReference;
+        private BigDecimal totalCharges;
+        private BigDecimal netAmount;
+        private String message;
+
+        public static ItemResult success(int index, Transaction transaction) {
+            return new ItemResult(index, true,
+                    transaction.getFromAccount().getAccountNumber(),
+                    transaction.getToAccount().getAccountNumber(),
+                    transaction.getAmount(),
+                    transaction.getTransactionReference(),
+                    transaction.getTotalCharges(),
+                    transaction.getNetAmount(),
+                    "Transaction completed successfully");
+        }
+
+        public static ItemResult failure(int index, TransactionDto dto, String message) {
+            return new ItemResult(index, false,
+                    dto.getSenderAccountNumber(),
+                    dto.getReceiverAccountNumber(),
+                    dto.getAmount(),
+                    null, null, null,
+                    message);
+        }
+    }
+}
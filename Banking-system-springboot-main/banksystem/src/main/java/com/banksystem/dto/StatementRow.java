@@ -0,0 +1,23 @@
+package com.banksystem.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Flat, unmanaged row of a statement export. Read as a projection so no Transaction
+ * entity graph is built or kept in the persistence context. The id is only used as
+ * the keyset tie-breaker and is not exported.
+ */
+public interface StatementRow {
+    Long getId();
+    String getTransactionReference();
+    LocalDateTime getTransactionDate();
+    String getFromAccountNumber();
+    String getToAccountNumber();
+    String getTransactionType();
+    BigDecimal getAmount();
+    BigDecimal getTotalCharges();
+    BigDecimal getNetAmount();
+    String getStatus();
+    String getDescription();
+}
@@ -4,6 +4,9 @@ import com.banksystem.enums.AccountHolderType;
 import com.banksystem.enums.BankType;
 import com.banksystem.enums.TransactionStatus;
 import com.banksystem.enums.TransactionType;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
 import lombok.Data;
 
 import java.math.BigDecimal;
@@ -11,14 +14,19 @@ import java.math.BigDecimal;
 @Data
 public class TransactionDto {
 
+  @NotBlank(message = "Sender account number is required")
   private String senderAccountNumber;
+  @NotBlank(message = "Receiver account number is required")
   private String receiverAccountNumber;
   private BankType bankType;
   private Long bankId;
 //  private Long headBankId;
 //  private Long CentralBankId;
+  @NotNull(message = "Transaction type is required")
   private TransactionType transactionType;
   private AccountHolderType  accountHolderType;
+  @NotNull(message = "Amount is required")
+  @Positive(message = "Amount must be positive")
   private BigDecimal amount;
   private String description="simple transaction";
   private TransactionStatus transactionStatus=TransactionStatus.PENDING;
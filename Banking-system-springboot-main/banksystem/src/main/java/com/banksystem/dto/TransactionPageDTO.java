@@ -0,0 +1,36 @@
+package com.banksystem.dto;
+
+import com.banksystem.entity.Transaction;
+import com.banksystem.util.KeysetCursor;
+import com.banksystem.util.KeysetCursorCodec;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionPageDTO {
+    private List<Transaction> transactions;
+    // Opaque cursor for the next page, null on the last page
+    private String nextCursor;
+    private boolean hasMore;
+
+    /**
+     * Builds a page from a keyset query run with LIMIT pageSize + 1: the extra row only
+     * tells whether another page exists, and the cursor points at the last row returned.
+     */
+    public static TransactionPageDTO of(List<Transaction> rows, int pageSize, KeysetCursorCodec codec) {
+        boolean hasMore = rows.size() > pageSize;
+        List<Transaction> page = hasMore ? rows.subList(0, pageSize) : rows;
+        String nextCursor = null;
+        if (hasMore) {
+            Transaction last = page.get(page.size() - 1);
+            nextCursor = codec.encode(new KeysetCursor(last.getTransactionDate(), last.getId()));
+        }
+        return new TransactionPageDTO(new ArrayList<>(page), nextCursor, hasMore);
+    }
+}
@@ -20,7 +20,10 @@ import java.util.List;
 @AllArgsConstructor
 public class Account {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "account_id_gen")
+    @TableGenerator(name = "account_id_gen", table = "id_generator",
+            pkColumnName = "gen_name", valueColumnName = "next_val",
+            pkColumnValue = "account", initialValue = 10000, allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
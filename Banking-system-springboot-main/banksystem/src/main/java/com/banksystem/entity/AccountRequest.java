@@ -18,7 +18,10 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 public class AccountRequest {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "account_request_id_gen")
+    @TableGenerator(name = "account_request_id_gen", table = "id_generator",
+            pkColumnName = "gen_name", valueColumnName = "next_val",
+            pkColumnValue = "account_request", initialValue = 10000, allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -0,0 +1,47 @@
+package com.banksystem.entity;
+
+import com.banksystem.enums.BankType;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Earnings of one bank in one hour that are not yet part of the timeline.
+ * Written next to the earning slot by every transfer and striped the same way;
+ * the roll-up job folds closed hours into BankEarningTimeline and deletes them.
+ */
+@Entity
+@Table(name = "bank_earning_bucket",
+        uniqueConstraints = @UniqueConstraint(name = "uk_earning_bucket",
+                columnNames = {"bank_type", "bank_id", "bucket_start", "slot"}),
+        indexes = @Index(name = "idx_earning_bucket_start", columnList = "bucket_start"))
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+public class BankEarningBucket {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "bank_type", nullable = false, length = 20)
+    private BankType bankType;
+
+    @Column(name = "bank_id", nullable = false)
+    private Long bankId;
+
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDateTime bucketStart;
+
+    @Column(nullable = false)
+    private Integer slot;
+
+    @Column(precision = 19, scale = 2, nullable = false)
+    private BigDecimal amount = BigDecimal.ZERO;
+
+    @Column(name = "txn_count", nullable = false)
+    private Long txnCount = 0L;
+}
@@ -0,0 +1,39 @@
+package com.banksystem.entity;
+
+import com.banksystem.enums.BankType;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+
+/**
+ * One striped counter cell of a bank's earnings. Transfers add charges to a
+ * slot instead of the single total_earning row; the roll-up job later folds
+ * all slots of a bank into its totalEarning and resets them to zero.
+ */
+@Entity
+@Table(name = "bank_earning_slot",
+        uniqueConstraints = @UniqueConstraint(name = "uk_earning_slot",
+                columnNames = {"bank_type", "bank_id", "slot"}))
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+public class BankEarningSlot {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "bank_type", nullable = false, length = 20)
+    private BankType bankType;
+
+    @Column(name = "bank_id", nullable = false)
+    private Long bankId;
+
+    @Column(nullable = false)
+    private Integer slot;
+
+    @Column(precision = 19, scale = 2, nullable = false)
+    private BigDecimal amount = BigDecimal.ZERO;
+}
@@ -0,0 +1,49 @@
+package com.banksystem.entity;
+
+import com.banksystem.enums.BankType;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Closed hour of a bank's earnings with running totals since the bank's first
+ * earning. The earnings of any period are the difference of two cumulative
+ * values, so a report over years reads two index entries.
+ */
+@Entity
+@Table(name = "bank_earning_timeline",
+        uniqueConstraints = @UniqueConstraint(name = "uk_earning_timeline",
+                columnNames = {"bank_type", "bank_id", "bucket_start"}))
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+public class BankEarningTimeline {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "bank_type", nullable = false, length = 20)
+    private BankType bankType;
+
+    @Column(name = "bank_id", nullable = false)
+    private Long bankId;
+
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDateTime bucketStart;
+
+    @Column(precision = 19, scale = 2, nullable = false)
+    private BigDecimal amount = BigDecimal.ZERO;
+
+    @Column(name = "txn_count", nullable = false)
+    private Long txnCount = 0L;
+
+    @Column(name = "cumulative_amount", precision = 19, scale = 2, nullable = false)
+    private BigDecimal cumulativeAmount = BigDecimal.ZERO;
+
+    @Column(name = "cumulative_count", nullable = false)
+    private Long cumulativeCount = 0L;
+}
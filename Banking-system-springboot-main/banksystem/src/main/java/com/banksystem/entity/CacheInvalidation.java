@@ -0,0 +1,39 @@
+package com.banksystem.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * One entry of the append-only cache invalidation log. It is written in the same
+ * transaction as the change it describes, so it exists exactly when the change
+ * committed. Every node tails the log and evicts cacheKey from cacheName, or the
+ * whole cache when cacheKey is null.
+ */
+@Entity
+@Table(name = "cache_invalidation",
+        indexes = @Index(name = "idx_cache_invalidation_created_at", columnList = "created_at"))
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+public class CacheInvalidation {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "cache_name", nullable = false, length = 64)
+    private String cacheName;
+
+    @Column(name = "cache_key", length = 100)
+    private String cacheKey;
+
+    // app.node-id of the writer, for diagnostics
+    @Column(name = "origin_node", nullable = false)
+    private Integer originNode;
+
+    // Writer's clock; only drives the retention purge, nodes tail by id
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
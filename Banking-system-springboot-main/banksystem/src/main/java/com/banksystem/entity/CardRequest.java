@@ -15,7 +15,10 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 public class CardRequest {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "card_request_id_gen")
+    @TableGenerator(name = "card_request_id_gen", table = "id_generator",
+            pkColumnName = "gen_name", valueColumnName = "next_val",
+            pkColumnValue = "card_request", initialValue = 10000, allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
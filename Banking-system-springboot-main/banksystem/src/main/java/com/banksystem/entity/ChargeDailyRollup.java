@@ -0,0 +1,57 @@
+package com.banksystem.entity;
+
+import com.banksystem.enums.BankType;
+import com.banksystem.enums.TransactionType;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Pre-aggregated charges of one bank for one day and transaction type.
+ * Like BankEarningSlot, each key is striped over a few slot rows so concurrent
+ * transfers do not queue on a single counter row; readers sum the slots.
+ */
+@Entity
+@Table(name = "charge_daily_rollup",
+        uniqueConstraints = @UniqueConstraint(name = "uk_charge_rollup",
+                columnNames = {"bank_type", "bank_id", "day", "transaction_type", "slot"}))
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+public class ChargeDailyRollup {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "bank_type", nullable = false, length = 20)
+    private BankType bankType;
+
+    @Column(name = "bank_id", nullable = false)
+    private Long bankId;
+
+    @Column(nullable = false)
+    private LocalDate day;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "transaction_type", nullable = false, length = 50)
+    private TransactionType transactionType;
+
+    @Column(nullable = false)
+    private Integer slot;
+
+    @Column(name = "txn_count", nullable = false)
+    private Long txnCount = 0L;
+
+    @Column(name = "total_amount", precision = 19, scale = 2, nullable = false)
+    private BigDecimal totalAmount = BigDecimal.ZERO;
+
+    @Column(name = "total_net_amount", precision = 19, scale = 2, nullable = false)
+    private BigDecimal totalNetAmount = BigDecimal.ZERO;
+
+    @Column(name = "total_charges", precision = 19, scale = 2, nullable = false)
+    private BigDecimal totalCharges = BigDecimal.ZERO;
+}
@@ -13,7 +13,10 @@ import java.time.LocalDateTime;
 @Builder
 public class Charges {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "charges_id_gen")
+    @TableGenerator(name = "charges_id_gen", table = "id_generator",
+            pkColumnName = "gen_name", valueColumnName = "next_val",
+            pkColumnValue = "charges", initialValue = 10000, allocationSize = 1000)
     private Long id;
 
     @JoinColumn(name="transaction_id")
@@ -16,7 +16,10 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 public class ChequeBookRequest {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "cheque_book_request_id_gen")
+    @TableGenerator(name = "cheque_book_request_id_gen", table = "id_generator",
+            pkColumnName = "gen_name", valueColumnName = "next_val",
+            pkColumnValue = "cheque_book_request", initialValue = 10000, allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
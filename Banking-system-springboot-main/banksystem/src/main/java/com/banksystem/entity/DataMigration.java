@@ -0,0 +1,27 @@
+package com.banksystem.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Marker of a one-time data migration in data.sql. The migration claims its row in the
+ * same transaction as its writes, so it runs exactly once however many times, and on
+ * however many nodes, data.sql is executed.
+ */
+@Entity
+@Table(name = "data_migration")
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+public class DataMigration {
+    // e.g. "charge-rollup-backfill"
+    @Id
+    @Column(name = "name", length = 64)
+    private String name;
+
+    @Column(name = "applied_at", nullable = false)
+    private LocalDateTime appliedAt;
+}
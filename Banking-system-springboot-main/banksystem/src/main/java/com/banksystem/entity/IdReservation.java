@@ -0,0 +1,26 @@
+package com.banksystem.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * High-water mark of one node's coarse-tick id family (card numbers, cheque serials).
+ * The node never hands out a value at or above reservedUntil without raising it here
+ * first, so after a restart it resumes above everything it may already have issued.
+ * The "ledger:commit-seq" row instead holds the last ledger commit sequence handed out.
+ */
+@Entity
+@Table(name = "id_reservation")
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+public class IdReservation {
+    // Family and node, e.g. "card:node-3"
+    @Id
+    @Column(name = "name", length = 64)
+    private String name;
+
+    @Column(name = "reserved_until", nullable = false)
+    private Long reservedUntil;
+}
@@ -0,0 +1,40 @@
+package com.banksystem.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Client supplied Idempotency-Key of a transfer. The row is inserted in the same
+ * database transaction as the transfer, so a key exists if and only if its
+ * transfer committed; a retried request with the same key gets that transfer back.
+ *
+ * The stored key is a digest of the authenticated user and the client key, so keys
+ * are scoped per user. requestHash identifies the request body the key was first
+ * used with; a replay with a different body is rejected.
+ */
+@Entity
+@Table(name = "idempotency_key",
+        indexes = @Index(name = "idx_idempotency_created_at", columnList = "created_at"))
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+public class IdempotencyKey {
+    @Id
+    @Column(name = "idempotency_key", length = 100)
+    private String idempotencyKey;
+
+    @Column(name = "principal", length = 100)
+    private String principal;
+
+    @Column(name = "request_hash", length = 64)
+    private String requestHash;
+
+    @Column(name = "transaction_id")
+    private Long transactionId;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,66 @@
+package com.banksystem.entity;
+
+import com.banksystem.enums.EntryDirection;
+import com.banksystem.enums.LedgerEntryType;
+import com.banksystem.enums.LedgerOwnerType;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * One leg of a double-entry posting. Rows are only ever inserted: the debits and
+ * credits written for one business event always sum to the same amount, and a
+ * balance at any point in time is a LedgerSnapshot plus the legs it does not cover.
+ */
+@Entity
+@Table(name = "ledger_entries",
+        indexes = {
+                @Index(name = "idx_ledger_owner_created", columnList = "owner_type, owner_id, created_at"),
+                @Index(name = "idx_ledger_owner_seq", columnList = "owner_type, owner_id, commit_seq"),
+                @Index(name = "idx_ledger_commit_seq", columnList = "commit_seq")
+        })
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+public class LedgerEntry {
+    @Id
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "ledger_entry_id_gen")
+    @TableGenerator(name = "ledger_entry_id_gen", table = "id_generator",
+            pkColumnName = "gen_name", valueColumnName = "next_val",
+            pkColumnValue = "ledger_entries", initialValue = 10000, allocationSize = 1000)
+    private Long id;
+
+    // Plain id rather than an association so the journal never loads or locks the transfer
+    @Column(name = "transaction_id")
+    private Long transactionId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "owner_type", nullable = false, length = 20)
+    private LedgerOwnerType ownerType;
+
+    @Column(name = "owner_id", nullable = false)
+    private Long ownerId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private EntryDirection direction;
+
+    @Column(precision = 19, scale = 2, nullable = false)
+    private BigDecimal amount;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "entry_type", nullable = false, length = 30)
+    private LedgerEntryType entryType;
+
+    private String description;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    // Commit order, stamped by LedgerService.sequenceCommitted once the posting is visible; null until then
+    @Column(name = "commit_seq")
+    private Long commitSeq;
+}
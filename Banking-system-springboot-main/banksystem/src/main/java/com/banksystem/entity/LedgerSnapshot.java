@@ -0,0 +1,49 @@
+package com.banksystem.entity;
+
+import com.banksystem.enums.LedgerOwnerType;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Balance of one ledger owner covering exactly its entries with commit_seq up to
+ * coveredSeq. Every covered entry was created before asOf; entries created before
+ * asOf that committed later are not covered and are added on top when reading.
+ */
+@Entity
+@Table(name = "ledger_snapshots",
+        indexes = {
+                @Index(name = "idx_snapshot_owner_as_of", columnList = "owner_type, owner_id, as_of"),
+                @Index(name = "idx_snapshot_owner_seq", columnList = "owner_type, owner_id, covered_seq")
+        })
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+public class LedgerSnapshot {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "owner_type", nullable = false, length = 20)
+    private LedgerOwnerType ownerType;
+
+    @Column(name = "owner_id", nullable = false)
+    private Long ownerId;
+
+    @Column(name = "as_of", nullable = false)
+    private LocalDateTime asOf;
+
+    // 0 for opening snapshots, which cover no entries
+    @Column(name = "covered_seq")
+    private Long coveredSeq;
+
+    @Column(precision = 19, scale = 2, nullable = false)
+    private BigDecimal balance;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+}
@@ -0,0 +1,30 @@
+package com.banksystem.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Which running instance currently holds an app.node-id. The holder renews the lease
+ * well before expiresAt; another instance may only take the node id over once the
+ * lease has expired. Times are the database's clock, so host clock skew does not matter.
+ */
+@Entity
+@Table(name = "node_lease")
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+public class NodeLease {
+    @Id
+    @Column(name = "node_id")
+    private Integer nodeId;
+
+    // Random id of the holding process
+    @Column(name = "instance_id", nullable = false, length = 36)
+    private String instanceId;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+}
@@ -0,0 +1,32 @@
+package com.banksystem.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * A revoked token ("T:" + token digest) or a revoked subject ("S:" + role + ":" + id)
+ * whose tokens issued up to revokedAt are no longer accepted. Rows are only needed
+ * until expiresAt, after which every affected token has expired anyway.
+ */
+@Entity
+@Table(name = "token_revocation")
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+public class TokenRevocation {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "revocation_key", nullable = false, unique = true, length = 100)
+    private String revocationKey;
+
+    @Column(name = "revoked_at", nullable = false)
+    private LocalDateTime revokedAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+}
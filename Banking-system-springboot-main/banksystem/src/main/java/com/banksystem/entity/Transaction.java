@@ -12,13 +12,25 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "transactions")
+@Table(name = "transactions",
+        indexes = {
+                // Keyset pagination of account history, one range scan per side of the transfer
+                @Index(name = "idx_txn_from_date_id", columnList = "from_account_id, transaction_date, id"),
+                @Index(name = "idx_txn_to_date_id", columnList = "to_account_id, transaction_date, id"),
+                // Branch / head bank range scans on the denormalized ids below
+                @Index(name = "idx_txn_branch_date_id", columnList = "branch_id, transaction_date, id"),
+                @Index(name = "idx_txn_to_branch_date_id", columnList = "to_branch_id, transaction_date, id"),
+                @Index(name = "idx_txn_head_bank_date_id", columnList = "head_bank_id, transaction_date, id")
+        })
 @Getter @Setter
 @NoArgsConstructor
 @AllArgsConstructor
 public class Transaction {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "transaction_id_gen")
+    @TableGenerator(name = "transaction_id_gen", table = "id_generator",
+            pkColumnName = "gen_name", valueColumnName = "next_val",
+            pkColumnValue = "transactions", initialValue = 10000, allocationSize = 1000)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -63,6 +75,16 @@ public class Transaction {
     @JsonIgnore
     private List<Charges> charges=new ArrayList<>();
 
+    // Sender's branch and head bank, and the receiver's branch, copied at write time
+    @Column(name = "branch_id")
+    private Long branchId;
+
+    @Column(name = "head_bank_id")
+    private Long headBankId;
+
+    @Column(name = "to_branch_id")
+    private Long toBranchId;
+
     @Column(name = "transaction_date")
     private LocalDateTime transactionDate = LocalDateTime.now();
 
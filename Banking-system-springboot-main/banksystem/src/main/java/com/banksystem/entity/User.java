@@ -28,6 +28,19 @@ public class User {
     @Enumerated(EnumType.STRING)
     private RolesType role;
 
+    // ================= LOGIN IDENTITY =================
+    // Copied from the role entity when the role is assigned, so login and the JWT
+    // need no join over the five role tables
+
+    @Column(name = "specific_id")
+    private Long specificId;
+
+    @Column(name = "branch_id")
+    private Long branchId;
+
+    @Column(name = "head_bank_id")
+    private Long headBankId;
+
     // ================= LINKS TO SPECIFIC ENTITIES =================
 
     @OneToOne(mappedBy = "user", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
@@ -60,5 +73,10 @@ public class User {
     @EqualsAndHashCode.Exclude
     private CentralBankAdmin centralBankAdmin;
 
-    // REMOVED getSpecificId() method - now handled by repository query
+    public void assignIdentity(RolesType role, Long specificId, Long branchId, Long headBankId) {
+        this.role = role;
+        this.specificId = specificId;
+        this.branchId = branchId;
+        this.headBankId = headBankId;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,6 @@
+package com.banksystem.enums;
+
+public enum EntryDirection {
+    DEBIT,
+    CREDIT
+}
@@ -0,0 +1,7 @@
+package com.banksystem.enums;
+
+public enum LedgerEntryType {
+    TRANSFER,
+    FEE,
+    LOAN_DISBURSEMENT
+}
@@ -0,0 +1,8 @@
+package com.banksystem.enums;
+
+public enum LedgerOwnerType {
+    ACCOUNT,
+    BANK_BRANCH,
+    HEAD_BANK,
+    CENTRAL_BANK
+}
@@ -0,0 +1,7 @@
+package com.banksystem.enums;
+
+public enum PendingRequestType {
+    ACCOUNT,
+    CARD,
+    CHEQUE_BOOK
+}
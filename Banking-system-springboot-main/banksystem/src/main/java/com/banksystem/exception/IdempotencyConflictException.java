@@ -0,0 +1,10 @@
+package com.banksystem.exception;
+
+/**
+ * An Idempotency-Key was reused with a different request body.
+ */
+public class IdempotencyConflictException extends RuntimeException {
+    public IdempotencyConflictException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,17 @@
+package com.banksystem.exception;
+
+/**
+ * A bounded resource is saturated; the client should retry after a short pause.
+ */
+public class ServiceBusyException extends RuntimeException {
+    private final int retryAfterSeconds;
+
+    public ServiceBusyException(String message, int retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
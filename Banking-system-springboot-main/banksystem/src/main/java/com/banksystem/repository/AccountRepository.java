@@ -13,6 +13,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -31,6 +32,16 @@ public interface AccountRepository extends JpaRepository<Account, Long> {
     @Query("SELECT a FROM Account a WHERE a.accountNumber = :accountNumber")
     Account findByAccountNumberWithLock(@Param("accountNumber") String accountNumber);
 
+    // Locks all given accounts in one round trip. Rows are locked in account_number order,
+    // which is the global lock order used by transfers to avoid deadlocks.
+    @Query(value = "SELECT * FROM account WHERE account_number IN (:accountNumbers) " +
+            "ORDER BY account_number FOR UPDATE", nativeQuery = true)
+    List<Account> findAllByAccountNumberInWithLock(@Param("accountNumbers") Collection<String> accountNumbers);
+
+    // Accounts among the given numbers that are held at a branch other than branchId
+    @Query("SELECT a.accountNumber FROM Account a WHERE a.accountNumber IN :accountNumbers AND a.branch.id <> :branchId")
+    List<String> findAccountNumbersOutsideBranch(@Param("accountNumbers") Collection<String> accountNumbers,
+                                                 @Param("branchId") Long branchId);
 
     Optional<Account> findById(Long id);
 
@@ -26,6 +26,12 @@ public interface AccountRequestRepository extends JpaRepository<AccountRequest,
 
     List<AccountRequest> findByBranchId(Long branchId);
 
+    List<AccountRequest> findByBranchIdAndStatus(Long branchId, RequestStatus status);
+
+    // (branchId, count) of requests in the given status, used to seed the pending counters
+    @Query("SELECT ar.branchId, COUNT(ar) FROM AccountRequest ar WHERE ar.status = :status GROUP BY ar.branchId")
+    List<Object[]> countByBranchAndStatus(@Param("status") RequestStatus status);
+
 
     boolean existsByCustomer_IdAndAccountTypeAndBranchIdAndStatus(
             Long customerId,
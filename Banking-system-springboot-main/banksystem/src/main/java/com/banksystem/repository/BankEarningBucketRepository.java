@@ -0,0 +1,54 @@
+package com.banksystem.repository;
+
+import com.banksystem.entity.BankEarningBucket;
+import com.banksystem.enums.BankType;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface BankEarningBucketRepository extends JpaRepository<BankEarningBucket, Long> {
+
+    // Single-statement add: creates the bucket slot on first use, otherwise increments it in place
+    @Modifying
+    @Query(value = """
+        INSERT INTO bank_earning_bucket (bank_type, bank_id, bucket_start, slot, amount, txn_count)
+        VALUES (:bankType, :bankId, :bucketStart, :slot, :amount, 1)
+        ON DUPLICATE KEY UPDATE amount = amount + VALUES(amount), txn_count = txn_count + 1
+        """, nativeQuery = true)
+    int addToBucket(@Param("bankType") String bankType,
+                    @Param("bankId") Long bankId,
+                    @Param("bucketStart") LocalDateTime bucketStart,
+                    @Param("slot") int slot,
+                    @Param("amount") BigDecimal amount);
+
+    // Banks with buckets older than the cutoff, as (bankType, bankId) pairs
+    @Query("SELECT DISTINCT b.bankType, b.bankId FROM BankEarningBucket b WHERE b.bucketStart < :cutoff")
+    List<Object[]> findBanksWithClosedBuckets(@Param("cutoff") LocalDateTime cutoff);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM BankEarningBucket b WHERE b.bankType = :bankType AND b.bankId = :bankId " +
+            "AND b.bucketStart < :cutoff ORDER BY b.bucketStart, b.slot")
+    List<BankEarningBucket> lockClosedBuckets(@Param("bankType") BankType bankType,
+                                              @Param("bankId") Long bankId,
+                                              @Param("cutoff") LocalDateTime cutoff);
+
+    // Buckets not yet folded into the timeline, as (amount, count) for one period
+    @Query("SELECT COALESCE(SUM(b.amount), 0), COALESCE(SUM(b.txnCount), 0) FROM BankEarningBucket b " +
+            "WHERE b.bankType = :bankType AND b.bankId = :bankId " +
+            "AND b.bucketStart >= :from AND b.bucketStart < :to")
+    List<Object[]> sumOpen(@Param("bankType") BankType bankType,
+                           @Param("bankId") Long bankId,
+                           @Param("from") LocalDateTime from,
+                           @Param("to") LocalDateTime to);
+
+    @Modifying
+    @Query("DELETE FROM BankEarningBucket b WHERE b.id IN :ids")
+    int deleteByIds(@Param("ids") List<Long> ids);
+}
@@ -0,0 +1,44 @@
+package com.banksystem.repository;
+
+import com.banksystem.entity.BankEarningSlot;
+import com.banksystem.enums.BankType;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public interface BankEarningSlotRepository extends JpaRepository<BankEarningSlot, Long> {
+
+    // Single-statement add: creates the slot on first use, otherwise increments it in place
+    @Modifying
+    @Query(value = """
+        INSERT INTO bank_earning_slot (bank_type, bank_id, slot, amount)
+        VALUES (:bankType, :bankId, :slot, :amount)
+        ON DUPLICATE KEY UPDATE amount = amount + VALUES(amount)
+        """, nativeQuery = true)
+    int addToSlot(@Param("bankType") String bankType,
+                  @Param("bankId") Long bankId,
+                  @Param("slot") int slot,
+                  @Param("amount") BigDecimal amount);
+
+    @Query("SELECT COALESCE(SUM(s.amount), 0) FROM BankEarningSlot s " +
+            "WHERE s.bankType = :bankType AND s.bankId = :bankId")
+    BigDecimal sumPending(@Param("bankType") BankType bankType, @Param("bankId") Long bankId);
+
+    // Banks that still have un-rolled earnings, as (bankType, bankId) pairs
+    @Query("SELECT DISTINCT s.bankType, s.bankId FROM BankEarningSlot s WHERE s.amount <> 0")
+    List<Object[]> findBanksWithPendingEarnings();
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM BankEarningSlot s WHERE s.bankType = :bankType AND s.bankId = :bankId")
+    List<BankEarningSlot> lockSlots(@Param("bankType") BankType bankType, @Param("bankId") Long bankId);
+
+    @Modifying
+    @Query("UPDATE BankEarningSlot s SET s.amount = 0 WHERE s.bankType = :bankType AND s.bankId = :bankId")
+    int resetSlots(@Param("bankType") BankType bankType, @Param("bankId") Long bankId);
+}
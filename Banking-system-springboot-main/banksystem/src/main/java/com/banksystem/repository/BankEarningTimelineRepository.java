@@ -0,0 +1,60 @@
+package com.banksystem.repository;
+
+import com.banksystem.entity.BankEarningTimeline;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface BankEarningTimelineRepository extends JpaRepository<BankEarningTimeline, Long> {
+
+    // Running totals of the last closed hour before the given instant, as (cumulativeAmount, cumulativeCount)
+    @Query(value = """
+        SELECT t.cumulative_amount, t.cumulative_count
+        FROM bank_earning_timeline t
+        WHERE t.bank_type = :bankType AND t.bank_id = :bankId AND t.bucket_start < :before
+        ORDER BY t.bucket_start DESC
+        LIMIT 1
+        """, nativeQuery = true)
+    List<Object[]> findCumulativeBefore(@Param("bankType") String bankType,
+                                        @Param("bankId") Long bankId,
+                                        @Param("before") LocalDateTime before);
+
+    // Adds a closed hour; an hour that is already on the timeline (late commit) is increased instead
+    @Modifying
+    @Query(value = """
+        INSERT INTO bank_earning_timeline
+            (bank_type, bank_id, bucket_start, amount, txn_count, cumulative_amount, cumulative_count)
+        VALUES (:bankType, :bankId, :bucketStart, :amount, :txnCount, :cumulativeAmount, :cumulativeCount)
+        ON DUPLICATE KEY UPDATE
+            amount = amount + VALUES(amount),
+            txn_count = txn_count + VALUES(txn_count),
+            cumulative_amount = cumulative_amount + VALUES(amount),
+            cumulative_count = cumulative_count + VALUES(txn_count)
+        """, nativeQuery = true)
+    int addHour(@Param("bankType") String bankType,
+                @Param("bankId") Long bankId,
+                @Param("bucketStart") LocalDateTime bucketStart,
+                @Param("amount") BigDecimal amount,
+                @Param("txnCount") long txnCount,
+                @Param("cumulativeAmount") BigDecimal cumulativeAmount,
+                @Param("cumulativeCount") long cumulativeCount);
+
+    // Carries a late hour into the running totals of every later hour
+    @Modifying
+    @Query(value = """
+        UPDATE bank_earning_timeline
+        SET cumulative_amount = cumulative_amount + :amount,
+            cumulative_count = cumulative_count + :txnCount
+        WHERE bank_type = :bankType AND bank_id = :bankId AND bucket_start > :bucketStart
+        """, nativeQuery = true)
+    int shiftLaterHours(@Param("bankType") String bankType,
+                        @Param("bankId") Long bankId,
+                        @Param("bucketStart") LocalDateTime bucketStart,
+                        @Param("amount") BigDecimal amount,
+                        @Param("txnCount") long txnCount);
+}
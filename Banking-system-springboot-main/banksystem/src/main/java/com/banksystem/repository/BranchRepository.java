@@ -3,6 +3,11 @@ package com.banksystem.repository;
 import com.banksystem.entity.Branch;
 import com.banksystem.entity.HeadBank;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
 import java.util.List;
 import java.util.Optional;
 
@@ -12,4 +17,13 @@ public interface BranchRepository extends JpaRepository<Branch,Long> {
     List<Branch> findByHeadBankAndIsActive(HeadBank headBank, Boolean isActive);
 
     Optional<Branch> findById(Long id);
+
+    // (id, branchCode, isActive, headBankId) of every branch, for the in-memory bank topology
+    @Query("SELECT b.id, b.branchCode, b.isActive, b.headBank.id FROM Branch b")
+    List<Object[]> findTopologyRows();
+
+    // Used by the earnings roll-up, touches only the total_earning column
+    @Modifying
+    @Query("UPDATE Branch b SET b.totalEarning = COALESCE(b.totalEarning, 0) + :amount WHERE b.id = :id")
+    int addToTotalEarning(@Param("id") Long id, @Param("amount") BigDecimal amount);
 }
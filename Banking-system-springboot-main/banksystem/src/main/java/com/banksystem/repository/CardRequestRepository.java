@@ -20,4 +20,9 @@ public interface CardRequestRepository extends JpaRepository<CardRequest, Long>
             @Param("status") RequestStatus status);
 
     boolean existsByAccountAndStatus(Account account, RequestStatus status);
+
+    // (branchId, count) of requests in the given status, used to seed the pending counters
+    @Query("SELECT cr.account.branch.id, COUNT(cr) FROM CardRequest cr WHERE cr.status = :status " +
+            "GROUP BY cr.account.branch.id")
+    List<Object[]> countByBranchAndStatus(@Param("status") RequestStatus status);
 }
\ No newline at end of file
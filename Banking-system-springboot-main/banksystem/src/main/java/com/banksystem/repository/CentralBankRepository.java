@@ -3,10 +3,24 @@ package com.banksystem.repository;
 
 import com.banksystem.entity.CentralBank;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.math.BigDecimal;
+import java.util.List;
 import java.util.Optional;
 
 public interface CentralBankRepository extends JpaRepository<CentralBank,Long> {
 
     Optional<CentralBank> findById(Long id);
+
+    // (id, code) of every central bank, for the in-memory bank topology
+    @Query("SELECT c.id, c.code FROM CentralBank c")
+    List<Object[]> findTopologyRows();
+
+    // Used by the earnings roll-up, touches only the total_earning column
+    @Modifying
+    @Query("UPDATE CentralBank c SET c.totalEarning = COALESCE(c.totalEarning, 0) + :amount WHERE c.id = :id")
+    int addToTotalEarning(@Param("id") Long id, @Param("amount") BigDecimal amount);
 }
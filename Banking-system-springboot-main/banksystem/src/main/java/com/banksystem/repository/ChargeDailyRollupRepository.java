@@ -0,0 +1,54 @@
+package com.banksystem.repository;
+
+import com.banksystem.entity.ChargeDailyRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+public interface ChargeDailyRollupRepository extends JpaRepository<ChargeDailyRollup, Long> {
+
+    // Single-statement add: creates the slot row on first use, otherwise increments it in place
+    @Modifying
+    @Query(value = """
+        INSERT INTO charge_daily_rollup
+            (bank_type, bank_id, day, transaction_type, slot, txn_count, total_amount, total_net_amount, total_charges)
+        VALUES (:bankType, :bankId, :day, :transactionType, :slot, :txnCount, :amount, :netAmount, :charges)
+        ON DUPLICATE KEY UPDATE
+            txn_count = txn_count + VALUES(txn_count),
+            total_amount = total_amount + VALUES(total_amount),
+            total_net_amount = total_net_amount + VALUES(total_net_amount),
+            total_charges = total_charges + VALUES(total_charges)
+        """, nativeQuery = true)
+    int addToRollup(@Param("bankType") String bankType,
+                    @Param("bankId") Long bankId,
+                    @Param("day") LocalDate day,
+                    @Param("transactionType") String transactionType,
+                    @Param("slot") int slot,
+                    @Param("txnCount") long txnCount,
+                    @Param("amount") BigDecimal amount,
+                    @Param("netAmount") BigDecimal netAmount,
+                    @Param("charges") BigDecimal charges);
+
+    // Last 12 months by month, same columns as ChargesRepository.findTransactionChargesSummaryLastYear
+    @Query(value = """
+        SELECT
+            DATE_FORMAT(r.day, '%Y-%m') AS month,
+            SUM(r.txn_count) AS transactionCount,
+            SUM(r.total_amount) AS totalAmount,
+            SUM(r.total_net_amount) AS totalNetAmount,
+            SUM(r.total_charges) AS totalCharged
+        FROM charge_daily_rollup r
+        WHERE r.bank_id = :bankId
+          AND r.bank_type = :bankType
+          AND r.day >= DATE_SUB(CURDATE(), INTERVAL 1 YEAR)
+        GROUP BY DATE_FORMAT(r.day, '%Y-%m')
+        ORDER BY month DESC
+        """, nativeQuery = true)
+    List<Object[]> findMonthlySummaryLastYear(@Param("bankId") Long bankId,
+                                              @Param("bankType") String bankType);
+}
@@ -17,4 +17,9 @@ public interface ChequeBookRequestRepository extends JpaRepository<ChequeBookReq
     List<ChequeBookRequest> findByBranchAndStatus(
             @Param("branchId") Long branchId,
             @Param("status") RequestStatus status);
+
+    // (branchId, count) of requests in the given status, used to seed the pending counters
+    @Query("SELECT cbr.account.branch.id, COUNT(cbr) FROM ChequeBookRequest cbr WHERE cbr.status = :status " +
+            "GROUP BY cbr.account.branch.id")
+    List<Object[]> countByBranchAndStatus(@Param("status") RequestStatus status);
 }
\ No newline at end of file
@@ -13,6 +13,8 @@ public interface DebitCardRulesRepository extends JpaRepository<DebitCardRules,
 
     Optional<DebitCardRules> findByHeadBankAndCardType(HeadBank headBank, String cardType);
 
+    List<DebitCardRules> findByHeadBankIdAndIsActiveTrue(Long headBankId);
+
     // Add this method
     List<DebitCardRules> findByHeadBankAndIsActive(HeadBank headBank, Boolean isActive);
 
@@ -3,9 +3,23 @@ package com.banksystem.repository;
 
 import com.banksystem.entity.HeadBank;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.math.BigDecimal;
+import java.util.List;
 import java.util.Optional;
 
 public interface HeadBankRepository extends JpaRepository<HeadBank,Long> {
     Optional<HeadBank> findByName(String name);
+
+    // (id, code, isActive, centralBankId) of every head bank, for the in-memory bank topology
+    @Query("SELECT h.id, h.code, h.isActive, h.centralBank.id FROM HeadBank h")
+    List<Object[]> findTopologyRows();
+
+    // Used by the earnings roll-up, touches only the total_earning column
+    @Modifying
+    @Query("UPDATE HeadBank h SET h.totalEarning = COALESCE(h.totalEarning, 0) + :amount WHERE h.id = :id")
+    int addToTotalEarning(@Param("id") Long id, @Param("amount") BigDecimal amount);
 }
@@ -0,0 +1,27 @@
+package com.banksystem.repository;
+
+import com.banksystem.entity.IdReservation;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+public interface IdReservationRepository extends JpaRepository<IdReservation, String> {
+
+    // A reservation only ever moves forward
+    @Modifying
+    @Query(value = """
+        INSERT INTO id_reservation (name, reserved_until)
+        VALUES (:name, :reservedUntil)
+        ON DUPLICATE KEY UPDATE reserved_until = GREATEST(reserved_until, VALUES(reserved_until))
+        """, nativeQuery = true)
+    int raise(@Param("name") String name, @Param("reservedUntil") long reservedUntil);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM IdReservation r WHERE r.name = :name")
+    Optional<IdReservation> findByNameForUpdate(@Param("name") String name);
+}
@@ -0,0 +1,32 @@
+package com.banksystem.repository;
+
+import com.banksystem.entity.IdempotencyKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+
+public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKey, String> {
+
+    // Plain insert (no merge select): a duplicate key fails on the primary key,
+    // or waits for a concurrent request holding the same key to finish
+    @Modifying
+    @Query(value = """
+        INSERT INTO idempotency_key (idempotency_key, principal, request_hash, created_at)
+        VALUES (:key, :principal, :requestHash, :createdAt)
+        """, nativeQuery = true)
+    int insertKey(@Param("key") String key,
+                  @Param("principal") String principal,
+                  @Param("requestHash") String requestHash,
+                  @Param("createdAt") LocalDateTime createdAt);
+
+    @Modifying
+    @Query("UPDATE IdempotencyKey k SET k.transactionId = :transactionId WHERE k.idempotencyKey = :key")
+    int attachTransaction(@Param("key") String key, @Param("transactionId") Long transactionId);
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyKey k WHERE k.createdAt < :cutoff")
+    int deleteOlderThan(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -0,0 +1,68 @@
+package com.banksystem.repository;
+
+import com.banksystem.entity.LedgerEntry;
+import com.banksystem.enums.LedgerOwnerType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface LedgerEntryRepository extends JpaRepository<LedgerEntry, Long> {
+
+    // Credits minus debits of one owner's legs created before `to` that a snapshot at
+    // coveredSeq does not cover (later or not yet sequenced), served by idx_ledger_owner_seq
+    @Query("SELECT COALESCE(SUM(CASE WHEN e.direction = com.banksystem.enums.EntryDirection.CREDIT " +
+            "THEN e.amount ELSE -e.amount END), 0) FROM LedgerEntry e " +
+            "WHERE e.ownerType = :ownerType AND e.ownerId = :ownerId " +
+            "AND (e.commitSeq IS NULL OR e.commitSeq > :coveredSeq) AND e.createdAt < :to")
+    BigDecimal sumSignedNotCovered(@Param("ownerType") LedgerOwnerType ownerType,
+                                   @Param("ownerId") Long ownerId,
+                                   @Param("coveredSeq") long coveredSeq,
+                                   @Param("to") LocalDateTime to);
+
+    // Credits minus debits of one owner's legs with fromSeq < commitSeq <= toSeq
+    @Query("SELECT COALESCE(SUM(CASE WHEN e.direction = com.banksystem.enums.EntryDirection.CREDIT " +
+            "THEN e.amount ELSE -e.amount END), 0) FROM LedgerEntry e " +
+            "WHERE e.ownerType = :ownerType AND e.ownerId = :ownerId " +
+            "AND e.commitSeq > :fromSeq AND e.commitSeq <= :toSeq")
+    BigDecimal sumSignedSequenced(@Param("ownerType") LedgerOwnerType ownerType,
+                                  @Param("ownerId") Long ownerId,
+                                  @Param("fromSeq") long fromSeq,
+                                  @Param("toSeq") long toSeq);
+
+    @Query("SELECT MAX(e.createdAt) FROM LedgerEntry e " +
+            "WHERE e.ownerType = :ownerType AND e.ownerId = :ownerId " +
+            "AND e.commitSeq > :fromSeq AND e.commitSeq <= :toSeq")
+    LocalDateTime maxCreatedAtSequenced(@Param("ownerType") LedgerOwnerType ownerType,
+                                        @Param("ownerId") Long ownerId,
+                                        @Param("fromSeq") long fromSeq,
+                                        @Param("toSeq") long toSeq);
+
+    // Stamps up to `limit` committed legs that have no commit_seq yet, oldest id first.
+    // Legs still in flight are invisible here and get a later number.
+    @Modifying
+    @Query(value = "UPDATE ledger_entries SET commit_seq = :seq WHERE commit_seq IS NULL ORDER BY id LIMIT :limit",
+            nativeQuery = true)
+    int stampCommitSeq(@Param("seq") long seq, @Param("limit") int limit);
+
+    // Owners with legs sequenced in (fromSeq, toSeq] that gathered at least `threshold` legs
+    // since their latest snapshot, as (owner_type, owner_id)
+    @Query(value = """
+        SELECT t.owner_type, t.owner_id FROM (
+            SELECT DISTINCT owner_type, owner_id FROM ledger_entries
+            WHERE commit_seq > :fromSeq AND commit_seq <= :toSeq
+        ) t
+        WHERE (SELECT COUNT(*) FROM ledger_entries e
+               WHERE e.owner_type = t.owner_type AND e.owner_id = t.owner_id
+                 AND e.commit_seq > COALESCE((SELECT MAX(s.covered_seq) FROM ledger_snapshots s
+                                              WHERE s.owner_type = t.owner_type AND s.owner_id = t.owner_id), 0)
+                 AND e.commit_seq <= :toSeq) >= :threshold
+        """, nativeQuery = true)
+    List<Object[]> findOwnersDueForSnapshot(@Param("fromSeq") long fromSeq,
+                                            @Param("toSeq") long toSeq,
+                                            @Param("threshold") long threshold);
+}
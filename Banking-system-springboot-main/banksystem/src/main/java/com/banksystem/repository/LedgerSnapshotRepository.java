@@ -0,0 +1,17 @@
+package com.banksystem.repository;
+
+import com.banksystem.entity.LedgerSnapshot;
+import com.banksystem.enums.LedgerOwnerType;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+public interface LedgerSnapshotRepository extends JpaRepository<LedgerSnapshot, Long> {
+
+    Optional<LedgerSnapshot> findTopByOwnerTypeAndOwnerIdAndAsOfLessThanEqualOrderByAsOfDesc(
+            LedgerOwnerType ownerType, Long ownerId, LocalDateTime asOf);
+
+    Optional<LedgerSnapshot> findTopByOwnerTypeAndOwnerIdOrderByCoveredSeqDescAsOfDesc(
+            LedgerOwnerType ownerType, Long ownerId);
+}
@@ -13,4 +13,9 @@ public interface LoanApplicationRepository extends JpaRepository<LoanApplication
 
     @Query("SELECT la FROM LoanApplication la WHERE la.customer.branch.id = :branchId AND la.status = 'PENDING' ORDER BY la.createdAt ASC")
     List<LoanApplication> findPendingApplicationsByBranch(@Param("branchId") Long branchId);
-}
\ No newline at end of file
+
+    // One row per status of the branch's applications: (status, count, sum of requested amounts)
+    @Query("SELECT la.status, COUNT(la), SUM(la.requestedAmount) FROM LoanApplication la " +
+            "WHERE la.customer.branch.id = :branchId GROUP BY la.status")
+    List<Object[]> summarizeByStatusForBranch(@Param("branchId") Long branchId);
+}
@@ -0,0 +1,31 @@
+package com.banksystem.repository;
+
+import com.banksystem.entity.NodeLease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+public interface NodeLeaseRepository extends JpaRepository<NodeLease, Integer> {
+
+    // Takes the lease when it is free or expired, renews it when this instance holds it.
+    // MySQL applies the assignments left to right, so expires_at sees the new holder.
+    @Modifying
+    @Query(value = """
+        INSERT INTO node_lease (node_id, instance_id, expires_at)
+        VALUES (:nodeId, :instanceId, NOW(6) + INTERVAL :seconds SECOND)
+        ON DUPLICATE KEY UPDATE
+            instance_id = IF(instance_id = VALUES(instance_id) OR expires_at < NOW(6), VALUES(instance_id), instance_id),
+            expires_at = IF(instance_id = VALUES(instance_id), VALUES(expires_at), expires_at)
+        """, nativeQuery = true)
+    int claim(@Param("nodeId") int nodeId, @Param("instanceId") String instanceId, @Param("seconds") long seconds);
+
+    @Query("SELECT l.instanceId FROM NodeLease l WHERE l.nodeId = :nodeId")
+    Optional<String> findHolder(@Param("nodeId") int nodeId);
+
+    @Modifying
+    @Query("DELETE FROM NodeLease l WHERE l.nodeId = :nodeId AND l.instanceId = :instanceId")
+    int release(@Param("nodeId") int nodeId, @Param("instanceId") String instanceId);
+}
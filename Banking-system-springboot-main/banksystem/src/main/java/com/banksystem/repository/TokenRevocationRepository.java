@@ -0,0 +1,39 @@
+package com.banksystem.repository;
+
+import com.banksystem.entity.TokenRevocation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface TokenRevocationRepository extends JpaRepository<TokenRevocation, Long> {
+
+    // Revoking the same key again replaces its row, so it gets a new id and every node's tail reads it again
+    @Modifying
+    @Query(value = """
+        REPLACE INTO token_revocation (revocation_key, revoked_at, expires_at)
+        VALUES (:key, :revokedAt, :expiresAt)
+        """, nativeQuery = true)
+    int upsert(@Param("key") String key,
+               @Param("revokedAt") LocalDateTime revokedAt,
+               @Param("expiresAt") LocalDateTime expiresAt);
+
+    Optional<TokenRevocation> findByRevocationKey(String revocationKey);
+
+    @Query("SELECT r.revocationKey FROM TokenRevocation r WHERE r.expiresAt > :now")
+    List<String> findActiveKeys(@Param("now") LocalDateTime now);
+
+    @Query("SELECT r FROM TokenRevocation r WHERE r.id > :afterId ORDER BY r.id")
+    List<TokenRevocation> findAfter(@Param("afterId") long afterId);
+
+    @Query("SELECT COALESCE(MAX(r.id), 0) FROM TokenRevocation r")
+    long findMaxId();
+
+    @Modifying
+    @Query("DELETE FROM TokenRevocation r WHERE r.expiresAt <= :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
@@ -1,6 +1,7 @@
 
 package com.banksystem.repository;
 
+import com.banksystem.dto.StatementRow;
 import com.banksystem.entity.Transaction;
 import com.banksystem.entity.Account;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -17,4 +18,153 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
             @Param("account") Account account,
             @Param("startDate") LocalDateTime startDate,
             @Param("endDate") LocalDateTime endDate);
-}
\ No newline at end of file
+
+    /**
+     * One page of an account's history, newest first, strictly after the keyset cursor
+     * (cursorDate, cursorId). Each side of the UNION ALL is a bounded range scan on its
+     * own (account, transaction_date, id) index, so the cost of a page does not grow
+     * with how deep into the history it is. A transfer never has the same account on
+     * both sides, so UNION ALL cannot return a row twice.
+     */
+    @Query(value = """
+        SELECT t.* FROM (
+            (SELECT * FROM transactions
+             WHERE from_account_id = :accountId
+               AND transaction_date >= :startDate
+               AND (transaction_date < :cursorDate OR (transaction_date = :cursorDate AND id < :cursorId))
+             ORDER BY transaction_date DESC, id DESC
+             LIMIT :limit)
+            UNION ALL
+            (SELECT * FROM transactions
+             WHERE to_account_id = :accountId
+               AND transaction_date >= :startDate
+               AND (transaction_date < :cursorDate OR (transaction_date = :cursorDate AND id < :cursorId))
+             ORDER BY transaction_date DESC, id DESC
+             LIMIT :limit)
+        ) t
+        ORDER BY t.transaction_date DESC, t.id DESC
+        LIMIT :limit
+        """, nativeQuery = true)
+    List<Transaction> findHistoryPage(@Param("accountId") Long accountId,
+                                      @Param("startDate") LocalDateTime startDate,
+                                      @Param("cursorDate") LocalDateTime cursorDate,
+                                      @Param("cursorId") Long cursorId,
+                                      @Param("limit") int limit);
+
+    /**
+     * One keyset page of the transfers sent or received by a branch's accounts, newest
+     * first. Reads the denormalized branch_id / to_branch_id columns, so it is two
+     * bounded index range scans however many accounts the branch has.
+     */
+    @Query(value = """
+        SELECT t.* FROM (
+            (SELECT * FROM transactions
+             WHERE branch_id = :branchId
+               AND transaction_date >= :startDate
+               AND (transaction_date < :cursorDate OR (transaction_date = :cursorDate AND id < :cursorId))
+             ORDER BY transaction_date DESC, id DESC
+             LIMIT :limit)
+            UNION ALL
+            (SELECT * FROM transactions
+             WHERE to_branch_id = :branchId AND branch_id <> :branchId
+               AND transaction_date >= :startDate
+               AND (transaction_date < :cursorDate OR (transaction_date = :cursorDate AND id < :cursorId))
+             ORDER BY transaction_date DESC, id DESC
+             LIMIT :limit)
+        ) t
+        ORDER BY t.transaction_date DESC, t.id DESC
+        LIMIT :limit
+        """, nativeQuery = true)
+    List<Transaction> findBranchPage(@Param("branchId") Long branchId,
+                                     @Param("startDate") LocalDateTime startDate,
+                                     @Param("cursorDate") LocalDateTime cursorDate,
+                                     @Param("cursorId") Long cursorId,
+                                     @Param("limit") int limit);
+
+    // All transfers of a branch in the range (inclusive), newest first; same two index range scans, unpaged
+    @Query(value = """
+        SELECT t.* FROM (
+            SELECT * FROM transactions
+            WHERE branch_id = :branchId AND transaction_date BETWEEN :startDate AND :endDate
+            UNION ALL
+            SELECT * FROM transactions
+            WHERE to_branch_id = :branchId AND branch_id <> :branchId
+              AND transaction_date BETWEEN :startDate AND :endDate
+        ) t
+        ORDER BY t.transaction_date DESC, t.id DESC
+        """, nativeQuery = true)
+    List<Transaction> findByBranchAndDateRange(@Param("branchId") Long branchId,
+                                              @Param("startDate") LocalDateTime startDate,
+                                              @Param("endDate") LocalDateTime endDate);
+
+    /**
+     * One keyset page of the transfers sent from accounts of a head bank's branches, newest
+     * first; the head bank's fees are charged on these. A single range scan on
+     * (head_bank_id, transaction_date, id) however many branches the head bank has.
+     */
+    @Query(value = """
+        SELECT * FROM transactions
+        WHERE head_bank_id = :headBankId
+          AND transaction_date >= :startDate
+          AND (transaction_date < :cursorDate OR (transaction_date = :cursorDate AND id < :cursorId))
+        ORDER BY transaction_date DESC, id DESC
+        LIMIT :limit
+        """, nativeQuery = true)
+    List<Transaction> findHeadBankPage(@Param("headBankId") Long headBankId,
+                                       @Param("startDate") LocalDateTime startDate,
+                                       @Param("cursorDate") LocalDateTime cursorDate,
+                                       @Param("cursorId") Long cursorId,
+                                       @Param("limit") int limit);
+
+    // ==================== STATEMENT EXPORT ====================
+    // Each side of a statement is read in keyset pages, oldest first, straight off its
+    // (owner, transaction_date, id) index: no UNION, so MySQL never sorts the whole range
+    // before returning the first row. StatementExportService merges the two sides.
+
+    String STATEMENT_ROW = """
+        SELECT t.id AS id, t.transaction_reference AS transactionReference, t.transaction_date AS transactionDate,
+               fa.account_number AS fromAccountNumber, ta.account_number AS toAccountNumber,
+               t.transaction_type AS transactionType, t.amount AS amount, t.total_charges AS totalCharges,
+               t.net_amount AS netAmount, t.status AS status, t.description AS description
+        FROM transactions t
+        JOIN account fa ON fa.id = t.from_account_id
+        JOIN account ta ON ta.id = t.to_account_id
+        """;
+
+    String AFTER_KEYSET_UNTIL_END = """
+          AND (t.transaction_date > :afterDate OR (t.transaction_date = :afterDate AND t.id > :afterId))
+          AND t.transaction_date < :endDate
+        ORDER BY t.transaction_date, t.id
+        LIMIT :limit
+        """;
+
+    @Query(value = STATEMENT_ROW + "WHERE t.from_account_id = :accountId" + AFTER_KEYSET_UNTIL_END, nativeQuery = true)
+    List<StatementRow> findAccountSentRows(@Param("accountId") Long accountId,
+                                           @Param("afterDate") LocalDateTime afterDate,
+                                           @Param("afterId") Long afterId,
+                                           @Param("endDate") LocalDateTime endDate,
+                                           @Param("limit") int limit);
+
+    @Query(value = STATEMENT_ROW + "WHERE t.to_account_id = :accountId" + AFTER_KEYSET_UNTIL_END, nativeQuery = true)
+    List<StatementRow> findAccountReceivedRows(@Param("accountId") Long accountId,
+                                               @Param("afterDate") LocalDateTime afterDate,
+                                               @Param("afterId") Long afterId,
+                                               @Param("endDate") LocalDateTime endDate,
+                                               @Param("limit") int limit);
+
+    @Query(value = STATEMENT_ROW + "WHERE t.branch_id = :branchId" + AFTER_KEYSET_UNTIL_END, nativeQuery = true)
+    List<StatementRow> findBranchSentRows(@Param("branchId") Long branchId,
+                                          @Param("afterDate") LocalDateTime afterDate,
+                                          @Param("afterId") Long afterId,
+                                          @Param("endDate") LocalDateTime endDate,
+                                          @Param("limit") int limit);
+
+    // A transfer between two accounts of the branch is only taken from the sending side
+    @Query(value = STATEMENT_ROW + "WHERE t.to_branch_id = :branchId AND t.branch_id <> :branchId" + AFTER_KEYSET_UNTIL_END,
+            nativeQuery = true)
+    List<StatementRow> findBranchReceivedRows(@Param("branchId") Long branchId,
+                                              @Param("afterDate") LocalDateTime afterDate,
+                                              @Param("afterId") Long afterId,
+                                              @Param("endDate") LocalDateTime endDate,
+                                              @Param("limit") int limit);
+}
@@ -10,7 +10,7 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByUsername(String username);
     Boolean existsByUsername(String username);
 
-    // Add this new method to get specificId based on role
+    // Fallback for users whose identity columns were never filled in (see User.assignIdentity)
     @Query("""
         SELECT CASE u.role
             WHEN 'CUSTOMER' THEN c.id
@@ -3,28 +3,31 @@ package com.banksystem.security;
 import com.banksystem.entity.*;
 import com.banksystem.exception.BusinessRuleException;
 import com.banksystem.repository.*;
+import io.jsonwebtoken.JwtException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
 @Service
 @Slf4j
 public class JwtHelperService {
 
-    private final JwtUtils jwtUtils;
+    private final TokenVerifier tokenVerifier;
     private final TellerRepository tellerRepository;
     private final BranchManagerRepository branchManagerRepository;
     private final CustomerRepository customerRepository;
     private final HeadBankAdminRepository headBankAdminRepository;
     private final CentralBankAdminRepository centralBankAdminRepository;
 
-    public JwtHelperService(JwtUtils jwtUtils,
+    public JwtHelperService(TokenVerifier tokenVerifier,
                             TellerRepository tellerRepository,
                             BranchManagerRepository branchManagerRepository,
                             CustomerRepository customerRepository,
                             HeadBankAdminRepository headBankAdminRepository,
                             CentralBankAdminRepository centralBankAdminRepository) {
-        this.jwtUtils = jwtUtils;
+        this.tokenVerifier = tokenVerifier;
         this.tellerRepository = tellerRepository;
         this.branchManagerRepository = branchManagerRepository;
         this.customerRepository = customerRepository;
@@ -42,82 +45,104 @@ public class JwtHelperService {
         throw new BusinessRuleException("Invalid authorization header");
     }
 
+    /**
+     * Identity of the token. AuthTokenFilter has already verified the request's token,
+     * so its principal is reused; any other token is verified here.
+     */
+    public JwtPrincipal getPrincipal(String token) {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth != null && auth.getPrincipal() instanceof JwtPrincipal principal
+                && token.equals(auth.getCredentials())) {
+            return principal;
+        }
+        try {
+            return tokenVerifier.verify(token);
+        } catch (JwtException | IllegalArgumentException e) {
+            throw new BusinessRuleException("Invalid token");
+        }
+    }
+
     /**
      * ✅ ADDED THIS MISSING METHOD
      * Get Specific ID directly from JWT (Used in ChargesBookController, AdminController etc.)
      */
     public Long getSpecificIdFromJwtToken(String token) {
-        return jwtUtils.getSpecificIdFromJwtToken(token);
+        return getPrincipal(token).specificId();
     }
 
     /**
-     * Get Teller ID from JWT + Cache result
+     * Get Teller ID from JWT
      */
-    @Cacheable(value = "tellerCache", key = "#token")
     public Long getTellerIdFromToken(String token) {
-        Long tellerId = jwtUtils.getSpecificIdFromJwtToken(token);
+        Long tellerId = getPrincipal(token).specificId();
         log.debug("Extracted Teller ID from token: {}", tellerId);
         return tellerId;
     }
 
     /**
-     * Get Teller with Branch ID (Cached)
+     * Get Teller with Branch ID (Cached; no lookup when the token carries the branch)
      */
-    @Cacheable(value = "tellerDetailsCache", key = "#token")
+    @Cacheable(value = "tellerDetailsCache", keyGenerator = "tokenCacheKeyGenerator")
     public TellerDetails getTellerDetails(String token) {
-        Long tellerId = getTellerIdFromToken(token);
-        Teller teller = tellerRepository.findById(tellerId)
+        JwtPrincipal principal = getPrincipal(token);
+        if (principal.branchId() != null) {
+            return new TellerDetails(principal.specificId(), principal.branchId());
+        }
+        Teller teller = tellerRepository.findById(principal.specificId())
                 .orElseThrow(() -> new BusinessRuleException("Teller not found"));
 
-        return new TellerDetails(tellerId, teller.getBranch().getId());
+        return new TellerDetails(principal.specificId(), teller.getBranch().getId());
     }
 
     /**
      * Get Branch Manager ID from JWT
      */
-    @Cacheable(value = "managerCache", key = "#token")
     public Long getBranchManagerIdFromToken(String token) {
-        return jwtUtils.getSpecificIdFromJwtToken(token);
+        return getPrincipal(token).specificId();
     }
 
     /**
-     * Get Branch Manager with Branch ID (Cached)
+     * Get Branch Manager with Branch ID (Cached; no lookup when the token carries the branch)
      */
-    @Cacheable(value = "managerDetailsCache", key = "#token")
+    @Cacheable(value = "managerDetailsCache", keyGenerator = "tokenCacheKeyGenerator")
     public ManagerDetails getManagerDetails(String token) {
-        Long managerId = getBranchManagerIdFromToken(token);
-        BranchManager manager = branchManagerRepository.findById(managerId)
+        JwtPrincipal principal = getPrincipal(token);
+        if (principal.branchId() != null) {
+            return new ManagerDetails(principal.specificId(), principal.branchId());
+        }
+        BranchManager manager = branchManagerRepository.findById(principal.specificId())
                 .orElseThrow(() -> new BusinessRuleException("Branch Manager not found"));
 
-        return new ManagerDetails(managerId, manager.getBranch().getId());
+        return new ManagerDetails(principal.specificId(), manager.getBranch().getId());
     }
 
     /**
      * Get Customer ID from JWT
      */
-    @Cacheable(value = "customerCache", key = "#token")
     public Long getCustomerIdFromToken(String token) {
-        return jwtUtils.getSpecificIdFromJwtToken(token);
+        return getPrincipal(token).specificId();
     }
 
     /**
      * Get Head Bank Admin ID from JWT
      */
-    @Cacheable(value = "headAdminCache", key = "#token")
     public Long getHeadBankAdminIdFromToken(String token) {
-        return jwtUtils.getSpecificIdFromJwtToken(token);
+        return getPrincipal(token).specificId();
     }
 
     /**
-     * Get Head Bank Admin with Head Bank ID (Cached)
+     * Get Head Bank Admin with Head Bank ID (Cached; no lookup when the token carries the head bank)
      */
-    @Cacheable(value = "headAdminDetailsCache", key = "#token")
+    @Cacheable(value = "headAdminDetailsCache", keyGenerator = "tokenCacheKeyGenerator")
     public HeadAdminDetails getHeadAdminDetails(String token) {
-        Long adminId = getHeadBankAdminIdFromToken(token);
-        HeadBankAdmin admin = headBankAdminRepository.findById(adminId)
+        JwtPrincipal principal = getPrincipal(token);
+        if (principal.headBankId() != null) {
+            return new HeadAdminDetails(principal.specificId(), principal.headBankId());
+        }
+        HeadBankAdmin admin = headBankAdminRepository.findById(principal.specificId())
                 .orElseThrow(() -> new BusinessRuleException("Head Bank Admin not found"));
 
-        return new HeadAdminDetails(adminId, admin.getHeadBank().getId());
+        return new HeadAdminDetails(principal.specificId(), admin.getHeadBank().getId());
     }
 
     /**
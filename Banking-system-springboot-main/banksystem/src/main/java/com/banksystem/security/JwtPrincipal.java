@@ -0,0 +1,33 @@
+package com.banksystem.security;
+
+import com.banksystem.enums.RolesType;
+import org.springframework.security.core.AuthenticatedPrincipal;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Identity of an authenticated request, built once from the verified JWT and
+ * kept in the SecurityContext. branchId / headBankId are null when the token
+ * does not carry them (tokens issued before they were added, or roles without one).
+ */
+public record JwtPrincipal(String username,
+                           RolesType role,
+                           Long specificId,
+                           Long branchId,
+                           Long headBankId,
+                           Instant issuedAt,
+                           Instant expiresAt) implements AuthenticatedPrincipal, Serializable {
+
+    @Override
+    public String getName() {
+        return username;
+    }
+
+    public List<GrantedAuthority> authorities() {
+        return List.of(new SimpleGrantedAuthority(role.name()));
+    }
+}
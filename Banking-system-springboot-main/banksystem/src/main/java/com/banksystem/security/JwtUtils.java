@@ -1,5 +1,6 @@
 package com.banksystem.security;
 
+import com.banksystem.enums.RolesType;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.stereotype.Component;
@@ -11,45 +12,69 @@ public class JwtUtils {
     private final String jwtSecret = "MySuperSecretKeyForBankingSystemWhichIsVeryLongAndSecure12345";
     private final int jwtExpirationMs = 86400000; // 24 Hours
 
-    private Key key() {
-        return Keys.hmacShaKeyFor(jwtSecret.getBytes());
-    }
+    // Built once: the HMAC key and the parser are immutable and thread-safe
+    private final Key key = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+    private final JwtParser parser = Jwts.parserBuilder().setSigningKey(key).build();
 
     public String generateToken(String username, String role, Long specificId) {
+        return generateToken(username, role, specificId, null, null);
+    }
+
+    // branchId / headBankId let JwtHelperService scope requests without a DB lookup; null claims are omitted
+    public String generateToken(String username, String role, Long specificId, Long branchId, Long headBankId) {
         return Jwts.builder()
                 .setSubject(username)
                 .claim("role", role)
                 .claim("id", specificId)
+                .claim("branchId", branchId)
+                .claim("headBankId", headBankId)
                 .setIssuedAt(new Date())
                 .setExpiration(new Date((new Date()).getTime() + jwtExpirationMs))
-                .signWith(key(), SignatureAlgorithm.HS256)
+                .signWith(key, SignatureAlgorithm.HS256)
                 .compact();
     }
 
+    /**
+     * Verifies the signature and expiry once and returns the token's identity.
+     * Throws JwtException (or IllegalArgumentException) for an invalid token.
+     */
+    public JwtPrincipal parsePrincipal(String token) {
+        Claims claims = parser.parseClaimsJws(token).getBody();
+        return new JwtPrincipal(
+                claims.getSubject(),
+                RolesType.valueOf(claims.get("role", String.class)),
+                claims.get("id", Long.class),
+                claims.get("branchId", Long.class),
+                claims.get("headBankId", Long.class),
+                claims.getIssuedAt() != null ? claims.getIssuedAt().toInstant() : null,
+                claims.getExpiration() != null ? claims.getExpiration().toInstant() : null);
+    }
+
+    public long getJwtExpirationMs() {
+        return jwtExpirationMs;
+    }
+
     public String getUserNameFromJwtToken(String token) {
-        return Jwts.parserBuilder().setSigningKey(key()).build()
-                .parseClaimsJws(token).getBody().getSubject();
+        return parser.parseClaimsJws(token).getBody().getSubject();
     }
 
     // NEW: Extract role from token
     public String getRoleFromJwtToken(String token) {
-        return Jwts.parserBuilder().setSigningKey(key()).build()
-                .parseClaimsJws(token).getBody().get("role", String.class);
+        return parser.parseClaimsJws(token).getBody().get("role", String.class);
     }
 
     // NEW: Extract specific ID from token
     public Long getSpecificIdFromJwtToken(String token) {
-        return Jwts.parserBuilder().setSigningKey(key()).build()
-                .parseClaimsJws(token).getBody().get("id", Long.class);
+        return parser.parseClaimsJws(token).getBody().get("id", Long.class);
     }
 
     public boolean validateJwtToken(String authToken) {
         try {
-            Jwts.parserBuilder().setSigningKey(key()).build().parse(authToken);
+            parser.parse(authToken);
             return true;
         } catch (JwtException e) {
             System.err.println("Invalid JWT token: " + e.getMessage());
         }
         return false;
     }
-}
\ No newline at end of file
+}
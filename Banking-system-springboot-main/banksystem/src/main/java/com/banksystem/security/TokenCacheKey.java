@@ -0,0 +1,55 @@
+package com.banksystem.security;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+
+/**
+ * Cache key for values derived from a JWT: 128 bits of the token's SHA-256
+ * instead of the whole token, plus the token's expiry so the cache can drop
+ * the entry exactly when the token stops being valid.
+ */
+public record TokenCacheKey(long high, long low, long expiresAtMillis) {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    public static TokenCacheKey of(String token) {
+        ByteBuffer digest = ByteBuffer.wrap(sha256(token));
+        return new TokenCacheKey(digest.getLong(), digest.getLong(), readExpiry(token));
+    }
+
+    // Digest only, for callers that track expiry on the cached value instead
+    public static TokenCacheKey digestOf(String token) {
+        ByteBuffer digest = ByteBuffer.wrap(sha256(token));
+        return new TokenCacheKey(digest.getLong(), digest.getLong(), 0L);
+    }
+
+    private static byte[] sha256(String token) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    // The token was already verified by AuthTokenFilter; only the exp claim of the payload is read here
+    private static long readExpiry(String token) {
+        try {
+            int first = token.indexOf('.');
+            int second = token.indexOf('.', first + 1);
+            if (first < 0 || second < 0) {
+                return 0L;
+            }
+            byte[] payload = Base64.getUrlDecoder().decode(token.substring(first + 1, second));
+            JsonNode exp = MAPPER.readTree(payload).get("exp");
+            return exp != null && exp.canConvertToLong() ? exp.asLong() * 1000L : 0L;
+        } catch (Exception e) {
+            return 0L;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.banksystem.security;
+
+import org.springframework.cache.interceptor.KeyGenerator;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+
+/**
+ * Key generator for caches keyed by a JWT; the token is the method's first argument.
+ */
+@Component("tokenCacheKeyGenerator")
+public class TokenCacheKeyGenerator implements KeyGenerator {
+
+    @Override
+    public Object generate(Object target, Method method, Object... params) {
+        if (params.length == 0 || !(params[0] instanceof String token)) {
+            throw new IllegalArgumentException(method.getName() + " must take the token as first argument");
+        }
+        return TokenCacheKey.of(token);
+    }
+}
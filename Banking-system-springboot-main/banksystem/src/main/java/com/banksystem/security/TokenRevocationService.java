@@ -0,0 +1,186 @@
+package com.banksystem.security;
+
+import com.banksystem.entity.TokenRevocation;
+import com.banksystem.enums.RolesType;
+import com.banksystem.repository.TokenRevocationRepository;
+import com.banksystem.util.BloomFilter;
+import com.banksystem.util.IdTail;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Token revocation for logout and for deactivated tellers and managers.
+ *
+ * Revocations are rows of token_revocation; every node mirrors their keys in a
+ * bloom filter. A request only reaches the table when the filter reports a
+ * possible match, so unrevoked tokens are checked without a query. The filter is
+ * topped up every few seconds by tailing the table by id (see IdTail), and rebuilt,
+ * without expired rows, periodically.
+ */
+@Service
+@Slf4j
+public class TokenRevocationService {
+
+    // Recent ids re-read when the tail starts, for revocations that commit after the startup rebuild
+    private static final long STARTUP_BACKLOG_IDS = 1_000;
+
+    private final TokenRevocationRepository revocationRepository;
+    private final long tokenLifetimeMs;
+    private final long bloomBits;
+    private final int bloomHashes;
+
+    private final IdTail tail;
+
+    private volatile BloomFilter filter;
+
+    public TokenRevocationService(TokenRevocationRepository revocationRepository,
+                                  JwtUtils jwtUtils,
+                                  @Value("${app.security.revocation.bloom-bits:1048576}") long bloomBits,
+                                  @Value("${app.security.revocation.bloom-hashes:7}") int bloomHashes,
+                                  @Value("${app.security.revocation.gap-timeout-ms:60000}") long gapTimeoutMs) {
+        this.revocationRepository = revocationRepository;
+        this.tokenLifetimeMs = jwtUtils.getJwtExpirationMs();
+        this.bloomBits = bloomBits;
+        this.bloomHashes = bloomHashes;
+        this.tail = new IdTail(gapTimeoutMs);
+        this.filter = new BloomFilter(bloomBits, bloomHashes);
+    }
+
+    // ==================== REVOKE ====================
+
+    /**
+     * Revokes a single token, e.g. on logout.
+     */
+    @Transactional
+    public void revokeToken(String token, JwtPrincipal principal) {
+        LocalDateTime expiresAt = principal.expiresAt() != null
+                ? LocalDateTime.ofInstant(principal.expiresAt(), ZoneId.systemDefault())
+                : LocalDateTime.now().plusNanos(tokenLifetimeMs * 1_000_000L);
+        revoke(tokenKey(TokenCacheKey.digestOf(token)), expiresAt);
+    }
+
+    /**
+     * Revokes every token issued so far to the user with this role and specific id.
+     */
+    @Transactional
+    public void revokeSubject(RolesType role, Long specificId) {
+        revoke(subjectKey(role, specificId), LocalDateTime.now().plusNanos(tokenLifetimeMs * 1_000_000L));
+    }
+
+    private void revoke(String key, LocalDateTime expiresAt) {
+        revocationRepository.upsert(key, LocalDateTime.now(), expiresAt);
+        // Visible on this node once committed; other nodes pick it up on their next poll
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    filter.add(key);
+                }
+            });
+        } else {
+            filter.add(key);
+        }
+        log.info("Revoked {}", key);
+    }
+
+    // ==================== CHECK ====================
+
+    /**
+     * True if the token itself or its subject was revoked. Only filter hits query the table.
+     */
+    public boolean isRevoked(TokenCacheKey digest, JwtPrincipal principal) {
+        BloomFilter current = filter;
+
+        String tokenKey = tokenKey(digest);
+        String legacyKey = legacyTokenKey(digest);
+        if (isTokenRevoked(current, tokenKey)
+                || (!legacyKey.equals(tokenKey) && isTokenRevoked(current, legacyKey))) {
+            return true;
+        }
+
+        String subjectKey = subjectKey(principal.role(), principal.specificId());
+        if (current.mightContain(subjectKey)) {
+            Optional<LocalDateTime> revokedAt = revocationRepository.findByRevocationKey(subjectKey)
+                    .map(TokenRevocation::getRevokedAt);
+            // Tokens issued after the revocation (e.g. after reactivation) stay valid
+            return revokedAt.isPresent() && (principal.issuedAt() == null
+                    || !LocalDateTime.ofInstant(principal.issuedAt(), ZoneId.systemDefault()).isAfter(revokedAt.get()));
+        }
+        return false;
+    }
+
+    private boolean isTokenRevoked(BloomFilter current, String tokenKey) {
+        return current.mightContain(tokenKey) && revocationRepository.findByRevocationKey(tokenKey).isPresent();
+    }
+
+    // ==================== SYNC ====================
+
+    /**
+     * Adds the revocations committed since the last poll, and the late ones that fill
+     * gaps the tail skipped over. Runs under the same lock as rebuild(), so a key read
+     * here never lands in a filter that is about to be replaced.
+     */
+    @Scheduled(fixedDelayString = "${app.security.revocation.poll-interval-ms:5000}")
+    public synchronized void pollNewRevocations() {
+        if (!tail.isStarted()) {
+            tail.start(revocationRepository.findMaxId() - STARTUP_BACKLOG_IDS);
+        }
+        List<TokenRevocation> rows = new ArrayList<>(revocationRepository.findAfter(tail.position()));
+        List<Long> gaps = tail.gaps();
+        if (!gaps.isEmpty()) {
+            rows.addAll(revocationRepository.findAllById(gaps));
+        }
+
+        BloomFilter current = filter;
+        for (TokenRevocation row : rows) {
+            if (tail.advance(row.getId())) {
+                current.add(row.getRevocationKey());
+            }
+        }
+    }
+
+    /**
+     * Drops expired revocations and rebuilds the filter from the remaining rows.
+     * Runs at startup (called through the proxy, so the purge has its transaction) and periodically.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${app.security.revocation.rebuild-interval-ms:3600000}",
+            fixedDelayString = "${app.security.revocation.rebuild-interval-ms:3600000}")
+    @Transactional
+    public synchronized void rebuild() {
+        LocalDateTime now = LocalDateTime.now();
+        int purged = revocationRepository.deleteExpired(now);
+
+        BloomFilter fresh = new BloomFilter(bloomBits, bloomHashes);
+        List<String> keys = revocationRepository.findActiveKeys(now);
+        keys.forEach(fresh::add);
+        filter = fresh;
+        log.info("Revocation filter rebuilt with {} keys ({} expired purged)", keys.size(), purged);
+    }
+
+    private static String tokenKey(TokenCacheKey digest) {
+        return String.format("T:%016x%016x", digest.high(), digest.low());
+    }
+
+    // Unpadded form written before tokenKey; such rows are gone once the tokens they revoke have expired
+    private static String legacyTokenKey(TokenCacheKey digest) {
+        return "T:" + Long.toHexString(digest.high()) + Long.toHexString(digest.low());
+    }
+
+    private static String subjectKey(RolesType role, Long specificId) {
+        return "S:" + role.name() + ":" + specificId;
+    }
+}
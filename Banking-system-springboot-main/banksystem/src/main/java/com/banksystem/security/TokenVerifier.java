@@ -0,0 +1,76 @@
+package com.banksystem.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.JwtException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Verifies bearer tokens with a bounded cache from token digest to verified
+ * principal, so an active session pays for HMAC verification and claim decoding
+ * once. Entries expire with the token; revocation is checked on every call.
+ */
+@Component
+public class TokenVerifier {
+
+    private final JwtUtils jwtUtils;
+    private final TokenRevocationService revocationService;
+    private final Cache<TokenCacheKey, JwtPrincipal> verified;
+
+    public TokenVerifier(JwtUtils jwtUtils,
+                         TokenRevocationService revocationService,
+                         @Value("${app.security.verified-token-cache-size:50000}") long maxSize) {
+        this.jwtUtils = jwtUtils;
+        this.revocationService = revocationService;
+        this.verified = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new PrincipalExpiry())
+                .build();
+    }
+
+    /**
+     * Returns the token's principal. Throws JwtException for an invalid, expired or revoked token.
+     */
+    public JwtPrincipal verify(String token) {
+        TokenCacheKey digest = TokenCacheKey.digestOf(token);
+        JwtPrincipal principal = verified.getIfPresent(digest);
+        if (principal == null || isExpired(principal)) {
+            principal = jwtUtils.parsePrincipal(token);
+            verified.put(digest, principal);
+        }
+        if (revocationService.isRevoked(digest, principal)) {
+            verified.invalidate(digest);
+            throw new JwtException("Token has been revoked");
+        }
+        return principal;
+    }
+
+    private static boolean isExpired(JwtPrincipal principal) {
+        return principal.expiresAt() != null && !principal.expiresAt().isAfter(Instant.now());
+    }
+
+    private static final class PrincipalExpiry implements Expiry<TokenCacheKey, JwtPrincipal> {
+        @Override
+        public long expireAfterCreate(TokenCacheKey key, JwtPrincipal value, long currentTime) {
+            if (value.expiresAt() == null) {
+                return Long.MAX_VALUE;
+            }
+            return Math.max(0, Duration.between(Instant.now(), value.expiresAt()).toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(TokenCacheKey key, JwtPrincipal value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(TokenCacheKey key, JwtPrincipal value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
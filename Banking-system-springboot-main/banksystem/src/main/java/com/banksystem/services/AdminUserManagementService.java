@@ -56,10 +56,10 @@ public class AdminUserManagementService {
         teller.setAccountId(100L); // DUMMY: Teller needs an internal account ID logic
         teller.setAccountNumber("TELLER-" + user.getId());
 
-        tellerRepository.save(teller);
+        teller = tellerRepository.save(teller);
 
         // Update User Role - THIS IS KEY ("One account at a time")
-        user.setRole(RolesType.TELLER);
+        user.assignIdentity(RolesType.TELLER, teller.getId(), branch.getId(), branch.getHeadBank().getId());
         userRepository.save(user);
     }
 
@@ -86,10 +86,10 @@ public class AdminUserManagementService {
         manager.setPasswordHash(user.getPassword());
         manager.setIsActive(true);
 
-        branchManagerRepository.save(manager);
+        manager = branchManagerRepository.save(manager);
 
         // Switch Role
-        user.setRole(RolesType.BRANCHMANAGER);
+        user.assignIdentity(RolesType.BRANCHMANAGER, manager.getId(), branch.getId(), branch.getHeadBank().getId());
         userRepository.save(user);
     }
 
@@ -111,10 +111,10 @@ public class AdminUserManagementService {
         admin.setPasswordHash(user.getPassword());
         admin.setIsActive(true);
 
-        headBankAdminRepository.save(admin);
+        admin = headBankAdminRepository.save(admin);
 
         // Switch Role
-        user.setRole(RolesType.HEADMANAGER);
+        user.assignIdentity(RolesType.HEADMANAGER, admin.getId(), null, headBank.getId());
         userRepository.save(user);
     }
 
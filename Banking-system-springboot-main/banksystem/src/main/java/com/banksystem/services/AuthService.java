@@ -44,7 +44,9 @@ public class AuthService {
         // 1. Create User (Authentication Entity)
         User user = new User();
         user.setUsername(request.getUsername());
-        user.setPassword(passwordEncoder.encode(request.getPassword()));
+        // One BCrypt run: the initial transaction PIN below is the same secret
+        String passwordHash = passwordEncoder.encode(request.getPassword());
+        user.setPassword(passwordHash);
         user.setRole(RolesType.CUSTOMER);
 
         // Save User first to generate ID
@@ -69,9 +71,11 @@ public class AuthService {
         customer.setCreatedAt(LocalDateTime.now());
 
         // Set initial transaction PIN same as password (hashed) or a default
-        customer.setTransactionPinHash(passwordEncoder.encode(request.getPassword()));
+        customer.setTransactionPinHash(passwordHash);
 
-        return customerRepository.save(customer);
+        customer = customerRepository.save(customer);
+        user.assignIdentity(RolesType.CUSTOMER, customer.getId(), branch.getId(), branch.getHeadBank().getId());
+        return customer;
     }
 
     @Transactional
@@ -83,7 +87,8 @@ public class AuthService {
         // 1. Create User (Authentication Entity)
         User user = new User();
         user.setUsername(tellerDTO.getUsername());
-        user.setPassword(passwordEncoder.encode(tellerDTO.getPassword()));
+        String passwordHash = passwordEncoder.encode(tellerDTO.getPassword());
+        user.setPassword(passwordHash);
         user.setRole(RolesType.TELLER);
 
         user = userRepository.save(user);
@@ -96,7 +101,7 @@ public class AuthService {
         teller.setFullName(tellerDTO.getFirstName() + " " + tellerDTO.getLastName());
         teller.setUsername(tellerDTO.getUsername()); // Redundant if mapped to User, but keeping for legacy compatibility
         teller.setEmail(tellerDTO.getEmail());
-        teller.setPasswordHash(passwordEncoder.encode(tellerDTO.getPassword())); // Redundant but keeping for legacy
+        teller.setPasswordHash(passwordHash); // Redundant but keeping for legacy
 
         // Map Teller's specific account details
         teller.setAccountId(tellerDTO.getAccountId());
@@ -105,6 +110,8 @@ public class AuthService {
         teller.setIsActive(true);
         teller.setCreatedAt(LocalDateTime.now());
 
-        return tellerRepository.save(teller);
+        teller = tellerRepository.save(teller);
+        user.assignIdentity(RolesType.TELLER, teller.getId(), branch.getId(), branch.getHeadBank().getId());
+        return teller;
     }
 }
\ No newline at end of file
@@ -0,0 +1,74 @@
+package com.banksystem.services;
+
+import com.banksystem.enums.BankType;
+import com.banksystem.repository.BankEarningBucketRepository;
+import com.banksystem.repository.BankEarningSlotRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+/**
+ * Periodically folds striped earning slots into each bank's totalEarning and
+ * closed hourly earning buckets into the earnings timeline.
+ */
+@Component
+@Slf4j
+public class BankEarningsRollupJob {
+
+    private final BankEarningsService bankEarningsService;
+    private final BankEarningSlotRepository slotRepository;
+    private final EarningsTimelineService earningsTimelineService;
+    private final BankEarningBucketRepository bucketRepository;
+    private final long closeLagSeconds;
+
+    public BankEarningsRollupJob(BankEarningsService bankEarningsService,
+                                 BankEarningSlotRepository slotRepository,
+                                 EarningsTimelineService earningsTimelineService,
+                                 BankEarningBucketRepository bucketRepository,
+                                 @Value("${app.earnings.timeline-close-lag-seconds:120}") long closeLagSeconds) {
+        this.bankEarningsService = bankEarningsService;
+        this.slotRepository = slotRepository;
+        this.earningsTimelineService = earningsTimelineService;
+        this.bucketRepository = bucketRepository;
+        this.closeLagSeconds = closeLagSeconds;
+    }
+
+    @Scheduled(fixedDelayString = "${app.earnings.rollup-interval-ms:60000}")
+    public void rollUpAll() {
+        List<Object[]> banks = slotRepository.findBanksWithPendingEarnings();
+        for (Object[] bank : banks) {
+            BankType bankType = (BankType) bank[0];
+            Long bankId = (Long) bank[1];
+            try {
+                bankEarningsService.rollUp(bankType, bankId);
+            } catch (Exception e) {
+                // Slots stay untouched on failure and are retried on the next run
+                log.warn("Earnings roll-up failed for {} {}: {}", bankType, bankId, e.getMessage());
+            }
+        }
+        if (!banks.isEmpty()) {
+            log.info("Earnings roll-up completed for {} banks", banks.size());
+        }
+        closeTimelineHours();
+    }
+
+    // Hours are closed only once transfers started in them have had time to commit
+    private void closeTimelineHours() {
+        LocalDateTime cutoff = LocalDateTime.now().minusSeconds(closeLagSeconds).truncatedTo(ChronoUnit.HOURS);
+        for (Object[] bank : bucketRepository.findBanksWithClosedBuckets(cutoff)) {
+            BankType bankType = (BankType) bank[0];
+            Long bankId = (Long) bank[1];
+            try {
+                earningsTimelineService.closeHours(bankType, bankId, cutoff);
+            } catch (Exception e) {
+                // Buckets stay in place on failure and still count in period reports
+                log.warn("Earnings timeline update failed for {} {}: {}", bankType, bankId, e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.banksystem.services;
+
+import com.banksystem.enums.BankType;
+import com.banksystem.exception.BusinessRuleException;
+import com.banksystem.repository.BankEarningSlotRepository;
+import com.banksystem.repository.BranchRepository;
+import com.banksystem.repository.CentralBankRepository;
+import com.banksystem.repository.HeadBankRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+
+/**
+ * Striped earnings ledger for central bank, head banks and branches.
+ *
+ * Every transfer used to rewrite the same total_earning row of its central bank
+ * and head bank, so unrelated transfers queued behind each other on those row
+ * locks. Charges are now added to one of N slot rows per bank (chosen by hashing
+ * a shard key) and a background roll-up folds the slots into totalEarning.
+ * Readers add the pending slots to the rolled-up value, so totals stay exact.
+ */
+@Service
+@Slf4j
+public class BankEarningsService {
+
+    private final BankEarningSlotRepository slotRepository;
+    private final BranchRepository branchRepository;
+    private final HeadBankRepository headBankRepository;
+    private final CentralBankRepository centralBankRepository;
+    private final EarningsTimelineService earningsTimelineService;
+    private final int slotCount;
+
+    public BankEarningsService(BankEarningSlotRepository slotRepository,
+                               BranchRepository branchRepository,
+                               HeadBankRepository headBankRepository,
+                               CentralBankRepository centralBankRepository,
+                               EarningsTimelineService earningsTimelineService,
+                               @Value("${app.earnings.slots:16}") int slotCount) {
+        this.slotRepository = slotRepository;
+        this.branchRepository = branchRepository;
+        this.headBankRepository = headBankRepository;
+        this.centralBankRepository = centralBankRepository;
+        this.earningsTimelineService = earningsTimelineService;
+        this.slotCount = Math.max(1, slotCount);
+    }
+
+    /**
+     * Adds an earning to one slot of the bank. Must run inside the caller's transaction
+     * so the credit commits or rolls back together with the transfer.
+     * Transfers with the same shard key (sender account) already serialize on the
+     * account lock, so they can share a slot without adding contention.
+     */
+    @Transactional
+    public void recordEarning(BankType bankType, Long bankId, String shardKey, BigDecimal amount) {
+        if (amount == null || amount.signum() == 0) {
+            return;
+        }
+        int slot = Math.floorMod(shardKey.hashCode(), slotCount);
+        slotRepository.addToSlot(bankType.name(), bankId, slot, amount);
+        // Same amount into the hourly timeline, so period reports always add up to totalEarning
+        earningsTimelineService.record(bankType, bankId, slot, amount);
+        log.debug("Earning {} recorded for {} {} in slot {}", amount, bankType, bankId, slot);
+    }
+
+    /**
+     * Rolled-up total plus the not yet folded slots. Run both reads in one
+     * read-only transaction so they come from the same snapshot.
+     */
+    @Transactional(readOnly = true)
+    public BigDecimal getTotalEarning(BankType bankType, Long bankId, BigDecimal rolledUp) {
+        BigDecimal base = rolledUp != null ? rolledUp : BigDecimal.ZERO;
+        return base.add(slotRepository.sumPending(bankType, bankId));
+    }
+
+    /**
+     * Folds all slots of one bank into its totalEarning and zeroes them.
+     * The slot rows are locked first, so transfers touching this bank wait only
+     * for the duration of this short transaction.
+     */
+    @Transactional
+    public BigDecimal rollUp(BankType bankType, Long bankId) {
+        BigDecimal pending = slotRepository.lockSlots(bankType, bankId).stream()
+                .map(slot -> slot.getAmount())
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+
+        if (pending.signum() == 0) {
+            return BigDecimal.ZERO;
+        }
+
+        int updated = switch (bankType) {
+            case CENTRAL_BANK -> centralBankRepository.addToTotalEarning(bankId, pending);
+            case HEAD_BANK -> headBankRepository.addToTotalEarning(bankId, pending);
+            case BANK_BRANCH -> branchRepository.addToTotalEarning(bankId, pending);
+        };
+        if (updated == 0) {
+            throw new BusinessRuleException("Cannot roll up earnings, " + bankType + " not found with id " + bankId);
+        }
+
+        slotRepository.resetSlots(bankType, bankId);
+        log.debug("Rolled up {} into {} {}", pending, bankType, bankId);
+        return pending;
+    }
+}
@@ -0,0 +1,291 @@
+package com.banksystem.services;
+
+import com.banksystem.exception.ResourceNotFoundException;
+import com.banksystem.repository.BranchRepository;
+import com.banksystem.repository.CentralBankRepository;
+import com.banksystem.repository.HeadBankRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory Branch -> HeadBank -> CentralBank topology.
+ *
+ * The whole hierarchy (ids, codes, active flags and parent links) is held in an
+ * immutable, versioned snapshot of sorted arrays, so resolving the ancestry of a
+ * branch is a binary search with no database round trip and no lazy proxy walk.
+ * The snapshot is rebuilt after a branch or head bank is added or deactivated and
+ * swapped in with one volatile write. Other nodes rebuild through the
+ * CacheInvalidationBus; a periodic rebuild and an immediate (rate limited) rebuild
+ * on an unknown branch cover anything missed.
+ */
+@Service
+@Slf4j
+public class BankHierarchyService {
+
+    public static final String TOPOLOGY_CACHE = "bankTopology";
+
+    // Minimum gap between two rebuilds caused by lookups of unknown ids
+    private static final long MISS_RELOAD_INTERVAL_MS = 1000;
+
+    private final BranchRepository branchRepository;
+    private final HeadBankRepository headBankRepository;
+    private final CentralBankRepository centralBankRepository;
+    private final CacheInvalidationBus cacheInvalidationBus;
+
+    private final AtomicLong versions = new AtomicLong();
+    private volatile BankTopology topology;
+    private volatile long lastMissReload;
+
+    public BankHierarchyService(BranchRepository branchRepository,
+                                HeadBankRepository headBankRepository,
+                                CentralBankRepository centralBankRepository,
+                                CacheInvalidationBus cacheInvalidationBus) {
+        this.branchRepository = branchRepository;
+        this.headBankRepository = headBankRepository;
+        this.centralBankRepository = centralBankRepository;
+        this.cacheInvalidationBus = cacheInvalidationBus;
+        cacheInvalidationBus.register(TOPOLOGY_CACHE, key -> reload());
+    }
+
+    /**
+     * Rebuilds the snapshot from the database and swaps it in atomically.
+     * The three reads share one read-only transaction.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${app.hierarchy.refresh-interval-ms:300000}",
+            fixedDelayString = "${app.hierarchy.refresh-interval-ms:300000}")
+    @Transactional(readOnly = true)
+    public synchronized void reload() {
+        BankTopology fresh = BankTopology.build(versions.incrementAndGet(),
+                centralBankRepository.findTopologyRows(),
+                headBankRepository.findTopologyRows(),
+                branchRepository.findTopologyRows());
+        topology = fresh;
+        log.info("Bank topology v{} built: {} central banks, {} head banks, {} branches",
+                fresh.getVersion(), fresh.centralIds.length, fresh.headIds.length, fresh.branchIds.length);
+    }
+
+    /**
+     * Rebuilds the snapshot on every node once the current transaction commits, so a
+     * rolled back hierarchy change never becomes visible. Outside a transaction it reloads at once.
+     */
+    public void reloadAfterCommit() {
+        cacheInvalidationBus.publish(TOPOLOGY_CACHE, null);
+    }
+
+    public BankTopology getTopology() {
+        BankTopology current = topology;
+        if (current == null) {
+            synchronized (this) {
+                if (topology == null) {
+                    reload();
+                }
+                current = topology;
+            }
+        }
+        return current;
+    }
+
+    public BranchHierarchy getBranchHierarchy(Long branchId) {
+        BranchHierarchy hierarchy = getTopology().findBranch(branchId);
+        if (hierarchy == null && reloadOnMiss()) {
+            hierarchy = getTopology().findBranch(branchId);
+        }
+        if (hierarchy == null) {
+            throw new ResourceNotFoundException("Branch", "id", branchId);
+        }
+        return hierarchy;
+    }
+
+    public Long getHeadBankIdOfBranch(Long branchId) {
+        return getBranchHierarchy(branchId).getHeadBankId();
+    }
+
+    public void requireHeadBank(Long headBankId) {
+        if (!getTopology().isHeadBankKnown(headBankId)
+                && !(reloadOnMiss() && getTopology().isHeadBankKnown(headBankId))) {
+            throw new ResourceNotFoundException("HeadBank", "id", headBankId);
+        }
+    }
+
+    // A branch created on another node is not in the local snapshot until the next rebuild
+    private boolean reloadOnMiss() {
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            if (now - lastMissReload < MISS_RELOAD_INTERVAL_MS) {
+                return false;
+            }
+            lastMissReload = now;
+            reload();
+            return true;
+        }
+    }
+
+    // ==================== IMMUTABLE SNAPSHOT ====================
+
+    /**
+     * One version of the hierarchy. Each level is a set of parallel arrays sorted by
+     * id; parent links are indexes into the level above.
+     */
+    public static final class BankTopology {
+        private final long version;
+
+        private final long[] centralIds;
+        private final String[] centralCodes;
+
+        private final long[] headIds;
+        private final String[] headCodes;
+        private final boolean[] headActive;
+        private final int[] headCentral;
+
+        private final long[] branchIds;
+        private final String[] branchCodes;
+        private final boolean[] branchActive;
+        private final BranchHierarchy[] branchHierarchies;
+
+        private BankTopology(long version,
+                             long[] centralIds, String[] centralCodes,
+                             long[] headIds, String[] headCodes, boolean[] headActive, int[] headCentral,
+                             long[] branchIds, String[] branchCodes, boolean[] branchActive,
+                             BranchHierarchy[] branchHierarchies) {
+            this.version = version;
+            this.centralIds = centralIds;
+            this.centralCodes = centralCodes;
+            this.headIds = headIds;
+            this.headCodes = headCodes;
+            this.headActive = headActive;
+            this.headCentral = headCentral;
+            this.branchIds = branchIds;
+            this.branchCodes = branchCodes;
+            this.branchActive = branchActive;
+            this.branchHierarchies = branchHierarchies;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        public BranchHierarchy findBranch(Long branchId) {
+            int i = indexOf(branchIds, branchId);
+            return i < 0 ? null : branchHierarchies[i];
+        }
+
+        public boolean isBranchActive(Long branchId) {
+            int i = indexOf(branchIds, branchId);
+            return i >= 0 && branchActive[i];
+        }
+
+        public String getBranchCode(Long branchId) {
+            int i = indexOf(branchIds, branchId);
+            return i < 0 ? null : branchCodes[i];
+        }
+
+        public boolean isHeadBankKnown(Long headBankId) {
+            return indexOf(headIds, headBankId) >= 0;
+        }
+
+        public boolean isHeadBankActive(Long headBankId) {
+            int i = indexOf(headIds, headBankId);
+            return i >= 0 && headActive[i];
+        }
+
+        public String getHeadBankCode(Long headBankId) {
+            int i = indexOf(headIds, headBankId);
+            return i < 0 ? null : headCodes[i];
+        }
+
+        public Long getCentralBankIdOfHeadBank(Long headBankId) {
+            int i = indexOf(headIds, headBankId);
+            return i < 0 ? null : centralIds[headCentral[i]];
+        }
+
+        public String getCentralBankCode(Long centralBankId) {
+            int i = indexOf(centralIds, centralBankId);
+            return i < 0 ? null : centralCodes[i];
+        }
+
+        private static int indexOf(long[] ids, Long id) {
+            return id == null ? -1 : Arrays.binarySearch(ids, id);
+        }
+
+        /**
+         * Rows are (id, code) for central banks and (id, code, isActive, parentId) for
+         * head banks and branches. A row whose parent is missing (created between the
+         * reads) is left out until the next rebuild.
+         */
+        static BankTopology build(long version, List<Object[]> centralRows,
+                                  List<Object[]> headRows, List<Object[]> branchRows) {
+            Comparator<Object[]> byId = Comparator.comparingLong(r -> (Long) r[0]);
+
+            Object[][] centrals = centralRows.stream().sorted(byId).toArray(Object[][]::new);
+            long[] centralIds = new long[centrals.length];
+            String[] centralCodes = new String[centrals.length];
+            for (int i = 0; i < centrals.length; i++) {
+                centralIds[i] = (Long) centrals[i][0];
+                centralCodes[i] = (String) centrals[i][1];
+            }
+
+            Object[][] heads = headRows.stream()
+                    .filter(r -> indexOf(centralIds, (Long) r[3]) >= 0)
+                    .sorted(byId)
+                    .toArray(Object[][]::new);
+            long[] headIds = new long[heads.length];
+            String[] headCodes = new String[heads.length];
+            boolean[] headActive = new boolean[heads.length];
+            int[] headCentral = new int[heads.length];
+            for (int i = 0; i < heads.length; i++) {
+                headIds[i] = (Long) heads[i][0];
+                headCodes[i] = (String) heads[i][1];
+                headActive[i] = Boolean.TRUE.equals(heads[i][2]);
+                headCentral[i] = indexOf(centralIds, (Long) heads[i][3]);
+            }
+
+            Object[][] branches = branchRows.stream()
+                    .filter(r -> indexOf(headIds, (Long) r[3]) >= 0)
+                    .sorted(byId)
+                    .toArray(Object[][]::new);
+            long[] branchIds = new long[branches.length];
+            String[] branchCodes = new String[branches.length];
+            boolean[] branchActive = new boolean[branches.length];
+            BranchHierarchy[] hierarchies = new BranchHierarchy[branches.length];
+            for (int i = 0; i < branches.length; i++) {
+                Long branchId = (Long) branches[i][0];
+                int head = indexOf(headIds, (Long) branches[i][3]);
+                branchIds[i] = branchId;
+                branchCodes[i] = (String) branches[i][1];
+                branchActive[i] = Boolean.TRUE.equals(branches[i][2]);
+                hierarchies[i] = new BranchHierarchy(branchId, headIds[head], centralIds[headCentral[head]]);
+            }
+
+            return new BankTopology(version, centralIds, centralCodes,
+                    headIds, headCodes, headActive, headCentral,
+                    branchIds, branchCodes, branchActive, hierarchies);
+        }
+    }
+
+    // Immutable ids of one branch's ancestry
+    public static class BranchHierarchy {
+        private final Long branchId;
+        private final Long headBankId;
+        private final Long centralBankId;
+
+        public BranchHierarchy(Long branchId, Long headBankId, Long centralBankId) {
+            this.branchId = branchId;
+            this.headBankId = headBankId;
+            this.centralBankId = centralBankId;
+        }
+
+        public Long getBranchId() { return branchId; }
+        public Long getHeadBankId() { return headBankId; }
+        public Long getCentralBankId() { return centralBankId; }
+    }
+}
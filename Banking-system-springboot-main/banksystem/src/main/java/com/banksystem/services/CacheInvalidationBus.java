@@ -0,0 +1,173 @@
+package com.banksystem.services;
+
+import com.banksystem.entity.CacheInvalidation;
+import com.banksystem.repository.CacheInvalidationRepository;
+import com.banksystem.util.IdTail;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Cross-node cache coherence through the cache_invalidation table.
+ *
+ * publish() appends a row in the caller's transaction and, once it commits, applies
+ * the invalidation on this node. Every node tails the table by id (see IdTail),
+ * re-reading ids skipped by transactions that commit late, and applies the rows it
+ * has not seen yet, so other nodes converge within one poll interval.
+ *
+ * By default an invalidation evicts the key from the Spring cache of that name (the
+ * whole cache for a null key). In-memory indexes that are not Spring caches, such as
+ * the charge rule index or the bank topology, register their own handler.
+ */
+@Service
+@Slf4j
+public class CacheInvalidationBus {
+
+    // Recent ids re-read when the tail starts, for invalidations that commit after it
+    private static final long STARTUP_BACKLOG_IDS = 1_000;
+
+    private final CacheInvalidationRepository invalidationRepository;
+    private final CacheManager cacheManager;
+    private final int nodeId;
+    private final long retentionHours;
+    private final IdTail tail;
+
+    private final Map<String, Consumer<String>> handlers = new ConcurrentHashMap<>();
+
+    public CacheInvalidationBus(CacheInvalidationRepository invalidationRepository,
+                                CacheManager cacheManager,
+                                @Value("${app.node-id}") int nodeId,
+                                @Value("${app.cache.invalidation.retention-hours:24}") long retentionHours,
+                                @Value("${app.cache.invalidation.gap-timeout-ms:60000}") long gapTimeoutMs) {
+        this.invalidationRepository = invalidationRepository;
+        this.cacheManager = cacheManager;
+        this.nodeId = nodeId;
+        this.retentionHours = retentionHours;
+        this.tail = new IdTail(gapTimeoutMs);
+    }
+
+    /**
+     * Replaces the default Spring cache eviction for this name. The handler receives
+     * the published key as a string, or null.
+     */
+    public void register(String cacheName, Consumer<String> handler) {
+        handlers.put(cacheName, handler);
+    }
+
+    /**
+     * Records the invalidation in the current transaction and applies it locally once
+     * that transaction commits. Outside a transaction the row is written and applied at once.
+     */
+    public void publish(String cacheName, Object key) {
+        CacheInvalidation row = new CacheInvalidation();
+        row.setCacheName(cacheName);
+        row.setCacheKey(key == null ? null : String.valueOf(key));
+        row.setOriginNode(nodeId);
+        row.setCreatedAt(LocalDateTime.now());
+        CacheInvalidation saved = invalidationRepository.save(row);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    applyOnce(saved);
+                }
+            });
+        } else {
+            applyOnce(saved);
+        }
+    }
+
+    // ==================== SYNC ====================
+
+    @Scheduled(fixedDelayString = "${app.cache.invalidation.poll-interval-ms:2000}")
+    public void poll() {
+        if (!tail.isStarted()) {
+            tail.start(invalidationRepository.findMaxId() - STARTUP_BACKLOG_IDS);
+        }
+        List<CacheInvalidation> rows = new ArrayList<>(invalidationRepository.findAfter(tail.position()));
+        List<Long> gaps = tail.gaps();
+        if (!gaps.isEmpty()) {
+            rows.addAll(invalidationRepository.findAllById(gaps));
+        }
+
+        // The same entry published several times (or re-read at startup) is applied once per poll
+        Set<Invalidation> pending = new LinkedHashSet<>();
+        for (CacheInvalidation row : rows) {
+            if (tail.advance(row.getId())) {
+                pending.add(new Invalidation(row.getCacheName(), row.getCacheKey()));
+            }
+        }
+        pending.forEach(this::applySafely);
+        if (!pending.isEmpty()) {
+            log.debug("Applied {} cache invalidations from other nodes", pending.size());
+        }
+    }
+
+    @Scheduled(initialDelayString = "${app.cache.invalidation.purge-interval-ms:3600000}",
+            fixedDelayString = "${app.cache.invalidation.purge-interval-ms:3600000}")
+    @Transactional
+    public void purge() {
+        int purged = invalidationRepository.deleteOlderThan(LocalDateTime.now().minusHours(retentionHours));
+        if (purged > 0) {
+            log.info("Purged {} cache invalidation rows", purged);
+        }
+    }
+
+    private void applyOnce(CacheInvalidation row) {
+        if (tail.advance(row.getId())) {
+            applySafely(new Invalidation(row.getCacheName(), row.getCacheKey()));
+        }
+    }
+
+    private void applySafely(Invalidation invalidation) {
+        try {
+            apply(invalidation.cacheName(), invalidation.key());
+        } catch (RuntimeException e) {
+            log.error("Cache invalidation of {} key {} failed", invalidation.cacheName(), invalidation.key(), e);
+        }
+    }
+
+    private void apply(String cacheName, String key) {
+        Consumer<String> handler = handlers.get(cacheName);
+        if (handler != null) {
+            handler.accept(key);
+            return;
+        }
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache == null) {
+            log.warn("Cache invalidation for unknown cache {}", cacheName);
+        } else if (key == null) {
+            cache.clear();
+        } else {
+            cache.evict(parseKey(key));
+        }
+    }
+
+    // Cache keys published so far are entity ids
+    private static Object parseKey(String key) {
+        try {
+            return Long.valueOf(key);
+        } catch (NumberFormatException e) {
+            return key;
+        }
+    }
+
+    private record Invalidation(String cacheName, String key) {
+    }
+}
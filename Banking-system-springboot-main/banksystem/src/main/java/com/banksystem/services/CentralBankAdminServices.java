@@ -20,13 +20,16 @@ public class CentralBankAdminServices {
     private final CentralBankRepository centralBankRepository;
     private final BranchRepository branchRepository;
     private final CentralBankAdminRepository centralBankAdminRepository;
+    private final BankHierarchyService bankHierarchyService;
 
     public CentralBankAdminServices(HeadBankRepository headBankRepository, CentralBankRepository centralBankRepository,
-                                    BranchRepository branchRepository, CentralBankAdminRepository centralBankAdminRepository) {
+                                    BranchRepository branchRepository, CentralBankAdminRepository centralBankAdminRepository,
+                                    BankHierarchyService bankHierarchyService) {
         this.headBankRepository = headBankRepository;
         this.centralBankRepository = centralBankRepository;
         this.branchRepository = branchRepository;
         this.centralBankAdminRepository = centralBankAdminRepository;
+        this.bankHierarchyService = bankHierarchyService;
     }
 
     // --- SECURITY HELPER ---
@@ -57,7 +60,9 @@ public class CentralBankAdminServices {
 
         newHeadBank.setCentralBank(centralBank);
 
-        return headBankRepository.save(newHeadBank);
+        HeadBank saved = headBankRepository.save(newHeadBank);
+        bankHierarchyService.reloadAfterCommit();
+        return saved;
     }
 
     @Transactional
@@ -81,6 +86,7 @@ public class CentralBankAdminServices {
 
         headBank.setIsActive(false);
         headBankRepository.save(headBank);
+        bankHierarchyService.reloadAfterCommit();
     }
 
     public List<HeadBank> getAllBanks() {
@@ -0,0 +1,87 @@
+package com.banksystem.services;
+
+import com.banksystem.entity.Charges;
+import com.banksystem.entity.Transaction;
+import com.banksystem.enums.BankType;
+import com.banksystem.enums.TransactionType;
+import com.banksystem.repository.ChargeDailyRollupRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps charge_daily_rollup in step with the transfers, inside the transfer's own
+ * transaction. Each bank that charged a transfer gets one transaction counted
+ * with the transfer's amount, net amount and the sum of that bank's fees, so the
+ * charge reports read a few pre-aggregated rows instead of scanning charges.
+ */
+@Service
+@Slf4j
+public class ChargeRollupService {
+
+    private final ChargeDailyRollupRepository rollupRepository;
+    private final int slotCount;
+
+    public ChargeRollupService(ChargeDailyRollupRepository rollupRepository,
+                               @Value("${app.charges.rollup-slots:8}") int slotCount) {
+        this.rollupRepository = rollupRepository;
+        this.slotCount = Math.max(1, slotCount);
+    }
+
+    /**
+     * Adds saved transactions (with their charges attached) to the roll-up, one upsert per key.
+     */
+    public void record(List<Transaction> transactions) {
+        Map<RollupKey, Totals> totals = new LinkedHashMap<>();
+
+        for (Transaction transaction : transactions) {
+            // Fees of this transfer per charging bank
+            Map<BankKey, BigDecimal> chargesByBank = new HashMap<>();
+            for (Charges charge : transaction.getCharges()) {
+                chargesByBank.merge(new BankKey(charge.getBankType(), charge.getBankId()),
+                        BigDecimal.valueOf(charge.getChargedAmount()), BigDecimal::add);
+            }
+
+            LocalDate day = transaction.getTransactionDate().toLocalDate();
+            // Same shard key as the earning slots: transfers of one sender already serialize on its lock
+            int slot = Math.floorMod(transaction.getFromAccount().getAccountNumber().hashCode(), slotCount);
+
+            chargesByBank.forEach((bank, charged) -> totals
+                    .computeIfAbsent(new RollupKey(bank.bankType(), bank.bankId(), day,
+                            transaction.getTransactionType(), slot), k -> new Totals())
+                    .add(transaction.getAmount(), transaction.getNetAmount(), charged));
+        }
+
+        totals.forEach((key, t) -> rollupRepository.addToRollup(key.bankType().name(), key.bankId(), key.day(),
+                key.transactionType().name(), key.slot(), t.count, t.amount, t.netAmount, t.charges));
+        log.debug("Charge roll-up updated with {} keys", totals.size());
+    }
+
+    private record BankKey(BankType bankType, Long bankId) {
+    }
+
+    private record RollupKey(BankType bankType, Long bankId, LocalDate day,
+                             TransactionType transactionType, int slot) {
+    }
+
+    private static final class Totals {
+        private long count;
+        private BigDecimal amount = BigDecimal.ZERO;
+        private BigDecimal netAmount = BigDecimal.ZERO;
+        private BigDecimal charges = BigDecimal.ZERO;
+
+        void add(BigDecimal transferAmount, BigDecimal transferNetAmount, BigDecimal charged) {
+            count++;
+            amount = amount.add(transferAmount);
+            netAmount = netAmount.add(transferNetAmount);
+            charges = charges.add(charged);
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.banksystem.services;
+
+import com.banksystem.entity.Charges;
+import com.banksystem.entity.ChargesBook;
+import com.banksystem.enums.BankType;
+import com.banksystem.enums.TransactionType;
+import com.banksystem.repository.ChargesBookRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.*;
+
+/**
+ * In-memory tariff index built from the active ChargesBook rows.
+ *
+ * Rules are grouped per (bankType, bankId, transactionType) and sorted by minValue,
+ * so resolving the fees of a transfer is a map lookup plus a short scan over
+ * primitive arrays, with no database round trip. The whole index is immutable and
+ * replaced in one volatile write whenever a tariff changes, on every node through
+ * the CacheInvalidationBus.
+ */
+@Service
+@Slf4j
+public class ChargeRuleEngine {
+
+    public static final String RULES_CACHE = "chargeRules";
+
+    private final ChargesBookRepository chargesBookRepository;
+    private final CacheInvalidationBus cacheInvalidationBus;
+
+    private volatile RuleIndex index;
+
+    public ChargeRuleEngine(ChargesBookRepository chargesBookRepository,
+                            CacheInvalidationBus cacheInvalidationBus) {
+        this.chargesBookRepository = chargesBookRepository;
+        this.cacheInvalidationBus = cacheInvalidationBus;
+        cacheInvalidationBus.register(RULES_CACHE, key -> reload());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        reload();
+    }
+
+    /**
+     * Rebuilds the index from the database and swaps it in atomically.
+     */
+    public synchronized void reload() {
+        List<ChargesBook> activeRules = new ArrayList<>();
+        chargesBookRepository.findByIsActiveTrue().forEach(activeRules::add);
+        index = RuleIndex.build(activeRules);
+        log.info("Charge rule index rebuilt with {} active rules", activeRules.size());
+    }
+
+    /**
+     * Rebuilds the index on every node once the current transaction commits, so a rolled
+     * back tariff change never becomes visible. Outside a transaction it reloads at once.
+     */
+    public void reloadAfterCommit() {
+        cacheInvalidationBus.publish(RULES_CACHE, null);
+    }
+
+    /**
+     * Appends one unsaved Charges row per matching rule to the target list.
+     */
+    public void resolveInto(List<Charges> target, BankType bankType, Long bankId,
+                            TransactionType transactionType, BigDecimal amount) {
+        RuleIndex current = index;
+        if (current == null) {
+            synchronized (this) {
+                if (index == null) {
+                    reload();
+                }
+                current = index;
+            }
+        }
+
+        RuleSet rules = current.find(bankType, bankId, transactionType);
+        if (rules == null) {
+            return;
+        }
+        rules.appendMatches(target, amount.doubleValue());
+    }
+
+    // ==================== IMMUTABLE INDEX ====================
+
+    private static final class RuleIndex {
+        private final EnumMap<BankType, Map<Long, EnumMap<TransactionType, RuleSet>>> rules;
+
+        private RuleIndex(EnumMap<BankType, Map<Long, EnumMap<TransactionType, RuleSet>>> rules) {
+            this.rules = rules;
+        }
+
+        RuleSet find(BankType bankType, Long bankId, TransactionType transactionType) {
+            Map<Long, EnumMap<TransactionType, RuleSet>> byBank = rules.get(bankType);
+            if (byBank == null) {
+                return null;
+            }
+            EnumMap<TransactionType, RuleSet> byType = byBank.get(bankId);
+            return byType == null ? null : byType.get(transactionType);
+        }
+
+        static RuleIndex build(List<ChargesBook> activeRules) {
+            EnumMap<BankType, Map<Long, EnumMap<TransactionType, List<ChargesBook>>>> grouped =
+                    new EnumMap<>(BankType.class);
+
+            for (ChargesBook cb : activeRules) {
+                // ":amount BETWEEN minValue AND maxValue" in the former SQL lookup never matched rows
+                // without a transaction type or with a NULL bound; they stay unmatched here
+                if (cb.getBankType() == null || cb.getBankId() == null || cb.getTransactionType() == null
+                        || cb.getMinValue() == null || cb.getMaxValue() == null) {
+                    continue;
+                }
+                grouped.computeIfAbsent(cb.getBankType(), k -> new HashMap<>())
+                        .computeIfAbsent(cb.getBankId(), k -> new EnumMap<>(TransactionType.class))
+                        .computeIfAbsent(cb.getTransactionType(), k -> new ArrayList<>())
+                        .add(cb);
+            }
+
+            EnumMap<BankType, Map<Long, EnumMap<TransactionType, RuleSet>>> compiled =
+                    new EnumMap<>(BankType.class);
+            grouped.forEach((bankType, byBank) -> {
+                Map<Long, EnumMap<TransactionType, RuleSet>> compiledByBank = new HashMap<>();
+                byBank.forEach((bankId, byType) -> {
+                    EnumMap<TransactionType, RuleSet> compiledByType = new EnumMap<>(TransactionType.class);
+                    byType.forEach((type, list) -> compiledByType.put(type, RuleSet.compile(list)));
+                    compiledByBank.put(bankId, compiledByType);
+                });
+                compiled.put(bankType, compiledByBank);
+            });
+            return new RuleIndex(compiled);
+        }
+    }
+
+    /**
+     * Rules of one (bankType, bankId, transactionType) key, sorted by minValue.
+     */
+    private static final class RuleSet {
+        private final double[] minValues;
+        private final double[] maxValues;
+        private final ChargesBook[] rules;
+
+        private RuleSet(double[] minValues, double[] maxValues, ChargesBook[] rules) {
+            this.minValues = minValues;
+            this.maxValues = maxValues;
+            this.rules = rules;
+        }
+
+        static RuleSet compile(List<ChargesBook> list) {
+            ChargesBook[] sorted = list.stream()
+                    .map(RuleSet::snapshot)
+                    .sorted(Comparator.comparingDouble(ChargesBook::getMinValue))
+                    .toArray(ChargesBook[]::new);
+
+            double[] mins = new double[sorted.length];
+            double[] maxs = new double[sorted.length];
+            for (int i = 0; i < sorted.length; i++) {
+                mins[i] = sorted[i].getMinValue();
+                maxs[i] = sorted[i].getMaxValue();
+            }
+            return new RuleSet(mins, maxs, sorted);
+        }
+
+        // Detached copy so later changes to a managed entity cannot leak into the index
+        private static ChargesBook snapshot(ChargesBook cb) {
+            ChargesBook copy = new ChargesBook();
+            copy.setId(cb.getId());
+            copy.setBankId(cb.getBankId());
+            copy.setBankType(cb.getBankType());
+            copy.setTransactionType(cb.getTransactionType());
+            copy.setFeeName(cb.getFeeName());
+            copy.setFeeAmount(cb.getFeeAmount());
+            copy.setMinValue(cb.getMinValue());
+            copy.setMaxValue(cb.getMaxValue());
+            return copy;
+        }
+
+        void appendMatches(List<Charges> target, double amount) {
+            // Only rules with minValue <= amount can match; they form a prefix of the sorted arrays
+            int end = upperBound(amount);
+            for (int i = 0; i < end; i++) {
+                if (amount <= maxValues[i]) {
+                    ChargesBook cb = rules[i];
+                    Charges c = new Charges();
+                    c.setBankType(cb.getBankType());
+                    c.setBankId(cb.getBankId());
+                    c.setFeeName(cb.getFeeName());
+                    c.setChargedAmount(cb.getFeeAmount());
+                    target.add(c);
+                }
+            }
+        }
+
+        private int upperBound(double amount) {
+            int lo = 0;
+            int hi = minValues.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (minValues[mid] <= amount) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+    }
+}
@@ -15,9 +15,11 @@ public class ChargesBookService {
 
 
     private final ChargesBookRepository chargesBookRepository;
+    private final ChargeRuleEngine chargeRuleEngine;
 
-    public ChargesBookService(ChargesBookRepository chargesBookRepository) {
+    public ChargesBookService(ChargesBookRepository chargesBookRepository, ChargeRuleEngine chargeRuleEngine) {
         this.chargesBookRepository = chargesBookRepository;
+        this.chargeRuleEngine = chargeRuleEngine;
     }
 
     @Transactional
@@ -41,6 +43,7 @@ public class ChargesBookService {
         chargesBook1.setFeeAmount(chargesBook.getFeeAmount());
         chargesBook1.setFeeName(chargesBook.getFeeName());
         chargesBookRepository.save(chargesBook1);
+        chargeRuleEngine.reloadAfterCommit();
         return chargesBook1;
     }
 
@@ -82,7 +85,9 @@ public class ChargesBookService {
         existingCharge.setFeeAmount(chargesBook.getFeeAmount());
         existingCharge.setFeeName(chargesBook.getFeeName());
 
-        return chargesBookRepository.save(existingCharge);
+        ChargesBook saved = chargesBookRepository.save(existingCharge);
+        chargeRuleEngine.reloadAfterCommit();
+        return saved;
     }
 
     // Soft Delete
@@ -93,6 +98,7 @@ public class ChargesBookService {
 
         existingCharge.setActive(false);
         chargesBookRepository.save(existingCharge);
+        chargeRuleEngine.reloadAfterCommit();
     }
 
     // Get by ID
@@ -3,9 +3,10 @@ package com.banksystem.services;
 import com.banksystem.dto.ApiResponse;
 import com.banksystem.dto.TransactionDto;
 import com.banksystem.entity.Charges;
-import com.banksystem.entity.ChargesBook;
 import com.banksystem.enums.BankType;
+import com.banksystem.enums.TransactionType;
 import com.banksystem.exception.BusinessRuleException;
+import com.banksystem.repository.ChargeDailyRollupRepository;
 import com.banksystem.repository.ChargesBookRepository;
 import com.banksystem.repository.ChargesRepository;
 import lombok.extern.slf4j.Slf4j;
@@ -27,33 +28,39 @@ public class ChargesService {
 
     private final ChargesBookRepository chargesBookRepository;
     private final ChargesRepository chargesRepository;
+    private final ChargeRuleEngine chargeRuleEngine;
+    private final ChargeDailyRollupRepository chargeDailyRollupRepository;
 
-    public ChargesService(ChargesBookRepository chargesBookRepository, ChargesRepository chargesRepository) {
+    public ChargesService(ChargesBookRepository chargesBookRepository,
+                          ChargesRepository chargesRepository,
+                          ChargeRuleEngine chargeRuleEngine,
+                          ChargeDailyRollupRepository chargeDailyRollupRepository) {
         this.chargesBookRepository = chargesBookRepository;
         this.chargesRepository = chargesRepository;
+        this.chargeRuleEngine = chargeRuleEngine;
+        this.chargeDailyRollupRepository = chargeDailyRollupRepository;
     }
 
     // Only CREATE charges, don't save them yet
     public List<Charges> getChargesList(TransactionDto transactionDto) {
-        List<ChargesBook> chargesBooks = chargesBookRepository.getAllValidCharges(
+        List<Charges> chargesList = new ArrayList<>();
+        appendCharges(chargesList,
                 transactionDto.getBankId(),
                 transactionDto.getBankType(),
                 transactionDto.getTransactionType(),
-                transactionDto.getAmount()
-        );
-
-        List<Charges> chargesList = new ArrayList<>();
-        for (ChargesBook cb : chargesBooks) {
-            Charges c = new Charges();
-            c.setBankType(cb.getBankType());
-            c.setBankId(cb.getBankId());
-            c.setFeeName(cb.getFeeName());
-            c.setChargedAmount(cb.getFeeAmount());
-            chargesList.add(c);
-        }
+                transactionDto.getAmount());
         return chargesList;
     }
 
+    /**
+     * Resolves the applicable fees from the in-memory tariff index (no DB round trip)
+     * and appends them, unsaved, to the given list.
+     */
+    public void appendCharges(List<Charges> target, Long bankId, BankType bankType,
+                              TransactionType transactionType, BigDecimal amount) {
+        chargeRuleEngine.resolveInto(target, bankType, bankId, transactionType, amount);
+    }
+
     @Transactional(readOnly = true)
     public List<Charges> getChargesByTransactionId(Long transactionId) {
         log.info("Fetching charges for transaction ID: {}", transactionId);
@@ -95,7 +102,8 @@ public class ChargesService {
     public Map<String, Object> getChargesLastYear(Long bankId, BankType bankType) {
         log.info("Fetching last year's charges for bank ID: {}, type: {}", bankId, bankType);
 
-        List<Object[]> results = chargesRepository.findTransactionChargesSummaryLastYear(
+        // At most 366 days x slots pre-aggregated rows instead of the charges/transactions join
+        List<Object[]> results = chargeDailyRollupRepository.findMonthlySummaryLastYear(
                 bankId, bankType.name());
 
         return buildYearlyChargesResponse(results);
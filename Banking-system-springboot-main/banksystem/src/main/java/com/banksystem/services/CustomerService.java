@@ -4,9 +4,13 @@ import com.banksystem.dto.*;
 import com.banksystem.entity.*;
 import com.banksystem.enums.AccountStatus;
 import com.banksystem.enums.AccountType;
+import com.banksystem.enums.LedgerOwnerType;
+import com.banksystem.enums.PendingRequestType;
 import com.banksystem.enums.RequestStatus;
 import com.banksystem.exception.BusinessRuleException;
 import com.banksystem.repository.*;
+import com.banksystem.util.KeysetCursor;
+import com.banksystem.util.KeysetCursorCodec;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -19,6 +23,8 @@ import java.util.UUID;
 @Service
 public class CustomerService {
 
+    private static final int MAX_HISTORY_PAGE_SIZE = 200;
+
     private final CustomerRepository customerRepository;
     private final AccountRepository accountRepository;
     private final AccountRequestRepository accountRequestRepository;
@@ -29,6 +35,12 @@ public class CustomerService {
     private final ChequeBookRequestRepository chequeBookRequestRepository;
     private final DebitCardRepository debitCardRepository;
     private final TransactionRepository transactionRepository;
+    private final LedgerService ledgerService;
+    private final LoanStatisticsService loanStatisticsService;
+    private final PendingRequestCounters pendingRequestCounters;
+    private final BankHierarchyService bankHierarchyService;
+    private final HeadBankCatalogService headBankCatalogService;
+    private final KeysetCursorCodec keysetCursorCodec;
 
     public CustomerService(CustomerRepository customerRepository,
                            AccountRepository accountRepository,
@@ -39,7 +51,13 @@ public class CustomerService {
                            ChequeBookRequestRepository chequeBookRequestRepository,
                            DebitCardRepository debitCardRepository,
                            TransactionRepository transactionRepository,
-                           AccountRequestRepository accountRequestRepository) {
+                           AccountRequestRepository accountRequestRepository,
+                           LedgerService ledgerService,
+                           LoanStatisticsService loanStatisticsService,
+                           PendingRequestCounters pendingRequestCounters,
+                           BankHierarchyService bankHierarchyService,
+                           HeadBankCatalogService headBankCatalogService,
+                           KeysetCursorCodec keysetCursorCodec) {
         this.customerRepository = customerRepository;
         this.accountRepository = accountRepository;
         this.branchRepository = branchRepository;
@@ -50,6 +68,12 @@ public class CustomerService {
         this.debitCardRepository = debitCardRepository;
         this.transactionRepository = transactionRepository;
         this.accountRequestRepository = accountRequestRepository;
+        this.ledgerService = ledgerService;
+        this.loanStatisticsService = loanStatisticsService;
+        this.pendingRequestCounters = pendingRequestCounters;
+        this.bankHierarchyService = bankHierarchyService;
+        this.headBankCatalogService = headBankCatalogService;
+        this.keysetCursorCodec = keysetCursorCodec;
     }
 
     // ==================== HELPER METHOD ====================
@@ -97,9 +121,11 @@ public class CustomerService {
         accountRequest.setStatus(RequestStatus.PENDING);
         accountRequest.setCreatedAt(LocalDateTime.now());
 
+        pendingRequestCounters.requestCreated(requestDTO.getBranchId(), PendingRequestType.ACCOUNT);
         return accountRequestRepository.save(accountRequest);
     }
 
+    @Transactional(readOnly = true)
     public List<AccountRequest> getMyAccountRequests(Long customerId) {
         Customer customer = getCustomer(customerId);
         return accountRequestRepository.findByCustomer(customer);
@@ -137,18 +163,20 @@ public class CustomerService {
         application.setStatus(RequestStatus.PENDING);
         application.setCreatedAt(LocalDateTime.now());
 
+        loanStatisticsService.invalidateAfterCommit(customer.getBranch().getId());
         return loanApplicationRepository.save(application);
     }
 
+    @Transactional(readOnly = true)
     public List<LoanApplication> getMyLoanApplications(Long customerId) {
         Customer customer = getCustomer(customerId);
         return loanApplicationRepository.findByCustomer(customer);
     }
 
-    public List<LoanOffers> getAvailableLoanOffers(Long customerId) {
+    public HeadBankCatalogService.Catalog<LoanOffers> getAvailableLoanOffers(Long customerId) {
         Customer customer = getCustomer(customerId);
-        Long headBankId = customer.getBranch().getHeadBank().getId();
-        return loanOffersRepository.findByHeadBankIdAndIsActiveTrue(headBankId);
+        Long headBankId = bankHierarchyService.getHeadBankIdOfBranch(customer.getBranch().getId());
+        return headBankCatalogService.getActiveLoanOffers(headBankId);
     }
 
     // ==================== DEBIT CARD REQUESTS ====================
@@ -182,9 +210,11 @@ public class CustomerService {
         cardRequest.setStatus(RequestStatus.PENDING);
         cardRequest.setCreatedAt(LocalDateTime.now());
 
+        pendingRequestCounters.requestCreated(account.getBranch().getId(), PendingRequestType.CARD);
         return cardRequestRepository.save(cardRequest);
     }
 
+    @Transactional(readOnly = true)
     public List<CardRequest> getMyCardRequests(Long customerId) {
         Customer customer = getCustomer(customerId);
         return cardRequestRepository.findByRequestedBy(customer);
@@ -216,9 +246,11 @@ public class CustomerService {
         chequeRequest.setStatus(RequestStatus.PENDING);
         chequeRequest.setCreatedAt(LocalDateTime.now());
 
+        pendingRequestCounters.requestCreated(account.getBranch().getId(), PendingRequestType.CHEQUE_BOOK);
         return chequeBookRequestRepository.save(chequeRequest);
     }
 
+    @Transactional(readOnly = true)
     public List<ChequeBookRequest> getMyChequeBookRequests(Long customerId) {
         Customer customer = getCustomer(customerId);
         return chequeBookRequestRepository.findByRequestedBy(customer);
@@ -258,6 +290,7 @@ public class CustomerService {
         debitCardRepository.save(card);
     }
 
+    @Transactional(readOnly = true)
     public List<DebitCard> getMyCards(Long customerId) {
         Customer customer = getCustomer(customerId);
         return debitCardRepository.findByAccountCustomer(customer);
@@ -265,11 +298,13 @@ public class CustomerService {
 
     // ==================== ACCOUNT DETAILS ====================
 
+    @Transactional(readOnly = true)
     public List<Account> getMyAccounts(Long customerId) {
         Customer customer = getCustomer(customerId);
         return accountRepository.findByCustomer(customer);
     }
 
+    @Transactional(readOnly = true)
     public Account getAccountDetails(Long customerId, Long accountId) {
         Account account = accountRepository.findById(accountId)
                 .orElseThrow(() -> new BusinessRuleException("Account not found"));
@@ -282,6 +317,7 @@ public class CustomerService {
         return account;
     }
 
+    @Transactional(readOnly = true)
     public List<Transaction> getTransactionHistory(Long customerId, Long accountId,
                                                    LocalDate startDate, LocalDate endDate) {
         Account account = accountRepository.findById(accountId)
@@ -296,6 +332,45 @@ public class CustomerService {
                 startDate.atStartOfDay(), endDate.atTime(23, 59, 59));
     }
 
+    /**
+     * Keyset-paginated history, newest first. Pass the returned nextCursor to get the next page.
+     */
+    @Transactional(readOnly = true)
+    public TransactionPageDTO getTransactionHistoryPage(Long customerId, Long accountId,
+                                                        LocalDate startDate, LocalDate endDate,
+                                                        String cursor, int size) {
+        Account account = accountRepository.findById(accountId)
+                .orElseThrow(() -> new BusinessRuleException("Account not found"));
+
+        // VERIFY: Account belongs to customer
+        if (!account.getCustomer().getId().equals(customerId)) {
+            throw new BusinessRuleException("Access denied: Account does not belong to this customer");
+        }
+
+        int pageSize = Math.max(1, Math.min(size, MAX_HISTORY_PAGE_SIZE));
+
+        // First page starts just after the end of the range
+        KeysetCursor position = keysetCursorCodec.decodeOrDefault(cursor,
+                new KeysetCursor(endDate.plusDays(1).atStartOfDay(), Long.MAX_VALUE));
+
+        List<Transaction> rows = transactionRepository.findHistoryPage(accountId, startDate.atStartOfDay(),
+                position.date(), position.id(), pageSize + 1);
+        return TransactionPageDTO.of(rows, pageSize, keysetCursorCodec);
+    }
+
+    @Transactional(readOnly = true)
+    public BigDecimal getBalanceAt(Long customerId, Long accountId, LocalDateTime at) {
+        Account account = accountRepository.findById(accountId)
+                .orElseThrow(() -> new BusinessRuleException("Account not found"));
+
+        // VERIFY: Account belongs to customer
+        if (!account.getCustomer().getId().equals(customerId)) {
+            throw new BusinessRuleException("Access denied: Account does not belong to this customer");
+        }
+
+        return ledgerService.getBalanceAt(LedgerOwnerType.ACCOUNT, accountId, at);
+    }
+
     // ==================== TRANSACTION PIN ====================
 
     @Transactional
@@ -20,11 +20,17 @@ public class DebitCardRulesService {
 
     private final DebitCardRulesRepository debitCardRulesRepository;
     private final HeadBankRepository headBankRepository;
+    private final HeadBankCatalogService headBankCatalogService;
+    private final BankHierarchyService bankHierarchyService;
 
     public DebitCardRulesService(DebitCardRulesRepository debitCardRulesRepository,
-                                 HeadBankRepository headBankRepository) {
+                                 HeadBankRepository headBankRepository,
+                                 HeadBankCatalogService headBankCatalogService,
+                                 BankHierarchyService bankHierarchyService) {
         this.debitCardRulesRepository = debitCardRulesRepository;
         this.headBankRepository = headBankRepository;
+        this.headBankCatalogService = headBankCatalogService;
+        this.bankHierarchyService = bankHierarchyService;
     }
 
     /**
@@ -55,6 +61,7 @@ public class DebitCardRulesService {
         debitCardRules.setCreatedAt(LocalDateTime.now());
 
         DebitCardRules savedRules = debitCardRulesRepository.save(debitCardRules);
+        headBankCatalogService.invalidateDebitCardRulesAfterCommit(headBank.getId());
         log.info("Successfully added debit card rules with ID: {}", savedRules.getId());
 
         return savedRules;
@@ -89,6 +96,7 @@ public class DebitCardRulesService {
         existingRules.setInternationalUsage(existingRules.getInternationalUsage()); // Keep existing or add to DTO
 
         DebitCardRules updatedRules = debitCardRulesRepository.save(existingRules);
+        headBankCatalogService.invalidateDebitCardRulesAfterCommit(existingRules.getHeadBank().getId());
         log.info("Successfully updated debit card rules with ID: {}", rulesId);
 
         return updatedRules;
@@ -110,21 +118,18 @@ public class DebitCardRulesService {
 
         existingRules.setIsActive(false);
         debitCardRulesRepository.save(existingRules);
+        headBankCatalogService.invalidateDebitCardRulesAfterCommit(existingRules.getHeadBank().getId());
         log.info("Successfully deactivated debit card rules with ID: {}", rulesId);
     }
 
     /**
-     * Get all debit card rules for a head bank
+     * Get all active debit card rules for a head bank, from the per-head-bank catalog cache
      */
-    public List<DebitCardRules> getAllDebitCardRulesByHeadBank(Long headBankId) {
+    public HeadBankCatalogService.Catalog<DebitCardRules> getAllDebitCardRulesByHeadBank(Long headBankId) {
         log.info("Fetching all debit card rules for head bank ID: {}", headBankId);
 
-        HeadBank headBank = headBankRepository.findById(headBankId)
-                .orElseThrow(() -> new ResourceNotFoundException("HeadBank", "id", headBankId));
-
-        return headBank.getDebitCardRules().stream()
-                .filter(DebitCardRules::getIsActive)
-                .toList();
+        bankHierarchyService.requireHeadBank(headBankId);
+        return headBankCatalogService.getActiveDebitCardRules(headBankId);
     }
 
     /**
@@ -0,0 +1,127 @@
+package com.banksystem.services;
+
+import com.banksystem.entity.BankEarningBucket;
+import com.banksystem.enums.BankType;
+import com.banksystem.exception.BusinessRuleException;
+import com.banksystem.repository.BankEarningBucketRepository;
+import com.banksystem.repository.BankEarningTimelineRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Hourly earnings timeline per bank for period reports.
+ *
+ * Every earning is added to an hourly bucket in the same transaction as its
+ * earning slot, so the timeline receives exactly what totalEarning receives.
+ * The roll-up job folds closed hours into bank_earning_timeline rows that carry
+ * running totals; the earnings of a period are then cumulative(to) - cumulative(from)
+ * plus the few buckets that are not folded yet.
+ */
+@Service
+@Slf4j
+public class EarningsTimelineService {
+
+    private final BankEarningBucketRepository bucketRepository;
+    private final BankEarningTimelineRepository timelineRepository;
+
+    public EarningsTimelineService(BankEarningBucketRepository bucketRepository,
+                                   BankEarningTimelineRepository timelineRepository) {
+        this.bucketRepository = bucketRepository;
+        this.timelineRepository = timelineRepository;
+    }
+
+    public record PeriodEarnings(LocalDateTime from, LocalDateTime to, BigDecimal amount, long transactionCount) {
+    }
+
+    /**
+     * Adds an earning to the current hour of the bank. Runs inside the caller's transaction.
+     */
+    @Transactional
+    public void record(BankType bankType, Long bankId, int slot, BigDecimal amount) {
+        LocalDateTime bucketStart = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS);
+        bucketRepository.addToBucket(bankType.name(), bankId, bucketStart, slot, amount);
+    }
+
+    /**
+     * Earnings of the bank between two instants. The bounds are widened to whole
+     * hours: from the hour containing start up to the end of the hour containing end.
+     */
+    @Transactional(readOnly = true)
+    public PeriodEarnings getPeriodEarnings(BankType bankType, Long bankId,
+                                            LocalDateTime start, LocalDateTime end) {
+        if (start == null || end == null || end.isBefore(start)) {
+            throw new BusinessRuleException("End date must not be before start date");
+        }
+        LocalDateTime from = start.truncatedTo(ChronoUnit.HOURS);
+        LocalDateTime to = end.truncatedTo(ChronoUnit.HOURS);
+        if (to.isBefore(end) || !to.isAfter(from)) {
+            to = to.plusHours(1);
+        }
+
+        Object[] upper = cumulativeBefore(bankType, bankId, to);
+        Object[] lower = cumulativeBefore(bankType, bankId, from);
+        Object[] open = bucketRepository.sumOpen(bankType, bankId, from, to).get(0);
+
+        BigDecimal amount = toBigDecimal(upper[0]).subtract(toBigDecimal(lower[0]))
+                .add(toBigDecimal(open[0]));
+        long count = ((Number) upper[1]).longValue() - ((Number) lower[1]).longValue()
+                + ((Number) open[1]).longValue();
+        return new PeriodEarnings(from, to, amount, count);
+    }
+
+    /**
+     * Moves the bank's buckets older than the cutoff onto the timeline and deletes them.
+     * The bucket rows are locked first, so two nodes never fold the same hour twice.
+     */
+    @Transactional
+    public int closeHours(BankType bankType, Long bankId, LocalDateTime cutoff) {
+        List<BankEarningBucket> buckets = bucketRepository.lockClosedBuckets(bankType, bankId, cutoff);
+        if (buckets.isEmpty()) {
+            return 0;
+        }
+
+        // Slots of the same hour summed, oldest hour first
+        Map<LocalDateTime, BankEarningBucket> hours = new TreeMap<>();
+        for (BankEarningBucket bucket : buckets) {
+            BankEarningBucket hour = hours.computeIfAbsent(bucket.getBucketStart(), k -> {
+                BankEarningBucket sum = new BankEarningBucket();
+                sum.setBucketStart(k);
+                return sum;
+            });
+            hour.setAmount(hour.getAmount().add(bucket.getAmount()));
+            hour.setTxnCount(hour.getTxnCount() + bucket.getTxnCount());
+        }
+
+        hours.values().forEach(hour -> {
+            Object[] before = cumulativeBefore(bankType, bankId, hour.getBucketStart());
+            timelineRepository.addHour(bankType.name(), bankId, hour.getBucketStart(),
+                    hour.getAmount(), hour.getTxnCount(),
+                    toBigDecimal(before[0]).add(hour.getAmount()),
+                    ((Number) before[1]).longValue() + hour.getTxnCount());
+            // No-op for the newest hour; a late commit into an older hour moves all later running totals
+            timelineRepository.shiftLaterHours(bankType.name(), bankId, hour.getBucketStart(),
+                    hour.getAmount(), hour.getTxnCount());
+        });
+
+        bucketRepository.deleteByIds(buckets.stream().map(BankEarningBucket::getId).toList());
+        log.debug("Closed {} earning hours of {} {}", hours.size(), bankType, bankId);
+        return hours.size();
+    }
+
+    private Object[] cumulativeBefore(BankType bankType, Long bankId, LocalDateTime before) {
+        List<Object[]> rows = timelineRepository.findCumulativeBefore(bankType.name(), bankId, before);
+        return rows.isEmpty() ? new Object[]{BigDecimal.ZERO, 0L} : rows.get(0);
+    }
+
+    private static BigDecimal toBigDecimal(Object value) {
+        return value instanceof BigDecimal decimal ? decimal : new BigDecimal(value.toString());
+    }
+}
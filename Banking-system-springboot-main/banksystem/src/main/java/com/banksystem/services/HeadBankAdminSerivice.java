@@ -3,10 +3,16 @@ package com.banksystem.services;
 import com.banksystem.dto.BranchDTO;
 import com.banksystem.dto.BranchManagerDTO;
 import com.banksystem.dto.LoanOfferDTO;
+import com.banksystem.dto.TransactionPageDTO;
 import com.banksystem.entity.*;
+import com.banksystem.enums.BankType;
+import com.banksystem.enums.RolesType;
 import com.banksystem.exception.BusinessRuleException;
 import com.banksystem.exception.ResourceNotFoundException;
 import com.banksystem.repository.*;
+import com.banksystem.security.TokenRevocationService;
+import com.banksystem.util.KeysetCursor;
+import com.banksystem.util.KeysetCursorCodec;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -20,25 +26,45 @@ import java.util.Optional;
 @Slf4j
 public class HeadBankAdminSerivice {
 
+    private static final int MAX_TRANSACTION_PAGE_SIZE = 200;
+
     private final BranchRepository branchRepository;
     private final HeadBankRepository headBankRepository;
     private final LoanOffersRepository loanOffersRepository;
     private final DebitCardRulesRepository debitCardRulesRepository;
     private final BranchManagerRepository branchManagerRepository;
     private final HeadBankAdminRepository headBankAdminRepository;
+    private final BankEarningsService bankEarningsService;
+    private final TokenRevocationService tokenRevocationService;
+    private final BankHierarchyService bankHierarchyService;
+    private final HeadBankCatalogService headBankCatalogService;
+    private final TransactionRepository transactionRepository;
+    private final KeysetCursorCodec keysetCursorCodec;
 
     public HeadBankAdminSerivice(BranchRepository branchRepository,
                                  HeadBankRepository headBankRepository,
                                  LoanOffersRepository loanOffersRepository,
                                  DebitCardRulesRepository debitCardRulesRepository,
                                  BranchManagerRepository branchManagerRepository,
-                                 HeadBankAdminRepository headBankAdminRepository) {
+                                 HeadBankAdminRepository headBankAdminRepository,
+                                 BankEarningsService bankEarningsService,
+                                 TokenRevocationService tokenRevocationService,
+                                 BankHierarchyService bankHierarchyService,
+                                 HeadBankCatalogService headBankCatalogService,
+                                 TransactionRepository transactionRepository,
+                                 KeysetCursorCodec keysetCursorCodec) {
         this.branchRepository = branchRepository;
         this.headBankRepository = headBankRepository;
         this.loanOffersRepository = loanOffersRepository;
         this.debitCardRulesRepository = debitCardRulesRepository;
         this.branchManagerRepository = branchManagerRepository;
         this.headBankAdminRepository = headBankAdminRepository;
+        this.bankEarningsService = bankEarningsService;
+        this.tokenRevocationService = tokenRevocationService;
+        this.bankHierarchyService = bankHierarchyService;
+        this.headBankCatalogService = headBankCatalogService;
+        this.transactionRepository = transactionRepository;
+        this.keysetCursorCodec = keysetCursorCodec;
     }
 
     // ==================== HELPER METHOD ====================
@@ -74,7 +100,9 @@ public class HeadBankAdminSerivice {
         branch.setHeadBank(headBank);
         headBank.getBranches().add(branch);
 
-        return branchRepository.save(branch);
+        Branch saved = branchRepository.save(branch);
+        bankHierarchyService.reloadAfterCommit();
+        return saved;
     }
 
     @Transactional
@@ -89,6 +117,7 @@ public class HeadBankAdminSerivice {
 
         headBank.getBranches().remove(branch);
         headBankRepository.save(headBank);
+        bankHierarchyService.reloadAfterCommit();
     }
 
     // ==================== BRANCH MANAGER MANAGEMENT ====================
@@ -126,6 +155,8 @@ public class HeadBankAdminSerivice {
                 });
 
         branchManager.setIsActive(false);
+        // Tokens already handed out to the manager stop working on every node
+        tokenRevocationService.revokeSubject(RolesType.BRANCHMANAGER, managerId);
         return branchManagerRepository.save(branchManager);
     }
 
@@ -150,6 +181,7 @@ public class HeadBankAdminSerivice {
         loanOffer.setHeadBank(headBank);
 
         loanOffersRepository.save(loanOffer);
+        headBankCatalogService.invalidateLoanOffersAfterCommit(headBank.getId());
     }
 
     @Transactional
@@ -166,6 +198,7 @@ public class HeadBankAdminSerivice {
         existingOffer.setMaxTenureMonths(offerDTO.getMaxTenure());
         existingOffer.setUpdatedAt(LocalDateTime.now());
 
+        headBankCatalogService.invalidateLoanOffersAfterCommit(existingOffer.getHeadBank().getId());
         return loanOffersRepository.save(existingOffer);
     }
 
@@ -180,6 +213,7 @@ public class HeadBankAdminSerivice {
         }
 
         loanOffer.setIsActive(false);
+        headBankCatalogService.invalidateLoanOffersAfterCommit(headBankId);
         return loanOffersRepository.save(loanOffer);
     }
 
@@ -189,18 +223,37 @@ public class HeadBankAdminSerivice {
 
     // ==================== EARNINGS ====================
 
+    // Rolled-up total plus pending earning slots, read from one snapshot
+    @Transactional(readOnly = true)
     public BigDecimal getHeadBankEarning(Long headBankId) {
         HeadBank headBank = headBankRepository.findById(headBankId)
                 .orElseThrow(() -> new BusinessRuleException("Head bank not found with id " + headBankId));
 
-        return headBank.getTotalEarning();
+        return bankEarningsService.getTotalEarning(BankType.HEAD_BANK, headBankId, headBank.getTotalEarning());
     }
 
+    @Transactional(readOnly = true)
     public BigDecimal getBankEarning(Long bankId) {
         Branch branch = branchRepository.findById(bankId)
                 .orElseThrow(() -> new BusinessRuleException("Bank branch not found with id " + bankId));
 
-        return branch.getTotalEarning();
+        return bankEarningsService.getTotalEarning(BankType.BANK_BRANCH, bankId, branch.getTotalEarning());
+    }
+
+    // ==================== TRANSACTIONS ====================
+
+    /**
+     * Keyset-paginated transfers sent from the head bank's branches between startDate and
+     * endDate (inclusive), newest first.
+     */
+    public TransactionPageDTO getTransactionPageByDateRange(Long headBankId, LocalDateTime startDate,
+                                                            LocalDateTime endDate, String cursor, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_TRANSACTION_PAGE_SIZE));
+        KeysetCursor position = keysetCursorCodec.decodeOrDefault(cursor, new KeysetCursor(endDate, Long.MAX_VALUE));
+
+        List<Transaction> rows = transactionRepository.findHeadBankPage(headBankId, startDate,
+                position.date(), position.id(), pageSize + 1);
+        return TransactionPageDTO.of(rows, pageSize, keysetCursorCodec);
     }
 
     // ==================== DEBIT CARD RULES ====================
@@ -208,9 +261,7 @@ public class HeadBankAdminSerivice {
     public List<DebitCardRules> getAllDebitCardRulesByHeadBank(Long headBankId) {
         log.info("Fetching all debit card rules for head bank ID: {}", headBankId);
 
-        HeadBank headBank = headBankRepository.findById(headBankId)
-                .orElseThrow(() -> new ResourceNotFoundException("HeadBank", "id", headBankId));
-
-        return debitCardRulesRepository.findByHeadBankAndIsActive(headBank, true);
+        bankHierarchyService.requireHeadBank(headBankId);
+        return headBankCatalogService.getActiveDebitCardRules(headBankId).items();
     }
 }
\ No newline at end of file
@@ -0,0 +1,106 @@
+package com.banksystem.services;
+
+import com.banksystem.entity.DebitCardRules;
+import com.banksystem.entity.LoanOffers;
+import com.banksystem.repository.DebitCardRulesRepository;
+import com.banksystem.repository.LoanOffersRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Active loan offers and debit card rules of a head bank, cached per head bank.
+ *
+ * Each cached catalog carries an ETag computed from its content, so controllers can
+ * answer conditional GETs with 304. Only the services that change offers or rules
+ * invalidate a head bank's entry, on every node through the CacheInvalidationBus.
+ */
+@Service
+@Slf4j
+public class HeadBankCatalogService {
+
+    public static final String LOAN_OFFERS_CACHE = "headBankLoanOffersCache";
+    public static final String CARD_RULES_CACHE = "headBankCardRulesCache";
+
+    private final LoanOffersRepository loanOffersRepository;
+    private final DebitCardRulesRepository debitCardRulesRepository;
+    private final CacheInvalidationBus cacheInvalidationBus;
+
+    public HeadBankCatalogService(LoanOffersRepository loanOffersRepository,
+                                  DebitCardRulesRepository debitCardRulesRepository,
+                                  CacheInvalidationBus cacheInvalidationBus) {
+        this.loanOffersRepository = loanOffersRepository;
+        this.debitCardRulesRepository = debitCardRulesRepository;
+        this.cacheInvalidationBus = cacheInvalidationBus;
+    }
+
+    @Cacheable(value = LOAN_OFFERS_CACHE, key = "#headBankId")
+    @Transactional(readOnly = true)
+    public Catalog<LoanOffers> getActiveLoanOffers(Long headBankId) {
+        List<LoanOffers> offers = loanOffersRepository.findByHeadBankIdAndIsActiveTrue(headBankId);
+        log.debug("Loaded {} active loan offers for head bank {}", offers.size(), headBankId);
+        return Catalog.of(offers, o -> new Object[]{
+                o.getId(), o.getLoanType(), o.getOfferName(), o.getInterestRate(),
+                o.getMinAmount(), o.getMaxAmount(), o.getMinTenureMonths(), o.getMaxTenureMonths(),
+                o.getEligibilityCriteria(), o.getUpdatedAt()});
+    }
+
+    @Cacheable(value = CARD_RULES_CACHE, key = "#headBankId")
+    @Transactional(readOnly = true)
+    public Catalog<DebitCardRules> getActiveDebitCardRules(Long headBankId) {
+        List<DebitCardRules> rules = debitCardRulesRepository.findByHeadBankIdAndIsActiveTrue(headBankId);
+        log.debug("Loaded {} active debit card rules for head bank {}", rules.size(), headBankId);
+        return Catalog.of(rules, r -> new Object[]{
+                r.getId(), r.getCardType(), r.getDailyWithdrawalLimit(), r.getDailyTransactionLimit(),
+                r.getInternationalUsage(), r.getAnnualFee()});
+    }
+
+    // Evicted after commit, so a concurrent reader cannot cache the pre-commit catalog again
+    public void invalidateLoanOffersAfterCommit(Long headBankId) {
+        cacheInvalidationBus.publish(LOAN_OFFERS_CACHE, headBankId);
+    }
+
+    public void invalidateDebitCardRulesAfterCommit(Long headBankId) {
+        cacheInvalidationBus.publish(CARD_RULES_CACHE, headBankId);
+    }
+
+    /**
+     * Immutable catalog of detached entities with a strong ETag over their content.
+     * The entities are shared between requests and must not be modified.
+     */
+    public record Catalog<T>(List<T> items, String etag) {
+
+        public Optional<T> find(Predicate<T> filter) {
+            return items.stream().filter(filter).findFirst();
+        }
+
+        static <T> Catalog<T> of(List<T> items, Function<T, Object[]> fields) {
+            MessageDigest digest = sha256();
+            for (T item : items) {
+                digest.update(Arrays.toString(fields.apply(item)).getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) '\n');
+            }
+            String etag = "\"" + HexFormat.of().formatHex(digest.digest(), 0, 16) + "\"";
+            return new Catalog<>(List.copyOf(items), etag);
+        }
+
+        private static MessageDigest sha256() {
+            try {
+                return MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 not available", e);
+            }
+        }
+    }
+}
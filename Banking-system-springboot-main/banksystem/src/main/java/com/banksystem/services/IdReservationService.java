@@ -0,0 +1,37 @@
+package com.banksystem.services;
+
+import com.banksystem.entity.IdReservation;
+import com.banksystem.repository.IdReservationRepository;
+import com.banksystem.util.SnowflakeIdGenerator;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * id_reservation backed store for SnowflakeIdGenerator. Reservations commit on their
+ * own, so a caller that rolls back cannot take back a reservation another thread
+ * already issued numbers under.
+ */
+@Service
+public class IdReservationService implements SnowflakeIdGenerator.ReservationStore {
+
+    private final IdReservationRepository idReservationRepository;
+
+    public IdReservationService(IdReservationRepository idReservationRepository) {
+        this.idReservationRepository = idReservationRepository;
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public long load(String name) {
+        return idReservationRepository.findById(name)
+                .map(IdReservation::getReservedUntil)
+                .orElse(0L);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void raise(String name, long reservedUntil) {
+        idReservationRepository.raise(name, reservedUntil);
+    }
+}
@@ -0,0 +1,247 @@
+package com.banksystem.services;
+
+import com.banksystem.dto.TransactionDto;
+import com.banksystem.entity.IdempotencyKey;
+import com.banksystem.entity.Transaction;
+import com.banksystem.exception.BusinessRuleException;
+import com.banksystem.exception.IdempotencyConflictException;
+import com.banksystem.repository.IdempotencyKeyRepository;
+import com.banksystem.repository.TransactionRepository;
+import com.banksystem.util.SecurityUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Makes transfers safe to retry with an Idempotency-Key header.
+ *
+ * The idempotency_key table is the source of truth: the key is inserted inside the
+ * transfer's own transaction, so a duplicate is caught by the primary key rather
+ * than by a read-then-write check. A bounded in-memory LRU with TTL sits in front
+ * of it, so a repeated request on this node is answered without touching the
+ * database or the account locks, and a first-seen key costs no extra round trip.
+ *
+ * Keys are scoped to the authenticated user and bound to the request body: another
+ * user's identical key is a different key, and reusing a key with a different body
+ * fails with IdempotencyConflictException (422) instead of returning the original.
+ */
+@Service
+@Slf4j
+public class IdempotencyService {
+
+    public static final int MAX_KEY_LENGTH = 100;
+
+    private static final int MYSQL_DUPLICATE_ENTRY = 1062;
+
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final TransactionRepository transactionRepository;
+    private final long ttlMillis;
+    private final FrontCache frontCache;
+
+    public IdempotencyService(IdempotencyKeyRepository idempotencyKeyRepository,
+                              TransactionRepository transactionRepository,
+                              @Value("${app.idempotency.ttl-minutes:1440}") long ttlMinutes,
+                              @Value("${app.idempotency.cache-size:10000}") int cacheSize) {
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.transactionRepository = transactionRepository;
+        this.ttlMillis = ttlMinutes * 60_000L;
+        this.frontCache = new FrontCache(cacheSize);
+    }
+
+    /**
+     * Scopes the client key to the current user and fingerprints the request.
+     * Returns null when the request carries no key.
+     */
+    public Claim claim(String key, TransactionDto request) {
+        if (key == null || key.isBlank()) {
+            return null;
+        }
+        if (key.length() > MAX_KEY_LENGTH) {
+            throw new BusinessRuleException("Idempotency-Key must be at most " + MAX_KEY_LENGTH + " characters");
+        }
+        String principal = SecurityUtils.getCurrentUsername();
+        return new Claim(sha256Hex(principal + "\n" + key), principal, requestHash(request));
+    }
+
+    /**
+     * Runs the transfer once per claim. The transfer must reserve and complete the claim
+     * in its own transaction (see TransactionService.makeTransaction(TransactionDto, Claim)).
+     */
+    public Transaction execute(Claim claim, Supplier<Transaction> transfer) {
+        Transaction cached = frontCache.get(claim, System.currentTimeMillis());
+        if (cached != null) {
+            log.info("Idempotent replay of {} served from cache", cached.getTransactionReference());
+            return cached;
+        }
+
+        try {
+            return transfer.get();
+        } catch (DataIntegrityViolationException e) {
+            if (!isDuplicateKey(e)) {
+                // NOT NULL, length, foreign key...: a real bug, not a replay
+                throw e;
+            }
+            // The key is already stored: an earlier or concurrent request with it committed first
+            Transaction original = findCompleted(claim);
+            if (original == null) {
+                throw new BusinessRuleException("A request with this Idempotency-Key is already being processed");
+            }
+            log.info("Idempotent replay of {} served from database", original.getTransactionReference());
+            return original;
+        }
+    }
+
+    // MySQL reports every integrity violation as SQLState 23000; only error 1062 is a duplicate key
+    static boolean isDuplicateKey(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof DuplicateKeyException) {
+                return true;
+            }
+            if (cause instanceof SQLException sql
+                    && (sql.getErrorCode() == MYSQL_DUPLICATE_ENTRY || "23505".equals(sql.getSQLState()))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Claims the key inside the caller's transaction. Must run before the accounts are locked.
+     */
+    public void reserve(Claim claim) {
+        idempotencyKeyRepository.insertKey(claim.storageKey(), claim.principal(), claim.requestHash(),
+                LocalDateTime.now());
+    }
+
+    /**
+     * Links the claimed key to its transfer and publishes it to the front cache after commit.
+     */
+    public void complete(Claim claim, Transaction transaction) {
+        idempotencyKeyRepository.attachTransaction(claim.storageKey(), transaction.getId());
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    frontCache.put(claim, transaction, System.currentTimeMillis() + ttlMillis);
+                }
+            });
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public Transaction findCompleted(Claim claim) {
+        IdempotencyKey stored = idempotencyKeyRepository.findById(claim.storageKey()).orElse(null);
+        if (stored == null) {
+            return null;
+        }
+        if (!claim.requestHash().equals(stored.getRequestHash())) {
+            throw conflict();
+        }
+        Transaction transaction = stored.getTransactionId() == null ? null
+                : transactionRepository.findById(stored.getTransactionId()).orElse(null);
+        if (transaction != null) {
+            frontCache.put(claim, transaction, System.currentTimeMillis() + ttlMillis);
+        }
+        return transaction;
+    }
+
+    @Scheduled(fixedDelayString = "${app.idempotency.purge-interval-ms:3600000}")
+    @Transactional
+    public void purgeExpired() {
+        int removed = idempotencyKeyRepository.deleteOlderThan(LocalDateTime.now().minus(Duration.ofMillis(ttlMillis)));
+        if (removed > 0) {
+            log.info("Purged {} expired idempotency keys", removed);
+        }
+    }
+
+    private static IdempotencyConflictException conflict() {
+        return new IdempotencyConflictException("Idempotency-Key was already used with a different request");
+    }
+
+    // Every field that changes what the transfer does; amounts compare by value (10 == 10.00)
+    static String requestHash(TransactionDto request) {
+        String amount = request.getAmount() == null ? "" : request.getAmount().stripTrailingZeros().toPlainString();
+        return sha256Hex(String.join("\n",
+                String.valueOf(request.getSenderAccountNumber()),
+                String.valueOf(request.getReceiverAccountNumber()),
+                amount,
+                String.valueOf(request.getTransactionType()),
+                String.valueOf(request.getBankType()),
+                String.valueOf(request.getBankId()),
+                String.valueOf(request.getAccountHolderType()),
+                String.valueOf(request.getDescription())));
+    }
+
+    private static String sha256Hex(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * A per-user idempotency key: storageKey is the digest of principal and client key,
+     * requestHash the fingerprint of the request body.
+     */
+    public record Claim(String storageKey, String principal, String requestHash) {
+    }
+
+    // ==================== FRONT CACHE ====================
+
+    /**
+     * Access-ordered LRU bounded to maxEntries; entries also expire after the TTL.
+     */
+    private static final class FrontCache {
+        private final Map<String, Entry> entries;
+
+        FrontCache(int maxEntries) {
+            this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                    return size() > maxEntries;
+                }
+            };
+        }
+
+        synchronized Transaction get(Claim claim, long now) {
+            Entry entry = entries.get(claim.storageKey());
+            if (entry == null) {
+                return null;
+            }
+            if (entry.expiresAt < now) {
+                entries.remove(claim.storageKey());
+                return null;
+            }
+            if (!entry.requestHash.equals(claim.requestHash())) {
+                throw conflict();
+            }
+            return entry.transaction;
+        }
+
+        synchronized void put(Claim claim, Transaction transaction, long expiresAt) {
+            entries.put(claim.storageKey(), new Entry(transaction, claim.requestHash(), expiresAt));
+        }
+
+        private record Entry(Transaction transaction, String requestHash, long expiresAt) {
+        }
+    }
+}
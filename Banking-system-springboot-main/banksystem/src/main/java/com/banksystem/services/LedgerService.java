@@ -0,0 +1,234 @@
+package com.banksystem.services;
+
+import com.banksystem.entity.Account;
+import com.banksystem.entity.Charges;
+import com.banksystem.entity.IdReservation;
+import com.banksystem.entity.LedgerEntry;
+import com.banksystem.entity.LedgerSnapshot;
+import com.banksystem.entity.Transaction;
+import com.banksystem.enums.EntryDirection;
+import com.banksystem.enums.LedgerEntryType;
+import com.banksystem.enums.LedgerOwnerType;
+import com.banksystem.exception.BusinessRuleException;
+import com.banksystem.repository.IdReservationRepository;
+import com.banksystem.repository.LedgerEntryRepository;
+import com.banksystem.repository.LedgerSnapshotRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Append-only double-entry journal of every balance movement.
+ *
+ * A transfer posts a DEBIT of the full amount on the sender, a CREDIT of the net
+ * amount on the receiver and a CREDIT per fee on the bank that earned it, so the
+ * legs of one transaction always balance. The hot path only inserts; balances at a
+ * point in time are read from the latest LedgerSnapshot plus the legs it does not cover.
+ *
+ * Snapshots are cut by commit sequence, not by wall time: sequenceCommitted stamps
+ * the legs that have become visible with the next commit_seq, one stamping at a time
+ * across all nodes, so a posting that commits late gets a later number instead of
+ * falling behind a snapshot that already passed its created_at.
+ */
+@Service
+@Slf4j
+public class LedgerService {
+
+    // id_reservation row holding the last commit sequence handed out; its row lock serialises stamping
+    static final String COMMIT_SEQ = "ledger:commit-seq";
+
+    private final LedgerEntryRepository ledgerEntryRepository;
+    private final LedgerSnapshotRepository ledgerSnapshotRepository;
+    private final IdReservationRepository idReservationRepository;
+
+    public LedgerService(LedgerEntryRepository ledgerEntryRepository,
+                         LedgerSnapshotRepository ledgerSnapshotRepository,
+                         IdReservationRepository idReservationRepository) {
+        this.ledgerEntryRepository = ledgerEntryRepository;
+        this.ledgerSnapshotRepository = ledgerSnapshotRepository;
+        this.idReservationRepository = idReservationRepository;
+    }
+
+    // ==================== POSTING ====================
+
+    /**
+     * Posts the legs of already saved transactions (with their charges attached) in one saveAll.
+     */
+    public void recordTransfers(List<Transaction> transactions) {
+        if (transactions.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        List<LedgerEntry> entries = new ArrayList<>(transactions.size() * 4);
+
+        for (Transaction transaction : transactions) {
+            Long transactionId = transaction.getId();
+            entries.add(entry(transactionId, LedgerOwnerType.ACCOUNT, transaction.getFromAccount().getId(),
+                    EntryDirection.DEBIT, transaction.getAmount(), LedgerEntryType.TRANSFER,
+                    transaction.getTransactionReference(), now));
+            entries.add(entry(transactionId, LedgerOwnerType.ACCOUNT, transaction.getToAccount().getId(),
+                    EntryDirection.CREDIT, transaction.getNetAmount(), LedgerEntryType.TRANSFER,
+                    transaction.getTransactionReference(), now));
+
+            for (Charges charge : transaction.getCharges()) {
+                entries.add(entry(transactionId, ownerTypeOf(charge), charge.getBankId(),
+                        EntryDirection.CREDIT, BigDecimal.valueOf(charge.getChargedAmount()), LedgerEntryType.FEE,
+                        charge.getFeeName(), now));
+            }
+        }
+
+        ledgerEntryRepository.saveAll(entries);
+        log.debug("Posted {} ledger entries for {} transactions", entries.size(), transactions.size());
+    }
+
+    /**
+     * Loan principal moves from the branch to the new loan account.
+     */
+    public void recordLoanDisbursement(Account loanAccount, Long branchId, BigDecimal amount) {
+        LocalDateTime now = LocalDateTime.now();
+        String description = "Loan disbursement " + loanAccount.getAccountNumber();
+        ledgerEntryRepository.saveAll(List.of(
+                entry(null, LedgerOwnerType.BANK_BRANCH, branchId, EntryDirection.DEBIT,
+                        amount, LedgerEntryType.LOAN_DISBURSEMENT, description, now),
+                entry(null, LedgerOwnerType.ACCOUNT, loanAccount.getId(), EntryDirection.CREDIT,
+                        amount, LedgerEntryType.LOAN_DISBURSEMENT, description, now)));
+    }
+
+    // ==================== COMMIT SEQUENCE ====================
+
+    /**
+     * Stamps up to {@code limit} committed, unsequenced legs with the next commit
+     * sequence. Runs under the row lock of the sequence, so once this commits no leg
+     * can ever be stamped with a number at or below the one returned.
+     */
+    @Transactional
+    public CommitBatch sequenceCommitted(int limit) {
+        idReservationRepository.raise(COMMIT_SEQ, 0);
+        IdReservation sequence = idReservationRepository.findByNameForUpdate(COMMIT_SEQ)
+                .orElseThrow(() -> new IllegalStateException("Missing id_reservation row " + COMMIT_SEQ));
+
+        long next = sequence.getReservedUntil() + 1;
+        int stamped = ledgerEntryRepository.stampCommitSeq(next, limit);
+        if (stamped == 0) {
+            return new CommitBatch(next - 1, 0);
+        }
+        sequence.setReservedUntil(next);
+        return new CommitBatch(next, stamped);
+    }
+
+    @Transactional(readOnly = true)
+    public long currentCommitSeq() {
+        return idReservationRepository.findById(COMMIT_SEQ)
+                .map(IdReservation::getReservedUntil)
+                .orElse(0L);
+    }
+
+    /**
+     * Owners with legs sequenced in (fromSeq, toSeq] that gathered at least
+     * {@code threshold} sequenced legs since their latest snapshot.
+     */
+    @Transactional(readOnly = true)
+    public List<Owner> findOwnersDueForSnapshot(long fromSeq, long toSeq, long threshold) {
+        List<Owner> owners = new ArrayList<>();
+        for (Object[] row : ledgerEntryRepository.findOwnersDueForSnapshot(fromSeq, toSeq, threshold)) {
+            owners.add(new Owner(LedgerOwnerType.valueOf((String) row[0]), ((Number) row[1]).longValue()));
+        }
+        return owners;
+    }
+
+    // ==================== BALANCES ====================
+
+    /**
+     * Balance of an owner covering every entry created before {@code at}: the latest
+     * snapshot at or before that moment plus the legs created before {@code at} that
+     * it does not cover.
+     */
+    @Transactional(readOnly = true)
+    public BigDecimal getBalanceAt(LedgerOwnerType ownerType, Long ownerId, LocalDateTime at) {
+        Optional<LedgerSnapshot> snapshot = ledgerSnapshotRepository
+                .findTopByOwnerTypeAndOwnerIdAndAsOfLessThanEqualOrderByAsOfDesc(ownerType, ownerId, at);
+
+        BigDecimal base = snapshot.map(LedgerSnapshot::getBalance).orElse(BigDecimal.ZERO);
+        long coveredSeq = snapshot.map(LedgerSnapshot::getCoveredSeq).orElse(0L);
+
+        return base.add(ledgerEntryRepository.sumSignedNotCovered(ownerType, ownerId, coveredSeq, at));
+    }
+
+    /**
+     * Writes a snapshot of the owner's balance covering its legs up to {@code coveredSeq},
+     * built from the previous snapshot plus the legs sequenced since. asOf is later than
+     * every covered leg's created_at and never earlier than the previous snapshot's.
+     */
+    @Transactional
+    public LedgerSnapshot takeSnapshot(LedgerOwnerType ownerType, Long ownerId, long coveredSeq) {
+        Optional<LedgerSnapshot> previous = ledgerSnapshotRepository
+                .findTopByOwnerTypeAndOwnerIdOrderByCoveredSeqDescAsOfDesc(ownerType, ownerId);
+        if (previous.isPresent() && previous.get().getCoveredSeq() >= coveredSeq) {
+            // Another node got there first
+            return previous.get();
+        }
+
+        long fromSeq = previous.map(LedgerSnapshot::getCoveredSeq).orElse(0L);
+        BigDecimal balance = previous.map(LedgerSnapshot::getBalance).orElse(BigDecimal.ZERO)
+                .add(ledgerEntryRepository.sumSignedSequenced(ownerType, ownerId, fromSeq, coveredSeq));
+
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime asOf = now;
+        LocalDateTime lastCreated = ledgerEntryRepository.maxCreatedAtSequenced(ownerType, ownerId, fromSeq, coveredSeq);
+        if (lastCreated != null && !lastCreated.isBefore(asOf)) {
+            // Clocks of other nodes may run ahead; a covered leg must be strictly before asOf
+            asOf = lastCreated.plusNanos(1_000);
+        }
+        if (previous.isPresent() && previous.get().getAsOf().isAfter(asOf)) {
+            asOf = previous.get().getAsOf();
+        }
+
+        LedgerSnapshot snapshot = new LedgerSnapshot();
+        snapshot.setOwnerType(ownerType);
+        snapshot.setOwnerId(ownerId);
+        snapshot.setAsOf(asOf);
+        snapshot.setCoveredSeq(coveredSeq);
+        snapshot.setBalance(balance);
+        snapshot.setCreatedAt(now);
+        return ledgerSnapshotRepository.save(snapshot);
+    }
+
+    // Highest commit sequence after a stamping, and how many legs it stamped
+    public record CommitBatch(long seq, int stamped) {
+    }
+
+    public record Owner(LedgerOwnerType ownerType, Long ownerId) {
+    }
+
+    // ==================== HELPERS ====================
+
+    private LedgerOwnerType ownerTypeOf(Charges charge) {
+        return switch (charge.getBankType()) {
+            case CENTRAL_BANK -> LedgerOwnerType.CENTRAL_BANK;
+            case HEAD_BANK -> LedgerOwnerType.HEAD_BANK;
+            case BANK_BRANCH -> LedgerOwnerType.BANK_BRANCH;
+            default -> throw new BusinessRuleException("Unknown bank type: " + charge.getBankType());
+        };
+    }
+
+    private LedgerEntry entry(Long transactionId, LedgerOwnerType ownerType, Long ownerId,
+                              EntryDirection direction, BigDecimal amount, LedgerEntryType entryType,
+                              String description, LocalDateTime createdAt) {
+        LedgerEntry entry = new LedgerEntry();
+        entry.setTransactionId(transactionId);
+        entry.setOwnerType(ownerType);
+        entry.setOwnerId(ownerId);
+        entry.setDirection(direction);
+        entry.setAmount(amount);
+        entry.setEntryType(entryType);
+        entry.setDescription(description);
+        entry.setCreatedAt(createdAt);
+        return entry;
+    }
+}
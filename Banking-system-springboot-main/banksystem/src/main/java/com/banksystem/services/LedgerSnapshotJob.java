@@ -0,0 +1,70 @@
+package com.banksystem.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Sequences newly committed ledger legs and takes a ledger snapshot for every owner
+ * that gathered snapshot-every sequenced legs since its last one, so a point-in-time
+ * balance never scans more than about that many legs.
+ *
+ * Snapshots cover legs by commit sequence, so a posting whose commit was slow is
+ * simply sequenced on a later run; nothing is cut off by wall time. The per-owner
+ * counts are read from the database, so any node can run the job and a restart
+ * loses nothing.
+ */
+@Component
+@Slf4j
+public class LedgerSnapshotJob {
+
+    private final LedgerService ledgerService;
+    private final long snapshotEvery;
+    private final int sequenceBatchSize;
+
+    // Highest sequence this node has looked at; only narrows which owners are checked
+    private long lastSeq = -1;
+
+    public LedgerSnapshotJob(LedgerService ledgerService,
+                             @Value("${app.ledger.snapshot-every:500}") long snapshotEvery,
+                             @Value("${app.ledger.sequence-batch-size:5000}") int sequenceBatchSize) {
+        this.ledgerService = ledgerService;
+        this.snapshotEvery = snapshotEvery;
+        this.sequenceBatchSize = sequenceBatchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${app.ledger.snapshot-interval-ms:60000}")
+    public void snapshotBusyOwners() {
+        if (lastSeq < 0) {
+            lastSeq = ledgerService.currentCommitSeq();
+        }
+
+        // Short stampings, each in its own transaction, until the backlog is drained
+        LedgerService.CommitBatch batch;
+        do {
+            batch = ledgerService.sequenceCommitted(sequenceBatchSize);
+        } while (batch.stamped() == sequenceBatchSize);
+
+        long toSeq = batch.seq();
+        if (toSeq <= lastSeq) {
+            return;
+        }
+
+        int taken = 0;
+        for (LedgerService.Owner owner : ledgerService.findOwnersDueForSnapshot(lastSeq, toSeq, snapshotEvery)) {
+            try {
+                ledgerService.takeSnapshot(owner.ownerType(), owner.ownerId(), toSeq);
+                taken++;
+            } catch (Exception e) {
+                // The legs stay uncovered and are counted again when the owner is next active
+                log.warn("Ledger snapshot failed for {} {}: {}", owner.ownerType(), owner.ownerId(), e.getMessage());
+            }
+        }
+        lastSeq = toSeq;
+
+        if (taken > 0) {
+            log.info("Took {} ledger snapshots at commit sequence {}", taken, toSeq);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.banksystem.services;
+
+import com.banksystem.enums.RequestStatus;
+import com.banksystem.exception.ResourceNotFoundException;
+import com.banksystem.repository.BranchRepository;
+import com.banksystem.repository.LoanApplicationRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Per-branch loan application statistics from one grouped query, cached per branch.
+ * Services that change a branch's applications call invalidateAfterCommit, which
+ * evicts the entry on every node through the CacheInvalidationBus.
+ */
+@Service
+@Slf4j
+public class LoanStatisticsService {
+
+    public static final String CACHE_NAME = "branchLoanStatsCache";
+
+    private final LoanApplicationRepository loanApplicationRepository;
+    private final BranchRepository branchRepository;
+    private final CacheInvalidationBus cacheInvalidationBus;
+
+    public LoanStatisticsService(LoanApplicationRepository loanApplicationRepository,
+                                 BranchRepository branchRepository,
+                                 CacheInvalidationBus cacheInvalidationBus) {
+        this.loanApplicationRepository = loanApplicationRepository;
+        this.branchRepository = branchRepository;
+        this.cacheInvalidationBus = cacheInvalidationBus;
+    }
+
+    @Cacheable(value = CACHE_NAME, key = "#branchId")
+    @Transactional(readOnly = true)
+    public Map<String, Object> getBranchLoanStatistics(Long branchId) {
+        if (!branchRepository.existsById(branchId)) {
+            throw new ResourceNotFoundException("Branch", "id", branchId);
+        }
+
+        Map<RequestStatus, Long> counts = new EnumMap<>(RequestStatus.class);
+        long totalApplications = 0;
+        BigDecimal totalLoanAmount = BigDecimal.ZERO;
+        for (Object[] row : loanApplicationRepository.summarizeByStatusForBranch(branchId)) {
+            long count = ((Number) row[1]).longValue();
+            counts.put((RequestStatus) row[0], count);
+            totalApplications += count;
+            if (row[2] != null) {
+                totalLoanAmount = totalLoanAmount.add((BigDecimal) row[2]);
+            }
+        }
+        log.debug("Loan statistics computed for branch {}", branchId);
+
+        return Map.of(
+                "branchId", branchId,
+                "totalLoanApplications", totalApplications,
+                "pendingLoans", counts.getOrDefault(RequestStatus.PENDING, 0L),
+                "approvedLoans", counts.getOrDefault(RequestStatus.APPROVED, 0L),
+                "rejectedLoans", counts.getOrDefault(RequestStatus.REJECTED, 0L),
+                "totalLoanAmount", totalLoanAmount
+        );
+    }
+
+    /**
+     * Drops the branch's cached statistics once the current transaction commits, so a
+     * concurrent reader cannot put the pre-commit numbers back. Other nodes follow on their next poll.
+     */
+    public void invalidateAfterCommit(Long branchId) {
+        cacheInvalidationBus.publish(CACHE_NAME, branchId);
+    }
+}
@@ -0,0 +1,122 @@
+package com.banksystem.services;
+
+import com.banksystem.dto.PendingSummaryDTO;
+import com.banksystem.enums.PendingRequestType;
+import com.banksystem.enums.RequestStatus;
+import com.banksystem.repository.AccountRequestRepository;
+import com.banksystem.repository.CardRequestRepository;
+import com.banksystem.repository.ChequeBookRequestRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * In-memory pending account, card and cheque book request counts per branch,
+ * so the teller dashboard answers without a query.
+ *
+ * Counts are seeded from COUNT(*) at startup and moved by the services that
+ * create, approve or reject requests once their transaction commits. A periodic
+ * re-seed also picks up requests handled by other nodes.
+ */
+@Component
+@Slf4j
+public class PendingRequestCounters {
+
+    private static final int TYPES = PendingRequestType.values().length;
+
+    private final AccountRequestRepository accountRequestRepository;
+    private final CardRequestRepository cardRequestRepository;
+    private final ChequeBookRequestRepository chequeBookRequestRepository;
+
+    private volatile Map<Long, AtomicLongArray> counters = new ConcurrentHashMap<>();
+
+    public PendingRequestCounters(AccountRequestRepository accountRequestRepository,
+                                  CardRequestRepository cardRequestRepository,
+                                  ChequeBookRequestRepository chequeBookRequestRepository) {
+        this.accountRequestRepository = accountRequestRepository;
+        this.cardRequestRepository = cardRequestRepository;
+        this.chequeBookRequestRepository = chequeBookRequestRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        reseed();
+    }
+
+    /**
+     * Rebuilds all counters from the database and swaps them in at once.
+     */
+    @Scheduled(initialDelayString = "${app.pending-requests.resync-interval-ms:300000}",
+            fixedDelayString = "${app.pending-requests.resync-interval-ms:300000}")
+    public void reseed() {
+        Map<Long, AtomicLongArray> fresh = new ConcurrentHashMap<>();
+        load(fresh, PendingRequestType.ACCOUNT, accountRequestRepository.countByBranchAndStatus(RequestStatus.PENDING));
+        load(fresh, PendingRequestType.CARD, cardRequestRepository.countByBranchAndStatus(RequestStatus.PENDING));
+        load(fresh, PendingRequestType.CHEQUE_BOOK, chequeBookRequestRepository.countByBranchAndStatus(RequestStatus.PENDING));
+        counters = fresh;
+        log.info("Pending request counters seeded for {} branches", fresh.size());
+    }
+
+    // A new pending request of the branch, counted once the transaction commits
+    public void requestCreated(Long branchId, PendingRequestType type) {
+        afterCommit(branchId, type, 1);
+    }
+
+    // A pending request of the branch was approved, issued or rejected
+    public void requestProcessed(Long branchId, PendingRequestType type) {
+        afterCommit(branchId, type, -1);
+    }
+
+    public PendingSummaryDTO getSummary(Long branchId) {
+        AtomicLongArray branch = counters.get(branchId);
+        if (branch == null) {
+            return new PendingSummaryDTO(0, 0, 0);
+        }
+        return new PendingSummaryDTO(
+                count(branch, PendingRequestType.ACCOUNT),
+                count(branch, PendingRequestType.CARD),
+                count(branch, PendingRequestType.CHEQUE_BOOK));
+    }
+
+    private void afterCommit(Long branchId, PendingRequestType type, int delta) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    add(branchId, type, delta);
+                }
+            });
+        } else {
+            add(branchId, type, delta);
+        }
+    }
+
+    private void add(Long branchId, PendingRequestType type, int delta) {
+        counters.computeIfAbsent(branchId, k -> new AtomicLongArray(TYPES))
+                .addAndGet(type.ordinal(), delta);
+    }
+
+    private static void load(Map<Long, AtomicLongArray> target, PendingRequestType type, List<Object[]> rows) {
+        for (Object[] row : rows) {
+            if (row[0] == null) {
+                continue;
+            }
+            target.computeIfAbsent((Long) row[0], k -> new AtomicLongArray(TYPES))
+                    .set(type.ordinal(), ((Number) row[1]).longValue());
+        }
+    }
+
+    // Never negative, even if an update raced with a re-seed
+    private static int count(AtomicLongArray branch, PendingRequestType type) {
+        return (int) Math.max(0, branch.get(type.ordinal()));
+    }
+}
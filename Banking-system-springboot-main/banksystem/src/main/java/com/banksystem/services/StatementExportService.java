@@ -0,0 +1,275 @@
+package com.banksystem.services;
+
+import com.banksystem.dto.StatementRow;
+import com.banksystem.enums.ExportFormat;
+import com.banksystem.repository.TransactionRepository;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Writes statements to the response in transaction order, a page at a time.
+ *
+ * A statement has two sides (sent and received), each read in keyset pages straight
+ * off its own (owner, transaction_date, id) index and merged here, so the first row
+ * goes out without the database sorting the whole range and heap use is bounded by
+ * two pages whatever the size of the export. The methods are called from a
+ * StreamingResponseBody and open their own read-only transaction, so every page is
+ * read from the same snapshot.
+ */
+@Service
+@Slf4j
+public class StatementExportService {
+
+    private static final String CSV_HEADER = "transaction_reference,transaction_date,from_account,to_account," +
+            "transaction_type,amount,total_charges,net_amount,status,description";
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final TransactionRepository transactionRepository;
+    private final int pageSize;
+
+    public StatementExportService(TransactionRepository transactionRepository,
+                                  @Value("${app.export.page-size:1000}") int pageSize) {
+        this.transactionRepository = transactionRepository;
+        this.pageSize = pageSize;
+    }
+
+    public static String contentType(ExportFormat format) {
+        return format == ExportFormat.NDJSON ? "application/x-ndjson" : "text/csv";
+    }
+
+    public static String fileName(String prefix, ExportFormat format) {
+        return prefix + (format == ExportFormat.NDJSON ? ".ndjson" : ".csv");
+    }
+
+    @Transactional(readOnly = true)
+    public void writeAccountStatement(Long accountId, LocalDateTime startDate, LocalDateTime endDate,
+                                      ExportFormat format, OutputStream out) throws IOException {
+        Iterator<StatementRow> rows = new MergedPages(startDate,
+                (afterDate, afterId, limit) -> transactionRepository.findAccountSentRows(accountId, afterDate, afterId, endDate, limit),
+                (afterDate, afterId, limit) -> transactionRepository.findAccountReceivedRows(accountId, afterDate, afterId, endDate, limit));
+        long count = write(rows, format, out);
+        log.info("Exported {} statement rows for account {}", count, accountId);
+    }
+
+    @Transactional(readOnly = true)
+    public void writeBranchStatement(Long branchId, LocalDateTime startDate, LocalDateTime endDate,
+                                     ExportFormat format, OutputStream out) throws IOException {
+        Iterator<StatementRow> rows = new MergedPages(startDate,
+                (afterDate, afterId, limit) -> transactionRepository.findBranchSentRows(branchId, afterDate, afterId, endDate, limit),
+                (afterDate, afterId, limit) -> transactionRepository.findBranchReceivedRows(branchId, afterDate, afterId, endDate, limit));
+        long count = write(rows, format, out);
+        log.info("Exported {} statement rows for branch {}", count, branchId);
+    }
+
+    private long write(Iterator<StatementRow> iterator, ExportFormat format, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        long count = 0;
+
+        if (format == ExportFormat.NDJSON) {
+            JsonGenerator json = JSON_FACTORY.createGenerator(writer);
+            json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            while (iterator.hasNext()) {
+                writeJson(json, iterator.next());
+                json.writeRaw('\n');
+                count++;
+            }
+            json.flush();
+        } else {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+            while (iterator.hasNext()) {
+                writeCsv(writer, iterator.next());
+                count++;
+            }
+        }
+
+        writer.flush();
+        return count;
+    }
+
+    private void writeJson(JsonGenerator json, StatementRow row) throws IOException {
+        json.writeStartObject();
+        json.writeStringField("transactionReference", row.getTransactionReference());
+        json.writeStringField("transactionDate", toText(row.getTransactionDate()));
+        json.writeStringField("fromAccount", row.getFromAccountNumber());
+        json.writeStringField("toAccount", row.getToAccountNumber());
+        json.writeStringField("transactionType", row.getTransactionType());
+        writeNumber(json, "amount", row.getAmount());
+        writeNumber(json, "totalCharges", row.getTotalCharges());
+        writeNumber(json, "netAmount", row.getNetAmount());
+        json.writeStringField("status", row.getStatus());
+        json.writeStringField("description", row.getDescription());
+        json.writeEndObject();
+    }
+
+    private void writeNumber(JsonGenerator json, String field, BigDecimal value) throws IOException {
+        if (value == null) {
+            json.writeNullField(field);
+        } else {
+            json.writeNumberField(field, value);
+        }
+    }
+
+    private void writeCsv(Writer writer, StatementRow row) throws IOException {
+        writeCsvField(writer, row.getTransactionReference());
+        writer.write(',');
+        writeCsvField(writer, toText(row.getTransactionDate()));
+        writer.write(',');
+        writeCsvField(writer, row.getFromAccountNumber());
+        writer.write(',');
+        writeCsvField(writer, row.getToAccountNumber());
+        writer.write(',');
+        writeCsvField(writer, row.getTransactionType());
+        writer.write(',');
+        writeCsvNumber(writer, row.getAmount());
+        writer.write(',');
+        writeCsvNumber(writer, row.getTotalCharges());
+        writer.write(',');
+        writeCsvNumber(writer, row.getNetAmount());
+        writer.write(',');
+        writeCsvField(writer, row.getStatus());
+        writer.write(',');
+        writeCsvField(writer, row.getDescription());
+        writer.write('\n');
+    }
+
+    private void writeCsvNumber(Writer writer, BigDecimal value) throws IOException {
+        if (value != null) {
+            writer.write(value.toPlainString());
+        }
+    }
+
+    // RFC 4180 quoting, only when the value needs it. Text a spreadsheet would read as a
+    // formula (=, +, -, @, tab, CR) is prefixed with ' so it is shown, never evaluated.
+    private void writeCsvField(Writer writer, String value) throws IOException {
+        if (value == null || value.isEmpty()) {
+            return;
+        }
+        boolean formula = isFormulaTrigger(value.charAt(0));
+        boolean quote = formula;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        if (formula) {
+            writer.write('\'');
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                writer.write('"');
+            }
+            writer.write(c);
+        }
+        writer.write('"');
+    }
+
+    private static boolean isFormulaTrigger(char c) {
+        return c == '=' || c == '+' || c == '-' || c == '@' || c == '\t' || c == '\r';
+    }
+
+    private String toText(Object value) {
+        return value == null ? null : value.toString();
+    }
+
+    // ==================== PAGE MERGE ====================
+
+    @FunctionalInterface
+    interface PageSource {
+        List<StatementRow> next(LocalDateTime afterDate, Long afterId, int limit);
+    }
+
+    /**
+     * Merges the two sides of a statement by (transaction_date, id). A transfer never
+     * appears on both sides, so no row is returned twice.
+     */
+    private final class MergedPages implements Iterator<StatementRow> {
+        private final Side first;
+        private final Side second;
+
+        MergedPages(LocalDateTime startDate, PageSource first, PageSource second) {
+            this.first = new Side(startDate, first);
+            this.second = new Side(startDate, second);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return first.peek() != null || second.peek() != null;
+        }
+
+        @Override
+        public StatementRow next() {
+            StatementRow a = first.peek();
+            StatementRow b = second.peek();
+            if (a == null && b == null) {
+                throw new NoSuchElementException();
+            }
+            if (b == null || (a != null && compare(a, b) <= 0)) {
+                return first.take();
+            }
+            return second.take();
+        }
+
+        private int compare(StatementRow a, StatementRow b) {
+            int byDate = a.getTransactionDate().compareTo(b.getTransactionDate());
+            return byDate != 0 ? byDate : Long.compare(a.getId(), b.getId());
+        }
+    }
+
+    private final class Side {
+        private final PageSource source;
+        private LocalDateTime afterDate;
+        // Ids are positive, so (startDate, 0) starts at the first row on or after startDate
+        private Long afterId = 0L;
+        private List<StatementRow> page = List.of();
+        private int position;
+        private boolean exhausted;
+
+        Side(LocalDateTime startDate, PageSource source) {
+            this.afterDate = startDate;
+            this.source = source;
+        }
+
+        StatementRow peek() {
+            if (position == page.size()) {
+                if (exhausted) {
+                    return null;
+                }
+                page = source.next(afterDate, afterId, pageSize);
+                position = 0;
+                exhausted = page.size() < pageSize;
+                if (page.isEmpty()) {
+                    return null;
+                }
+                StatementRow last = page.get(page.size() - 1);
+                afterDate = last.getTransactionDate();
+                afterId = last.getId();
+            }
+            return page.get(position);
+        }
+
+        StatementRow take() {
+            StatementRow row = peek();
+            position++;
+            return row;
+        }
+    }
+}
@@ -1,10 +1,13 @@
 package com.banksystem.services;
 
+import com.banksystem.dto.PendingSummaryDTO;
 import com.banksystem.entity.*;
 import com.banksystem.enums.AccountStatus;
+import com.banksystem.enums.PendingRequestType;
 import com.banksystem.enums.RequestStatus;
 import com.banksystem.exception.BusinessRuleException;
 import com.banksystem.repository.*;
+import com.banksystem.util.SnowflakeIdGenerator;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -12,7 +15,6 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.UUID;
 
 @Service
 public class TellerService {
@@ -27,6 +29,10 @@ public class TellerService {
     private final ChequeBookRepository chequeBookRepository;
     private final CustomerRepository customerRepository;
     private final BranchRepository branchRepository;
+    private final SnowflakeIdGenerator snowflakeIdGenerator;
+    private final PendingRequestCounters pendingRequestCounters;
+    private final BankHierarchyService bankHierarchyService;
+    private final HeadBankCatalogService headBankCatalogService;
 
     public TellerService(AccountRepository accountRepository,
                          TellerRepository tellerRepository,
@@ -37,7 +43,11 @@ public class TellerService {
                          ChequeBookRepository chequeBookRepository,
                          CustomerRepository customerRepository,
                          AccountRequestRepository accountRequestRepository,
-                         BranchRepository branchRepository) {
+                         BranchRepository branchRepository,
+                         SnowflakeIdGenerator snowflakeIdGenerator,
+                         PendingRequestCounters pendingRequestCounters,
+                         BankHierarchyService bankHierarchyService,
+                         HeadBankCatalogService headBankCatalogService) {
         this.accountRepository = accountRepository;
         this.tellerRepository = tellerRepository;
         this.cardRequestRepository = cardRequestRepository;
@@ -48,6 +58,10 @@ public class TellerService {
         this.chequeBookRepository = chequeBookRepository;
         this.customerRepository = customerRepository;
         this.branchRepository = branchRepository;
+        this.snowflakeIdGenerator = snowflakeIdGenerator;
+        this.pendingRequestCounters = pendingRequestCounters;
+        this.bankHierarchyService = bankHierarchyService;
+        this.headBankCatalogService = headBankCatalogService;
     }
 
     // ==================== HELPER METHOD - GET TELLER'S BRANCH ====================
@@ -64,9 +78,7 @@ public class TellerService {
      */
     public List<AccountRequest> getPendingAccountRequests(Long branchId) {
         // Directly use branchId from JWT (already verified in controller)
-        return accountRequestRepository.findByBranchId(branchId).stream()
-                .filter(req -> req.getStatus() == RequestStatus.PENDING)
-                .toList();
+        return accountRequestRepository.findByBranchIdAndStatus(branchId, RequestStatus.PENDING);
     }
 
     @Transactional
@@ -105,6 +117,7 @@ public class TellerService {
         request.setStatus(RequestStatus.APPROVED);
         request.setProcessedAt(LocalDateTime.now());
         accountRequestRepository.save(request);
+        pendingRequestCounters.requestProcessed(request.getBranchId(), PendingRequestType.ACCOUNT);
 
         return savedAccount;
     }
@@ -129,6 +142,7 @@ public class TellerService {
         request.setRejectionReason(reason);
         request.setProcessedAt(LocalDateTime.now());
         accountRequestRepository.save(request);
+        pendingRequestCounters.requestProcessed(request.getBranchId(), PendingRequestType.ACCOUNT);
     }
 
     // ==================== DEBIT CARD REQUESTS ====================
@@ -156,11 +170,12 @@ public class TellerService {
             throw new BusinessRuleException("Request is not in pending status");
         }
 
-        // Get card rules
-        DebitCardRules cardRules = debitCardRulesRepository
-                .findByHeadBankAndCardType(
-                        request.getAccount().getBranch().getHeadBank(),
-                        request.getCardType())
+        // Get card rules from the head bank's cached catalog (head bank resolved from the in-memory topology)
+        Long headBankId = bankHierarchyService.getHeadBankIdOfBranch(request.getAccount().getBranch().getId());
+        DebitCardRules cardRules = headBankCatalogService.getActiveDebitCardRules(headBankId)
+                .find(r -> r.getCardType().equals(request.getCardType()))
+                // The catalog holds shared detached copies: link the card by reference only
+                .map(r -> debitCardRulesRepository.getReferenceById(r.getId()))
                 .orElseThrow(() -> new BusinessRuleException("Card rules not found for this card type"));
 
         // Create debit card
@@ -181,6 +196,7 @@ public class TellerService {
         request.setProcessedBy(teller);
         request.setProcessedAt(LocalDateTime.now());
         cardRequestRepository.save(request);
+        pendingRequestCounters.requestProcessed(teller.getBranch().getId(), PendingRequestType.CARD);
 
         return savedCard;
     }
@@ -206,6 +222,7 @@ public class TellerService {
         request.setProcessedBy(teller);
         request.setProcessedAt(LocalDateTime.now());
         cardRequestRepository.save(request);
+        pendingRequestCounters.requestProcessed(teller.getBranch().getId(), PendingRequestType.CARD);
     }
 
     // ==================== CHEQUE BOOK REQUESTS ====================
@@ -237,7 +254,7 @@ public class TellerService {
         ChequeBook chequeBook = new ChequeBook();
         chequeBook.setAccount(request.getAccount());
         chequeBook.setChequeBookNumber(generateChequeBookNumber());
-        chequeBook.setStartingChequeNumber(generateStartingChequeNumber());
+        chequeBook.setStartingChequeNumber(generateStartingChequeNumber(request.getNumberOfLeaves()));
         chequeBook.setNumberOfLeaves(request.getNumberOfLeaves());
         chequeBook.setLeavesUsed(0);
         chequeBook.setIsActive(true);
@@ -251,6 +268,7 @@ public class TellerService {
         request.setProcessedBy(teller);
         request.setProcessedAt(LocalDateTime.now());
         chequeBookRequestRepository.save(request);
+        pendingRequestCounters.requestProcessed(teller.getBranch().getId(), PendingRequestType.CHEQUE_BOOK);
 
         return savedChequeBook;
     }
@@ -276,6 +294,13 @@ public class TellerService {
         request.setProcessedBy(teller);
         request.setProcessedAt(LocalDateTime.now());
         chequeBookRequestRepository.save(request);
+        pendingRequestCounters.requestProcessed(teller.getBranch().getId(), PendingRequestType.CHEQUE_BOOK);
+    }
+
+    // ==================== DASHBOARD ====================
+
+    public PendingSummaryDTO getPendingRequestsSummary(Long branchId) {
+        return pendingRequestCounters.getSummary(branchId);
     }
 
     // ==================== CUSTOMER MANAGEMENT ====================
@@ -321,16 +346,11 @@ public class TellerService {
     // ==================== HELPER METHODS FOR GENERATION ====================
 
     public String generateAccountNumber() {
-        return "ACC" + System.currentTimeMillis() +
-                UUID.randomUUID().toString().substring(0, 6).toUpperCase();
+        return snowflakeIdGenerator.nextAccountNumber();
     }
 
     private String generateCardNumber() {
-        StringBuilder cardNumber = new StringBuilder("4532");
-        for (int i = 0; i < 12; i++) {
-            cardNumber.append((int) (Math.random() * 10));
-        }
-        return cardNumber.toString();
+        return snowflakeIdGenerator.nextCardNumber();
     }
 
     private String generateCVV() {
@@ -338,12 +358,12 @@ public class TellerService {
     }
 
     private String generateChequeBookNumber() {
-        return "CHQ" + System.currentTimeMillis() +
-                UUID.randomUUID().toString().substring(0, 4).toUpperCase();
+        return snowflakeIdGenerator.nextChequeBookNumber();
     }
 
-    private Long generateStartingChequeNumber() {
-        return System.currentTimeMillis() % 1000000;
+    // ChequeBookRequestDTO caps a book at 100 leaves, well inside the generator's range per book
+    private Long generateStartingChequeNumber(int leaves) {
+        return snowflakeIdGenerator.nextStartingChequeNumber(leaves);
     }
 
     // ==================== ACCOUNT VALIDATION ====================
@@ -1,16 +1,22 @@
 package com.banksystem.services;
 
+import com.banksystem.dto.BatchTransactionResultDTO;
 import com.banksystem.dto.TransactionDto;
 import com.banksystem.entity.*;
 import com.banksystem.enums.AccountStatus;
 import com.banksystem.enums.BankType;
 import com.banksystem.enums.TransactionStatus;
+import com.banksystem.enums.TransactionType;
 import com.banksystem.exception.BusinessRuleException;
 import com.banksystem.repository.*;
+import com.banksystem.services.BankHierarchyService.BranchHierarchy;
+import com.banksystem.util.SnowflakeIdGenerator;
 import jakarta.persistence.LockTimeoutException;
 import jakarta.transaction.Transactional;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.dao.PessimisticLockingFailureException;
 import org.springframework.retry.annotation.Backoff;
 import org.springframework.retry.annotation.Recover;
@@ -18,9 +24,7 @@ import org.springframework.retry.annotation.Retryable;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.UUID;
+import java.util.*;
 
 @Service
 @Slf4j
@@ -30,24 +34,36 @@ public class TransactionService {
     private final AccountRepository accountRepository;
     private final TransactionRepository transactionRepository;
     private final ChargesRepository chargesRepository;
-    private final BranchRepository branchRepository;
-    private final HeadBankRepository headBankRepository;
-    private final CentralBankRepository centralBankRepository;
+    private final BankEarningsService bankEarningsService;
+    private final BankHierarchyService bankHierarchyService;
+    private final IdempotencyService idempotencyService;
+    private final LedgerService ledgerService;
+    private final ChargeRollupService chargeRollupService;
+    private final SnowflakeIdGenerator snowflakeIdGenerator;
+    private final int maxBatchSize;
 
     public TransactionService(ChargesService chargesService,
                               AccountRepository accountRepository,
                               TransactionRepository transactionRepository,
                               ChargesRepository chargesRepository,
-                              BranchRepository branchRepository,
-                              HeadBankRepository headBankRepository,
-                              CentralBankRepository centralBankRepository) {
+                              BankEarningsService bankEarningsService,
+                              BankHierarchyService bankHierarchyService,
+                              IdempotencyService idempotencyService,
+                              LedgerService ledgerService,
+                              ChargeRollupService chargeRollupService,
+                              SnowflakeIdGenerator snowflakeIdGenerator,
+                              @Value("${app.transactions.batch-max-size:10000}") int maxBatchSize) {
         this.chargesService = chargesService;
         this.accountRepository = accountRepository;
         this.transactionRepository = transactionRepository;
         this.chargesRepository = chargesRepository;
-        this.branchRepository = branchRepository;
-        this.headBankRepository = headBankRepository;
-        this.centralBankRepository = centralBankRepository;
+        this.bankEarningsService = bankEarningsService;
+        this.bankHierarchyService = bankHierarchyService;
+        this.idempotencyService = idempotencyService;
+        this.ledgerService = ledgerService;
+        this.chargeRollupService = chargeRollupService;
+        this.snowflakeIdGenerator = snowflakeIdGenerator;
+        this.maxBatchSize = maxBatchSize;
     }
 
     @Retryable(
@@ -61,43 +77,328 @@ public class TransactionService {
     )
     @Transactional
     public Transaction makeTransaction(TransactionDto transactionDto) {
+        return transfer(transactionDto);
+    }
+
+    /**
+     * Same as makeTransaction(TransactionDto), but claims the Idempotency-Key in this
+     * transaction first. A second request with the same key fails on the key's primary
+     * key before any account is locked; IdempotencyService then returns the original.
+     * A null claim (no key sent) runs the plain transfer.
+     */
+    @Retryable(
+            retryFor = {
+                    PessimisticLockingFailureException.class,
+                    LockTimeoutException.class,
+                    CannotAcquireLockException.class
+            },
+            maxAttempts = 5,
+            backoff = @Backoff(delay = 1000, multiplier = 2.0)
+    )
+    @Transactional
+    public Transaction makeTransaction(TransactionDto transactionDto, IdempotencyService.Claim claim) {
+        if (claim == null) {
+            return transfer(transactionDto);
+        }
+        idempotencyService.reserve(claim);
+        Transaction transaction = transfer(transactionDto);
+        idempotencyService.complete(claim, transaction);
+        return transaction;
+    }
+
+    @Recover
+    public Transaction transferRecover(Exception exception, TransactionDto transactionDto, IdempotencyService.Claim claim) {
+        // A duplicate key is not contention; let IdempotencyService resolve it to the original transfer
+        if (exception instanceof DataIntegrityViolationException duplicate) {
+            throw duplicate;
+        }
+        return transferRecover(exception, transactionDto);
+    }
+
+    private Transaction transfer(TransactionDto transactionDto) {
 
         // Prevent self-transfers
         if (transactionDto.getSenderAccountNumber().equals(transactionDto.getReceiverAccountNumber())) {
             throw new BusinessRuleException("Cannot transfer to the same account");
         }
 
-        // Deadlock prevention - lock accounts in alphabetical order
-        String acc1 = transactionDto.getSenderAccountNumber();
-        String acc2 = transactionDto.getReceiverAccountNumber();
+        String senderNumber = transactionDto.getSenderAccountNumber();
+        String receiverNumber = transactionDto.getReceiverAccountNumber();
 
-        // Determine lock order (alphabetical)
-        boolean firstIsSender = acc1.compareTo(acc2) < 0;
-        if (!firstIsSender) {
-            String temp = acc1;
-            acc1 = acc2;
-            acc2 = temp;
-        }
+        // Deadlock prevention - both accounts are locked by one statement in account_number order
+        Map<String, Account> lockedAccounts = lockAccounts(List.of(senderNumber, receiverNumber));
 
-        // Lock accounts in consistent order to prevent deadlock
-        Account firstAccount = accountRepository.findByAccountNumberWithLock(acc1);
-        Account secondAccount = accountRepository.findByAccountNumberWithLock(acc2);
+        Account senderAccount = lockedAccounts.get(senderNumber);
+        Account receiverAccount = lockedAccounts.get(receiverNumber);
 
         // Validate accounts exist
-        if (firstAccount == null) {
-            throw new BusinessRuleException("Account not found: " + acc1);
+        if (senderAccount == null) {
+            throw new BusinessRuleException("Account not found: " + senderNumber);
         }
-        if (secondAccount == null) {
-            throw new BusinessRuleException("Account not found: " + acc2);
+        if (receiverAccount == null) {
+            throw new BusinessRuleException("Account not found: " + receiverNumber);
         }
 
-        // Assign sender/receiver based on original order
-        Account senderAccount = firstIsSender ? firstAccount : secondAccount;
-        Account receiverAccount = firstIsSender ? secondAccount : firstAccount;
-
         log.info("Transaction initiated - Sender: {}, Receiver: {}",
                 senderAccount.getAccountNumber(), receiverAccount.getAccountNumber());
 
+        // Get branch hierarchy ids from the in-memory topology (branch id is read from the proxy without a select)
+        BranchHierarchy hierarchy = bankHierarchyService.getBranchHierarchy(senderAccount.getBranch().getId());
+
+        log.info("Bank hierarchy - Branch: {}, HeadBank: {}, CentralBank: {}",
+                hierarchy.getBranchId(), hierarchy.getHeadBankId(), hierarchy.getCentralBankId());
+
+        // Collect charges from all three levels (resolved from the in-memory tariff index)
+        List<Charges> allCharges = resolveCharges(hierarchy, transactionDto);
+
+        Transaction newTransaction = applyTransfer(transactionDto, senderAccount, receiverAccount, allCharges, hierarchy);
+
+        Transaction savedTransaction = transactionRepository.save(newTransaction);
+        log.info("Transaction saved: {}", savedTransaction.getTransactionReference());
+
+        // Associate charges with transaction
+        allCharges.forEach(charge -> charge.setTransaction(savedTransaction));
+        chargesRepository.saveAll(allCharges);
+        log.debug("Charges saved: {} records", allCharges.size());
+
+        // Append the debit/credit legs to the ledger
+        ledgerService.recordTransfers(List.of(savedTransaction));
+        chargeRollupService.record(List.of(savedTransaction));
+
+        // Distribute charges to banks (striped earning slots, no shared bank row update)
+        distributeChargesToBanks(allCharges, hierarchy, senderAccount.getAccountNumber());
+
+        // Save all updated entities
+        accountRepository.save(senderAccount);
+        accountRepository.save(receiverAccount);
+
+        log.info("Transaction completed successfully: {} | Sender new balance: {}, Receiver new balance: {}",
+                savedTransaction.getTransactionReference(),
+                senderAccount.getAvailableBalance(),
+                receiverAccount.getAvailableBalance());
+
+        return savedTransaction;
+    }
+
+    @Recover
+    public Transaction transferRecover(Exception exception, TransactionDto transactionDto) {
+        log.error("Transaction FAILED after all retries - Sender: {}, Receiver: {}, Amount: {}, Reason: {}",
+                transactionDto.getSenderAccountNumber(),
+                transactionDto.getReceiverAccountNumber(),
+                transactionDto.getAmount(),
+                exception.getMessage());
+        throw new BusinessRuleException("Transaction failed due to system contention. Please try again later.");
+    }
+
+    /**
+     * Batch mode for payroll and merchant settlement.
+     *
+     * Every involved account is locked once, in account_number order, by a single
+     * statement. Items are then applied in input order against the locked rows; an
+     * item that breaks a business rule is reported as failed and leaves no changes,
+     * the rest of the batch still commits. Transaction and Charges rows are written
+     * with saveAll and bank earnings are recorded once per bank for the whole batch.
+     *
+     * Every sender account must be held at the operator's branch; otherwise the whole
+     * batch is rejected before anything is locked.
+     */
+    @Retryable(
+            retryFor = {
+                    PessimisticLockingFailureException.class,
+                    LockTimeoutException.class,
+                    CannotAcquireLockException.class
+            },
+            maxAttempts = 5,
+            backoff = @Backoff(delay = 1000, multiplier = 2.0)
+    )
+    @Transactional
+    public BatchTransactionResultDTO makeTransactions(List<TransactionDto> transactionDtos, Long operatorBranchId) {
+        if (transactionDtos == null || transactionDtos.isEmpty()) {
+            throw new BusinessRuleException("Batch contains no transactions");
+        }
+        if (transactionDtos.size() > maxBatchSize) {
+            throw new BusinessRuleException("Batch size " + transactionDtos.size() +
+                    " exceeds the maximum of " + maxBatchSize);
+        }
+        verifySendersInBranch(transactionDtos, operatorBranchId);
+
+        List<TransferOutcome> outcomes = applyTransfers(transactionDtos);
+
+        List<BatchTransactionResultDTO.ItemResult> results = new ArrayList<>(outcomes.size());
+        for (int i = 0; i < outcomes.size(); i++) {
+            TransferOutcome outcome = outcomes.get(i);
+            results.add(outcome.isSuccess()
+                    ? BatchTransactionResultDTO.ItemResult.success(i, outcome.transaction())
+                    : BatchTransactionResultDTO.ItemResult.failure(i, transactionDtos.get(i), outcome.error()));
+        }
+
+        BatchTransactionResultDTO result = new BatchTransactionResultDTO(results);
+        log.info("Batch completed - {} succeeded, {} failed", result.getSucceeded(), result.getFailed());
+        return result;
+    }
+
+    @Recover
+    public BatchTransactionResultDTO batchTransferRecover(Exception exception, List<TransactionDto> transactionDtos,
+                                                          Long operatorBranchId) {
+        // Rejected batches are not contention; keep their message
+        if (exception instanceof BusinessRuleException rejected) {
+            throw rejected;
+        }
+        log.error("Batch of {} transfers FAILED after all retries, Reason: {}",
+                transactionDtos.size(), exception.getMessage());
+        throw new BusinessRuleException("Batch failed due to system contention. Please try again later.");
+    }
+
+    private void verifySendersInBranch(List<TransactionDto> transactionDtos, Long operatorBranchId) {
+        Set<String> senders = new HashSet<>();
+        for (TransactionDto dto : transactionDtos) {
+            senders.add(dto.getSenderAccountNumber());
+        }
+        List<String> foreign = accountRepository.findAccountNumbersOutsideBranch(senders, operatorBranchId);
+        if (!foreign.isEmpty()) {
+            throw new BusinessRuleException("Access denied: Sender accounts belong to a different branch: "
+                    + String.join(", ", foreign));
+        }
+    }
+
+    /**
+     * Applies a group of independent transfers in one database transaction for
+     * TransferPipeline. Outcomes are returned in input order; a transfer that breaks
+     * a business rule fails on its own and the rest of the group still commits.
+     */
+    @Transactional
+    public List<TransferOutcome> applyGroup(List<TransactionDto> transactionDtos) {
+        return applyTransfers(transactionDtos);
+    }
+
+    // Shared core of batch and pipeline mode: one lock pass, per-item validation, batched writes
+    private List<TransferOutcome> applyTransfers(List<TransactionDto> transactionDtos) {
+        Set<String> accountNumbers = new HashSet<>();
+        for (TransactionDto dto : transactionDtos) {
+            if (dto.getSenderAccountNumber() != null) {
+                accountNumbers.add(dto.getSenderAccountNumber());
+            }
+            if (dto.getReceiverAccountNumber() != null) {
+                accountNumbers.add(dto.getReceiverAccountNumber());
+            }
+        }
+
+        Map<String, Account> lockedAccounts = lockAccounts(accountNumbers);
+        log.info("Batch of {} transfers locked {} accounts", transactionDtos.size(), lockedAccounts.size());
+
+        List<TransferOutcome> outcomes = new ArrayList<>(transactionDtos.size());
+        List<Transaction> transactions = new ArrayList<>();
+        Map<EarningKey, List<Charges>> chargesBySender = new HashMap<>();
+        Map<Long, BranchHierarchy> hierarchies = new HashMap<>();
+        Map<ChargeKey, List<Charges>> resolvedCharges = new HashMap<>();
+
+        for (int i = 0; i < transactionDtos.size(); i++) {
+            TransactionDto dto = transactionDtos.get(i);
+            try {
+                if (dto.getSenderAccountNumber() == null || dto.getReceiverAccountNumber() == null
+                        || dto.getAmount() == null) {
+                    throw new BusinessRuleException("Sender, receiver and amount are required");
+                }
+                if (dto.getSenderAccountNumber().equals(dto.getReceiverAccountNumber())) {
+                    throw new BusinessRuleException("Cannot transfer to the same account");
+                }
+
+                Account senderAccount = lockedAccounts.get(dto.getSenderAccountNumber());
+                Account receiverAccount = lockedAccounts.get(dto.getReceiverAccountNumber());
+                if (senderAccount == null) {
+                    throw new BusinessRuleException("Account not found: " + dto.getSenderAccountNumber());
+                }
+                if (receiverAccount == null) {
+                    throw new BusinessRuleException("Account not found: " + dto.getReceiverAccountNumber());
+                }
+
+                BranchHierarchy hierarchy = hierarchies.computeIfAbsent(senderAccount.getBranch().getId(),
+                        bankHierarchyService::getBranchHierarchy);
+
+                // Charges are resolved once per distinct (branch, type, amount) and copied per item
+                List<Charges> template = resolvedCharges.computeIfAbsent(
+                        new ChargeKey(hierarchy.getBranchId(), dto.getTransactionType(), dto.getAmount()),
+                        key -> resolveCharges(hierarchy, dto));
+                List<Charges> itemCharges = copyCharges(template);
+
+                Transaction transaction = applyTransfer(dto, senderAccount, receiverAccount, itemCharges, hierarchy);
+                transactions.add(transaction);
+                chargesBySender.computeIfAbsent(new EarningKey(hierarchy.getBranchId(), senderAccount.getAccountNumber()),
+                        k -> new ArrayList<>()).addAll(itemCharges);
+
+                outcomes.add(new TransferOutcome(transaction, null));
+            } catch (BusinessRuleException e) {
+                log.debug("Batch item {} failed: {}", i, e.getMessage());
+                outcomes.add(new TransferOutcome(null, e.getMessage()));
+            }
+        }
+
+        transactionRepository.saveAll(transactions);
+
+        List<Charges> allCharges = new ArrayList<>();
+        for (Transaction transaction : transactions) {
+            for (Charges charge : transaction.getCharges()) {
+                charge.setTransaction(transaction);
+                allCharges.add(charge);
+            }
+        }
+        chargesRepository.saveAll(allCharges);
+        ledgerService.recordTransfers(transactions);
+        chargeRollupService.record(transactions);
+
+        // One earnings update per bank and sender, in the sender's slot as for a single transfer:
+        // the batch already holds every sender's account lock, and other senders stay spread over the slots
+        chargesBySender.forEach((key, charges) ->
+                distributeChargesToBanks(charges, hierarchies.get(key.branchId()), key.senderAccountNumber()));
+
+        accountRepository.saveAll(lockedAccounts.values());
+
+        return outcomes;
+    }
+
+    /**
+     * Locks the given accounts with one SELECT ... FOR UPDATE and indexes them by account number.
+     */
+    private Map<String, Account> lockAccounts(Collection<String> accountNumbers) {
+        Map<String, Account> accounts = new HashMap<>();
+        for (Account account : accountRepository.findAllByAccountNumberInWithLock(accountNumbers)) {
+            accounts.put(account.getAccountNumber(), account);
+        }
+        return accounts;
+    }
+
+    private List<Charges> resolveCharges(BranchHierarchy hierarchy, TransactionDto transactionDto) {
+        List<Charges> charges = new ArrayList<>();
+        chargesService.appendCharges(charges, hierarchy.getBranchId(), BankType.BANK_BRANCH,
+                transactionDto.getTransactionType(), transactionDto.getAmount());
+        chargesService.appendCharges(charges, hierarchy.getHeadBankId(), BankType.HEAD_BANK,
+                transactionDto.getTransactionType(), transactionDto.getAmount());
+        chargesService.appendCharges(charges, hierarchy.getCentralBankId(), BankType.CENTRAL_BANK,
+                transactionDto.getTransactionType(), transactionDto.getAmount());
+        return charges;
+    }
+
+    private List<Charges> copyCharges(List<Charges> template) {
+        List<Charges> copies = new ArrayList<>(template.size());
+        for (Charges source : template) {
+            Charges c = new Charges();
+            c.setBankType(source.getBankType());
+            c.setBankId(source.getBankId());
+            c.setFeeName(source.getFeeName());
+            c.setChargedAmount(source.getChargedAmount());
+            copies.add(c);
+        }
+        return copies;
+    }
+
+    /**
+     * Validates one transfer against already locked accounts, moves the balances and
+     * returns the unsaved Transaction (its charges are attached to getCharges()).
+     * Throws BusinessRuleException before touching any balance if a rule is broken.
+     */
+    private Transaction applyTransfer(TransactionDto transactionDto, Account senderAccount,
+                                      Account receiverAccount, List<Charges> allCharges,
+                                      BranchHierarchy hierarchy) {
         // Validate account statuses
         if (!senderAccount.getStatus().equals(AccountStatus.ACTIVE)) {
             throw new BusinessRuleException("Sender account is not active");
@@ -106,23 +407,6 @@ public class TransactionService {
             throw new BusinessRuleException("Receiver account is not active");
         }
 
-        // Get branch hierarchy (already loaded via eager fetch or join)
-        Branch branch = senderAccount.getBranch();
-        HeadBank headBank = branch.getHeadBank();
-        CentralBank centralBank = headBank.getCentralBank();
-
-        log.info("Bank hierarchy - Branch: {}, HeadBank: {}, CentralBank: {}",
-                branch.getId(), headBank.getId(), centralBank.getId());
-
-        // Collect charges from all three levels
-        List<Charges> allCharges = new ArrayList<>();
-        allCharges.addAll(chargesService.getChargesList(
-                createTransactionDto(transactionDto, branch.getId(), BankType.BANK_BRANCH)));
-        allCharges.addAll(chargesService.getChargesList(
-                createTransactionDto(transactionDto, headBank.getId(), BankType.HEAD_BANK)));
-        allCharges.addAll(chargesService.getChargesList(
-                createTransactionDto(transactionDto, centralBank.getId(), BankType.CENTRAL_BANK)));
-
         // Calculate total charges
         BigDecimal totalCharges = allCharges.stream()
                 .map(charge -> BigDecimal.valueOf(charge.getChargedAmount()))
@@ -147,25 +431,21 @@ public class TransactionService {
                             transactionDto.getAmount(), senderAccount.getAvailableBalance()));
         }
 
-        // Create and save transaction
+        // Create transaction
         Transaction newTransaction = new Transaction();
         newTransaction.setFromAccount(senderAccount);
         newTransaction.setToAccount(receiverAccount);
         newTransaction.setAmount(transactionDto.getAmount());
         newTransaction.setTransactionType(transactionDto.getTransactionType());
         newTransaction.setDescription(transactionDto.getDescription());
-        newTransaction.setTransactionReference(generateTransactionReference());
+        newTransaction.setTransactionReference(snowflakeIdGenerator.nextTransactionReference());
         newTransaction.setTotalCharges(totalCharges);
         newTransaction.setNetAmount(netAmount);
         newTransaction.setStatus(TransactionStatus.COMPLETED);
-
-        Transaction savedTransaction = transactionRepository.save(newTransaction);
-        log.info("Transaction saved: {}", savedTransaction.getTransactionReference());
-
-        // Associate charges with transaction
-        allCharges.forEach(charge -> charge.setTransaction(savedTransaction));
-        chargesRepository.saveAll(allCharges);
-        log.debug("Charges saved: {} records", allCharges.size());
+        newTransaction.setBranchId(hierarchy.getBranchId());
+        newTransaction.setHeadBankId(hierarchy.getHeadBankId());
+        newTransaction.setToBranchId(receiverAccount.getBranch().getId());
+        newTransaction.getCharges().addAll(allCharges);
 
         // Update sender balances (deduct full amount including charges)
         senderAccount.setCurrentBalance(
@@ -179,98 +459,51 @@ public class TransactionService {
         receiverAccount.setAvailableBalance(
                 receiverAccount.getAvailableBalance().add(netAmount));
 
-        // Distribute charges to banks (using already-fetched entities)
-        distributeChargesToBanks(allCharges, branch, headBank, centralBank);
-
-        // Save all updated entities
-        accountRepository.save(senderAccount);
-        accountRepository.save(receiverAccount);
-        branchRepository.save(branch);
-        headBankRepository.save(headBank);
-        centralBankRepository.save(centralBank);
-
-        log.info("Transaction completed successfully: {} | Sender new balance: {}, Receiver new balance: {}",
-                savedTransaction.getTransactionReference(),
-                senderAccount.getAvailableBalance(),
-                receiverAccount.getAvailableBalance());
-
-        return savedTransaction;
-    }
-
-    @Recover
-    public Transaction transferRecover(Exception exception, TransactionDto transactionDto) {
-        log.error("Transaction FAILED after all retries - Sender: {}, Receiver: {}, Amount: {}, Reason: {}",
-                transactionDto.getSenderAccountNumber(),
-                transactionDto.getReceiverAccountNumber(),
-                transactionDto.getAmount(),
-                exception.getMessage());
-        throw new BusinessRuleException("Transaction failed due to system contention. Please try again later.");
-    }
-
-    /**
-     * Helper method to create TransactionDto with bank-specific details
-     */
-    private TransactionDto createTransactionDto(TransactionDto original, Long bankId, BankType bankType) {
-        TransactionDto dto = new TransactionDto();
-        dto.setSenderAccountNumber(original.getSenderAccountNumber());
-        dto.setReceiverAccountNumber(original.getReceiverAccountNumber());
-        dto.setBankId(bankId);
-        dto.setBankType(bankType);
-        dto.setTransactionType(original.getTransactionType());
-        dto.setAccountHolderType(original.getAccountHolderType());
-        dto.setAmount(original.getAmount());
-        dto.setDescription(original.getDescription());
-        dto.setTransactionStatus(original.getTransactionStatus());
-        return dto;
+        return newTransaction;
     }
 
     /**
      * Distributes transaction charges to Central Bank, Head Bank, and Branch.
-     * Uses already-fetched entities to avoid N+1 queries.
+     * Charges are summed per bank and added to that bank's earning slots, so the
+     * shared total_earning rows are not locked by the transfer.
      */
     private void distributeChargesToBanks(List<Charges> charges,
-                                          Branch branch,
-                                          HeadBank headBank,
-                                          CentralBank centralBank) {
+                                          BranchHierarchy hierarchy,
+                                          String shardKey) {
         log.debug("Distributing {} charges to banks", charges.size());
 
+        BigDecimal centralEarning = BigDecimal.ZERO;
+        BigDecimal headBankEarning = BigDecimal.ZERO;
+        BigDecimal branchEarning = BigDecimal.ZERO;
+
         for (Charges charge : charges) {
             BigDecimal chargeAmount = BigDecimal.valueOf(charge.getChargedAmount());
 
             switch (charge.getBankType()) {
                 case CENTRAL_BANK:
-                    if (charge.getBankId().equals(centralBank.getId())) {
-                        BigDecimal currentEarning = centralBank.getTotalEarning() != null
-                                ? centralBank.getTotalEarning() : BigDecimal.ZERO;
-                        centralBank.setTotalEarning(currentEarning.add(chargeAmount));
-                        log.debug("Central Bank earning updated: {}", centralBank.getTotalEarning());
+                    if (charge.getBankId().equals(hierarchy.getCentralBankId())) {
+                        centralEarning = centralEarning.add(chargeAmount);
                     } else {
                         log.warn("Charge bankId {} doesn't match centralBank id {}",
-                                charge.getBankId(), centralBank.getId());
+                                charge.getBankId(), hierarchy.getCentralBankId());
                     }
                     break;
 
                 case HEAD_BANK:
-                    if (charge.getBankId().equals(headBank.getId())) {
-                        BigDecimal currentEarning = headBank.getTotalEarning() != null
-                                ? headBank.getTotalEarning() : BigDecimal.ZERO;
-                        headBank.setTotalEarning(currentEarning.add(chargeAmount));
-                        log.debug("Head Bank earning updated: {}", headBank.getTotalEarning());
+                    if (charge.getBankId().equals(hierarchy.getHeadBankId())) {
+                        headBankEarning = headBankEarning.add(chargeAmount);
                     } else {
                         log.warn("Charge bankId {} doesn't match headBank id {}",
-                                charge.getBankId(), headBank.getId());
+                                charge.getBankId(), hierarchy.getHeadBankId());
                     }
                     break;
 
                 case BANK_BRANCH:
-                    if (charge.getBankId().equals(branch.getId())) {
-                        BigDecimal currentEarning = branch.getTotalEarning() != null
-                                ? branch.getTotalEarning() : BigDecimal.ZERO;
-                        branch.setTotalEarning(currentEarning.add(chargeAmount));
-                        log.debug("Branch earning updated: {}", branch.getTotalEarning());
+                    if (charge.getBankId().equals(hierarchy.getBranchId())) {
+                        branchEarning = branchEarning.add(chargeAmount);
                     } else {
                         log.warn("Charge bankId {} doesn't match branch id {}",
-                                charge.getBankId(), branch.getId());
+                                charge.getBankId(), hierarchy.getBranchId());
                     }
                     break;
 
@@ -279,11 +512,25 @@ public class TransactionService {
             }
         }
 
+        bankEarningsService.recordEarning(BankType.CENTRAL_BANK, hierarchy.getCentralBankId(), shardKey, centralEarning);
+        bankEarningsService.recordEarning(BankType.HEAD_BANK, hierarchy.getHeadBankId(), shardKey, headBankEarning);
+        bankEarningsService.recordEarning(BankType.BANK_BRANCH, hierarchy.getBranchId(), shardKey, branchEarning);
+
         log.debug("Charge distribution completed");
     }
 
-    private String generateTransactionReference() {
-        return "TXN" + System.currentTimeMillis() + "-" +
-                UUID.randomUUID().toString().substring(0, 8).toUpperCase();
+    // Key for reusing resolved charges inside one batch
+    private record ChargeKey(Long branchId, TransactionType transactionType, BigDecimal amount) {
+    }
+
+    // Earnings of a batch are summed per (sender branch, sender account), the earning slot's shard key
+    private record EarningKey(Long branchId, String senderAccountNumber) {
+    }
+
+    // Result of one transfer in a batch or pipeline group: the saved transaction or the rule it broke
+    public record TransferOutcome(Transaction transaction, String error) {
+        public boolean isSuccess() {
+            return transaction != null;
+        }
     }
 }
\ No newline at end of file
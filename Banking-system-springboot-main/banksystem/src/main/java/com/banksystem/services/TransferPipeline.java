@@ -0,0 +1,231 @@
+package com.banksystem.services;
+
+import com.banksystem.dto.TransactionDto;
+import com.banksystem.entity.Transaction;
+import com.banksystem.exception.BusinessRuleException;
+import com.banksystem.services.TransactionService.TransferOutcome;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Entry point of single transfers from the controllers.
+ *
+ * With app.transactions.pipeline.enabled=false (the default) a transfer runs in its
+ * own transaction exactly as before. When enabled, transfers without an
+ * Idempotency-Key are put on a bounded queue and one committer thread drains up to
+ * max-group-size of them, waiting at most window-ms for the group to fill. The group
+ * is applied by TransactionService.applyGroup in a single transaction (one lock pass
+ * in account_number order, one commit), then each caller's future is completed.
+ * Business rule failures stay with their own transfer; if the group transaction
+ * itself fails, its transfers are replayed one by one (without the retries of
+ * makeTransaction, which would stall the queue) so only the offender fails.
+ *
+ * A caller that times out while its transfer is still queued cancels it, so the
+ * transfer never runs and is safe to resubmit. Only a transfer the committer has
+ * already taken is reported as still being processed.
+ */
+@Service
+@Slf4j
+public class TransferPipeline {
+
+    private final TransactionService transactionService;
+    private final IdempotencyService idempotencyService;
+    private final boolean enabled;
+    private final int maxGroupSize;
+    private final long windowNanos;
+    private final long awaitTimeoutMillis;
+    private final BlockingQueue<PendingTransfer> queue;
+
+    private volatile boolean running;
+    private Thread committer;
+
+    public TransferPipeline(TransactionService transactionService,
+                            IdempotencyService idempotencyService,
+                            @Value("${app.transactions.pipeline.enabled:false}") boolean enabled,
+                            @Value("${app.transactions.pipeline.queue-capacity:4096}") int queueCapacity,
+                            @Value("${app.transactions.pipeline.max-group-size:256}") int maxGroupSize,
+                            @Value("${app.transactions.pipeline.window-ms:5}") long windowMillis,
+                            @Value("${app.transactions.pipeline.await-timeout-ms:30000}") long awaitTimeoutMillis) {
+        this.transactionService = transactionService;
+        this.idempotencyService = idempotencyService;
+        this.enabled = enabled;
+        this.maxGroupSize = maxGroupSize;
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+        this.awaitTimeoutMillis = awaitTimeoutMillis;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        committer = new Thread(this::commitLoop, "transfer-pipeline");
+        committer.setDaemon(true);
+        committer.start();
+        log.info("Transfer pipeline started - group size {}, window {} ms",
+                maxGroupSize, TimeUnit.NANOSECONDS.toMillis(windowNanos));
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (committer != null) {
+            committer.interrupt();
+        }
+    }
+
+    /**
+     * Runs one transfer, through the pipeline when it is enabled and the request has no Idempotency-Key.
+     */
+    public Transaction submit(TransactionDto transactionDto, String idempotencyKey) {
+        IdempotencyService.Claim claim = idempotencyService.claim(idempotencyKey, transactionDto);
+        if (claim != null) {
+            return idempotencyService.execute(claim, () -> transactionService.makeTransaction(transactionDto, claim));
+        }
+        if (!running) {
+            return transactionService.makeTransaction(transactionDto);
+        }
+
+        PendingTransfer pending = new PendingTransfer(transactionDto);
+        if (!queue.offer(pending)) {
+            throw new BusinessRuleException("Transfer queue is full. Please try again later.");
+        }
+
+        try {
+            return pending.future.get(awaitTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new BusinessRuleException("Transaction failed: " + e.getCause().getMessage());
+        } catch (TimeoutException e) {
+            if (pending.cancel()) {
+                queue.remove(pending);
+                throw new BusinessRuleException("Transfer was not processed in time and has been cancelled. Please try again.");
+            }
+            // The committer owns it and it may still commit; the client has to check before resubmitting
+            throw new BusinessRuleException("Transfer is still being processed. Please check the account history.");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessRuleException("Transfer interrupted");
+        }
+    }
+
+    // ==================== COMMITTER ====================
+
+    private void commitLoop() {
+        List<PendingTransfer> group = new ArrayList<>(maxGroupSize);
+        while (running) {
+            try {
+                PendingTransfer first = queue.take();
+                group.add(first);
+
+                long deadline = System.nanoTime() + windowNanos;
+                while (group.size() < maxGroupSize) {
+                    // Take whatever is already queued, then wait out the rest of the window
+                    if (queue.drainTo(group, maxGroupSize - group.size()) > 0) {
+                        continue;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        break;
+                    }
+                    PendingTransfer next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    group.add(next);
+                }
+
+                // Transfers whose callers already gave up are dropped
+                group.removeIf(pending -> !pending.claim());
+                if (!group.isEmpty()) {
+                    commitGroup(group);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } finally {
+                group.clear();
+            }
+        }
+
+        // Anything still queued at shutdown is failed rather than left hanging
+        List<PendingTransfer> leftovers = new ArrayList<>();
+        queue.drainTo(leftovers);
+        leftovers.forEach(p -> p.future.completeExceptionally(
+                new BusinessRuleException("Service is shutting down. Please try again.")));
+    }
+
+    private void commitGroup(List<PendingTransfer> group) {
+        List<TransactionDto> dtos = new ArrayList<>(group.size());
+        for (PendingTransfer pending : group) {
+            dtos.add(pending.transactionDto);
+        }
+
+        List<TransferOutcome> outcomes;
+        try {
+            outcomes = transactionService.applyGroup(dtos);
+        } catch (RuntimeException e) {
+            log.warn("Transfer group of {} failed ({}), replaying transfers individually", group.size(), e.getMessage());
+            replayIndividually(group);
+            return;
+        }
+
+        for (int i = 0; i < group.size(); i++) {
+            complete(group.get(i), outcomes.get(i));
+        }
+        log.debug("Committed transfer group of {}", group.size());
+    }
+
+    private void replayIndividually(List<PendingTransfer> group) {
+        for (PendingTransfer pending : group) {
+            try {
+                complete(pending, transactionService.applyGroup(List.of(pending.transactionDto)).get(0));
+            } catch (RuntimeException e) {
+                pending.future.completeExceptionally(e);
+            }
+        }
+    }
+
+    private static void complete(PendingTransfer pending, TransferOutcome outcome) {
+        if (outcome.isSuccess()) {
+            pending.future.complete(outcome.transaction());
+        } else {
+            pending.future.completeExceptionally(new BusinessRuleException(outcome.error()));
+        }
+    }
+
+    private enum State { QUEUED, CLAIMED, CANCELLED }
+
+    private static final class PendingTransfer {
+        private final TransactionDto transactionDto;
+        private final CompletableFuture<Transaction> future = new CompletableFuture<>();
+        private final AtomicReference<State> state = new AtomicReference<>(State.QUEUED);
+
+        PendingTransfer(TransactionDto transactionDto) {
+            this.transactionDto = transactionDto;
+        }
+
+        // Committer side: false if the caller cancelled first
+        boolean claim() {
+            return state.compareAndSet(State.QUEUED, State.CLAIMED);
+        }
+
+        // Caller side: false if the committer already took the transfer
+        boolean cancel() {
+            return state.compareAndSet(State.QUEUED, State.CANCELLED);
+        }
+    }
+}
@@ -1,11 +1,15 @@
 package com.banksystem.services;
 
 import com.banksystem.dto.TellerDTO;
+import com.banksystem.dto.TransactionPageDTO;
 import com.banksystem.entity.*;
 import com.banksystem.enums.*;
 import com.banksystem.exception.BusinessRuleException;
 import com.banksystem.exception.ResourceNotFoundException;
 import com.banksystem.repository.*;
+import com.banksystem.security.TokenRevocationService;
+import com.banksystem.util.KeysetCursor;
+import com.banksystem.util.KeysetCursorCodec;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -17,12 +21,13 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 @Service
 @Slf4j
 public class branchManagerService {
 
+    private static final int MAX_TRANSACTION_PAGE_SIZE = 200;
+
     private final BranchRepository branchRepository;
     private final TellerRepository tellerRepository;
     private final LoanApplicationRepository loanApplicationRepository;
@@ -32,6 +37,12 @@ public class branchManagerService {
     private final TransactionRepository transactionRepository;
     private final BranchManagerRepository branchManagerRepository;
     private final TellerService tellerService;
+    private final BankEarningsService bankEarningsService;
+    private final LedgerService ledgerService;
+    private final EarningsTimelineService earningsTimelineService;
+    private final LoanStatisticsService loanStatisticsService;
+    private final TokenRevocationService tokenRevocationService;
+    private final KeysetCursorCodec keysetCursorCodec;
 
     public branchManagerService(BranchRepository branchRepository,
                                 TellerRepository tellerRepository,
@@ -41,7 +52,13 @@ public class branchManagerService {
                                 CustomerRepository customerRepository,
                                 TransactionRepository transactionRepository,
                                 BranchManagerRepository branchManagerRepository,
-                                TellerService tellerService) {
+                                TellerService tellerService,
+                                BankEarningsService bankEarningsService,
+                                LedgerService ledgerService,
+                                EarningsTimelineService earningsTimelineService,
+                                LoanStatisticsService loanStatisticsService,
+                                TokenRevocationService tokenRevocationService,
+                                KeysetCursorCodec keysetCursorCodec) {
         this.branchRepository = branchRepository;
         this.tellerRepository = tellerRepository;
         this.loanApplicationRepository = loanApplicationRepository;
@@ -51,6 +68,12 @@ public class branchManagerService {
         this.transactionRepository = transactionRepository;
         this.branchManagerRepository = branchManagerRepository;
         this.tellerService = tellerService;
+        this.bankEarningsService = bankEarningsService;
+        this.ledgerService = ledgerService;
+        this.earningsTimelineService = earningsTimelineService;
+        this.loanStatisticsService = loanStatisticsService;
+        this.tokenRevocationService = tokenRevocationService;
+        this.keysetCursorCodec = keysetCursorCodec;
     }
 
     // ==================== HELPER METHOD ====================
@@ -117,11 +140,14 @@ public class branchManagerService {
         }
     }
 
+    @Transactional
     public void deactivateTeller(Long tellerId) {
         Teller teller = tellerRepository.findById(tellerId)
                 .orElseThrow(() -> new BusinessRuleException("Teller id " + tellerId));
         teller.setIsActive(false);
         tellerRepository.save(teller);
+        // Tokens already handed out to the teller stop working on every node
+        tokenRevocationService.revokeSubject(RolesType.TELLER, tellerId);
     }
 
     public List<Teller> getTellersByBranch(Long branchId) {
@@ -171,6 +197,7 @@ public class branchManagerService {
         account.setCurrentBalance(approvedAmount);
         account.setAvailableBalance(approvedAmount);
         Account savedAccount = accountRepository.save(account);
+        ledgerService.recordLoanDisbursement(savedAccount, savedAccount.getBranch().getId(), approvedAmount);
 
         BigDecimal emiAmount = calculateEMI(approvedAmount, loanOffers.getInterestRate(), approvedTenure);
 
@@ -187,6 +214,7 @@ public class branchManagerService {
         loanAccount.setTenureMonths(approvedTenure);
         loanAccount.setStatus(LoanStatus.APPROVED);
 
+        loanStatisticsService.invalidateAfterCommit(branchManager.getBranch().getId());
         return loanApplicationRepository.save(loanApplication);
     }
 
@@ -228,6 +256,7 @@ public class branchManagerService {
         loanApplication.setRejectionReason(rejectionReason);
         loanApplication.setApprovedAt(LocalDateTime.now());
 
+        loanStatisticsService.invalidateAfterCommit(branchManager.getBranch().getId());
         return loanApplicationRepository.save(loanApplication);
     }
 
@@ -307,65 +336,46 @@ public class branchManagerService {
 
     // ==================== REPORTS & ANALYTICS ====================
 
+    // Total and period earnings read from one snapshot, so they always agree
+    @Transactional(readOnly = true)
     public Map<String, Object> getBranchEarningDetails(Long branchId, LocalDateTime startDate, LocalDateTime endDate) {
         Branch branch = branchRepository.findById(branchId)
                 .orElseThrow(() -> new ResourceNotFoundException("Branch", "id", branchId));
+        BigDecimal totalEarnings = bankEarningsService.getTotalEarning(
+                BankType.BANK_BRANCH, branchId, branch.getTotalEarning());
+        EarningsTimelineService.PeriodEarnings period = earningsTimelineService.getPeriodEarnings(
+                BankType.BANK_BRANCH, branchId, startDate, endDate);
 
         return Map.of(
                 "branchId", branchId,
                 "branchName", branch.getName(),
-                "startDate", startDate,
-                "endDate", endDate,
-                "totalEarnings", branch.getTotalEarning(),
-                "periodEarnings", BigDecimal.ZERO,
-                "transactionCount", 0
+                "startDate", period.from(),
+                "endDate", period.to(),
+                "totalEarnings", totalEarnings,
+                "periodEarnings", period.amount(),
+                "transactionCount", period.transactionCount()
         );
     }
 
     public Map<String, Object> getBranchLoanStatistics(Long branchId) {
-        Branch branch = branchRepository.findById(branchId)
-                .orElseThrow(() -> new ResourceNotFoundException("Branch", "id", branchId));
-
-        List<LoanApplication> allLoanApplications = loanApplicationRepository.findAll().stream()
-                .filter(la -> la.getCustomer().getBranch().getId().equals(branchId))
-                .collect(Collectors.toList());
-
-        long pendingLoans = allLoanApplications.stream()
-                .filter(la -> la.getStatus() == RequestStatus.PENDING)
-                .count();
-
-        long approvedLoans = allLoanApplications.stream()
-                .filter(la -> la.getStatus() == RequestStatus.APPROVED)
-                .count();
-
-        long rejectedLoans = allLoanApplications.stream()
-                .filter(la -> la.getStatus() == RequestStatus.REJECTED)
-                .count();
-
-        BigDecimal totalLoanAmount = allLoanApplications.stream()
-                .map(LoanApplication::getRequestedAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        return Map.of(
-                "branchId", branchId,
-                "totalLoanApplications", allLoanApplications.size(),
-                "pendingLoans", pendingLoans,
-                "approvedLoans", approvedLoans,
-                "rejectedLoans", rejectedLoans,
-                "totalLoanAmount", totalLoanAmount
-        );
+        return loanStatisticsService.getBranchLoanStatistics(branchId);
     }
 
     public List<Transaction> getTransactionListByDateRange(Long branchId, LocalDateTime startDate, LocalDateTime endDate) {
-        Branch branch = branchRepository.findById(branchId)
-                .orElseThrow(() -> new ResourceNotFoundException("Branch", "id", branchId));
-
-        List<Account> branchAccounts = branch.getAccounts();
+        return transactionRepository.findByBranchAndDateRange(branchId, startDate, endDate);
+    }
 
-        return branchAccounts.stream()
-                .flatMap(account -> transactionRepository.findByAccountAndDateRange(account, startDate, endDate).stream())
-                .distinct()
-                .collect(Collectors.toList());
+    /**
+     * Keyset-paginated transfers of the branch between startDate and endDate (inclusive), newest first.
+     */
+    public TransactionPageDTO getTransactionPageByDateRange(Long branchId, LocalDateTime startDate,
+                                                            LocalDateTime endDate, String cursor, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_TRANSACTION_PAGE_SIZE));
+        KeysetCursor position = keysetCursorCodec.decodeOrDefault(cursor, new KeysetCursor(endDate, Long.MAX_VALUE));
+
+        List<Transaction> rows = transactionRepository.findBranchPage(branchId, startDate,
+                position.date(), position.id(), pageSize + 1);
+        return TransactionPageDTO.of(rows, pageSize, keysetCursorCodec);
     }
 
     public List<Customer> getAllCustomersByBranch(Long branchId) {
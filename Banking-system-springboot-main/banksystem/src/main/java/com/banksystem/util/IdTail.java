@@ -0,0 +1,75 @@
+package com.banksystem.util;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A node's read position in an append-only table that is tailed by its
+ * auto-increment id, so no host clock is involved.
+ *
+ * Ids are handed out when a row is inserted but become visible when its transaction
+ * commits, so a later id can show up before an earlier one. Every id skipped over is
+ * kept as a gap and re-read on the following polls until it appears or gapTimeout
+ * has passed (its transaction rolled back, or the id was never used).
+ */
+public class IdTail {
+
+    // A jump larger than this (e.g. after a bulk purge and restart) is not tracked id by id
+    private static final int MAX_GAP_SPAN = 10_000;
+
+    private final long gapTimeoutNanos;
+    private final Map<Long, Long> gaps = new LinkedHashMap<>();
+    private long position = -1;
+
+    public IdTail(long gapTimeoutMillis) {
+        this.gapTimeoutNanos = gapTimeoutMillis * 1_000_000L;
+    }
+
+    public synchronized boolean isStarted() {
+        return position >= 0;
+    }
+
+    /**
+     * Starts reading after this id; ids up to it are treated as already seen.
+     */
+    public synchronized void start(long afterId) {
+        position = Math.max(afterId, 0);
+        gaps.clear();
+    }
+
+    // Highest id seen so far; the next poll reads the rows after it
+    public synchronized long position() {
+        return position;
+    }
+
+    /**
+     * Ids skipped over that may still appear. Gaps older than the timeout are dropped.
+     */
+    public synchronized List<Long> gaps() {
+        long now = System.nanoTime();
+        gaps.values().removeIf(firstMissed -> now - firstMissed > gapTimeoutNanos);
+        return new ArrayList<>(gaps.keySet());
+    }
+
+    /**
+     * Records a row as seen. Returns true the first time an id is seen, false for a row
+     * already handled (e.g. applied locally after commit and then read back by the poll).
+     */
+    public synchronized boolean advance(long id) {
+        if (position < 0) {
+            // Not started yet: the first poll reads this row again
+            return true;
+        }
+        if (id > position) {
+            long now = System.nanoTime();
+            for (long missing = Math.max(position + 1, id - MAX_GAP_SPAN); missing < id; missing++) {
+                gaps.put(missing, now);
+            }
+            position = id;
+            return true;
+        }
+        return gaps.remove(id) != null;
+    }
+}
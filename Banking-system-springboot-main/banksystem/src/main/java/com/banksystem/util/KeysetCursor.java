@@ -0,0 +1,28 @@
+package com.banksystem.util;
+
+import com.banksystem.exception.BusinessRuleException;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+
+/**
+ * (transactionDate, id) position for keyset pagination. The id breaks ties between
+ * rows with the same timestamp, so the cursor stays stable while new rows are being
+ * inserted. Clients only ever see it encoded by KeysetCursorCodec.
+ */
+public record KeysetCursor(LocalDateTime date, Long id) {
+
+    String raw() {
+        return date + "|" + id;
+    }
+
+    static KeysetCursor parse(String raw) {
+        try {
+            int separator = raw.indexOf('|');
+            return new KeysetCursor(LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new BusinessRuleException("Invalid page cursor");
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.banksystem.util;
+
+import com.banksystem.exception.BusinessRuleException;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Turns a KeysetCursor into the opaque string sent to clients and back. The cursor
+ * is URL-safe Base64 of its position. It is not signed: every keyset query is
+ * scoped to the caller's own account, branch or bank, so an edited cursor can only
+ * move the caller within rows they may already page through.
+ */
+@Component
+public class KeysetCursorCodec {
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    public String encode(KeysetCursor cursor) {
+        return ENCODER.encodeToString(cursor.raw().getBytes(StandardCharsets.UTF_8));
+    }
+
+    public KeysetCursor decode(String cursor) {
+        byte[] raw;
+        try {
+            raw = DECODER.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new BusinessRuleException("Invalid page cursor");
+        }
+        return KeysetCursor.parse(new String(raw, StandardCharsets.UTF_8));
+    }
+
+    // The decoded cursor, or `first` when the client sent none
+    public KeysetCursor decodeOrDefault(String cursor, KeysetCursor first) {
+        return cursor != null && !cursor.isBlank() ? decode(cursor) : first;
+    }
+}
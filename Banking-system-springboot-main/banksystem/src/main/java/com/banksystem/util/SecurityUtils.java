@@ -1,6 +1,7 @@
 package com.banksystem.util;
 
 import com.banksystem.exception.BusinessRuleException;
+import org.springframework.security.core.AuthenticatedPrincipal;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -15,7 +16,9 @@ public class SecurityUtils {
         if (authentication != null && authentication.isAuthenticated()) {
             Object principal = authentication.getPrincipal();
 
-            if (principal instanceof UserDetails) {
+            if (principal instanceof AuthenticatedPrincipal) {
+                return ((AuthenticatedPrincipal) principal).getName();
+            } else if (principal instanceof UserDetails) {
                 return ((UserDetails) principal).getUsername();
             } else if (principal instanceof String) {
                 return (String) principal;
@@ -0,0 +1,213 @@
+package com.banksystem.util;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Snowflake-style generator for business identifiers (transaction references,
+ * account, cheque book, cheque and debit card numbers).
+ *
+ * Every id is time ticks + a per-node sequence + the node id, so ids are unique
+ * across nodes without a database check as long as each node runs with its own
+ * app.node-id (NodeIdGuard keeps two live instances off the same one). The per-node
+ * state is one AtomicLong advanced with a CAS; when a tick's sequence is exhausted
+ * the generator borrows the next tick instead of blocking, and a clock step
+ * backwards never produces a smaller id.
+ *
+ * Card numbers and cheque serials use minute and second ticks, where a restart can
+ * land in a tick (or before a borrowed tick) the previous run already used. Those
+ * families keep a high-water mark in id_reservation, raised before any value at or
+ * above it is handed out, and resume above it after a restart.
+ */
+@Component
+public class SnowflakeIdGenerator {
+
+    // 2024-01-01T00:00:00Z
+    private static final long EPOCH_MILLIS = 1704067200000L;
+
+    private static final int NODE_BITS = 6;
+    public static final int MAX_NODE_ID = (1 << NODE_BITS) - 1;
+
+    // 41 bits of milliseconds | 16 bits of sequence | 6 bits of node
+    private static final int ID_SEQUENCE_BITS = 16;
+
+    // Card body is 11 decimal digits: 24 bits of minutes | 6 bits of sequence | 6 bits of node
+    private static final int CARD_SEQUENCE_BITS = 6;
+    private static final long CARD_BODY_LIMIT = 100_000_000_000L;
+    private static final String CARD_PREFIX = "4532";
+    // Ten minutes of card numbers are reserved per id_reservation write
+    private static final long CARD_RESERVE_TICKS = 10;
+
+    // Cheque serial: 30 bits of seconds | 8 bits of sequence | 6 bits of node | 10 bits of leaf
+    private static final int CHEQUE_SEQUENCE_BITS = 8;
+    private static final int CHEQUE_LEAF_BITS = 10;
+    public static final int MAX_CHEQUE_LEAVES = 1 << CHEQUE_LEAF_BITS;
+    private static final long CHEQUE_RESERVE_TICKS = 60;
+
+    private final long nodeId;
+    private final Sequencer idSequencer;
+    private final Sequencer cardSequencer;
+    private final Sequencer chequeSequencer;
+
+    public SnowflakeIdGenerator(@Value("${app.node-id}") int nodeId, ReservationStore reservationStore) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("app.node-id must be between 0 and " + MAX_NODE_ID + ", was " + nodeId);
+        }
+        this.nodeId = nodeId;
+        this.idSequencer = new Sequencer(1L, ID_SEQUENCE_BITS, null);
+        this.cardSequencer = new Sequencer(60_000L, CARD_SEQUENCE_BITS,
+                new Reservation(reservationStore, "card:node-" + nodeId, CARD_RESERVE_TICKS << CARD_SEQUENCE_BITS));
+        this.chequeSequencer = new Sequencer(1_000L, CHEQUE_SEQUENCE_BITS,
+                new Reservation(reservationStore, "cheque:node-" + nodeId, CHEQUE_RESERVE_TICKS << CHEQUE_SEQUENCE_BITS));
+    }
+
+    public long nextId() {
+        return (idSequencer.next() << NODE_BITS) | nodeId;
+    }
+
+    public String nextTransactionReference() {
+        return "TXN" + nextId();
+    }
+
+    public String nextAccountNumber() {
+        return "ACC" + nextId();
+    }
+
+    public String nextChequeBookNumber() {
+        return "CHQ" + nextId();
+    }
+
+    /**
+     * First cheque number of a new book. The book owns the next MAX_CHEQUE_LEAVES
+     * numbers, so its leaves never overlap another book's.
+     */
+    public long nextStartingChequeNumber(int leaves) {
+        if (leaves < 1 || leaves > MAX_CHEQUE_LEAVES) {
+            throw new IllegalArgumentException("A cheque book has 1 to " + MAX_CHEQUE_LEAVES + " leaves, was " + leaves);
+        }
+        return ((chequeSequencer.next() << NODE_BITS) | nodeId) << CHEQUE_LEAF_BITS;
+    }
+
+    /**
+     * 16 digit card number: fixed prefix, 11 digit unique body and a Luhn check digit.
+     */
+    public String nextCardNumber() {
+        long body = (cardSequencer.next() << NODE_BITS) | nodeId;
+        if (body >= CARD_BODY_LIMIT) {
+            throw new IllegalStateException("Card number space exhausted");
+        }
+
+        char[] digits = new char[16];
+        CARD_PREFIX.getChars(0, CARD_PREFIX.length(), digits, 0);
+        for (int i = 14; i >= CARD_PREFIX.length(); i--) {
+            digits[i] = (char) ('0' + body % 10);
+            body /= 10;
+        }
+        digits[15] = (char) ('0' + luhnCheckDigit(digits, 15));
+        return new String(digits);
+    }
+
+    // Check digit that makes the first `length` digits plus itself pass the Luhn test
+    static int luhnCheckDigit(char[] digits, int length) {
+        int sum = 0;
+        boolean doubleIt = true;
+        for (int i = length - 1; i >= 0; i--) {
+            int d = digits[i] - '0';
+            if (doubleIt) {
+                d *= 2;
+                if (d > 9) {
+                    d -= 9;
+                }
+            }
+            sum += d;
+            doubleIt = !doubleIt;
+        }
+        return (10 - sum % 10) % 10;
+    }
+
+    /**
+     * Durable high-water marks of the coarse-tick families, one per family and node.
+     */
+    public interface ReservationStore {
+        // The mark of a family, 0 if it has none yet
+        long load(String name);
+
+        // Raises the mark; it never moves backwards
+        void raise(String name, long reservedUntil);
+    }
+
+    /**
+     * Monotonic (tick << sequenceBits | sequence) counter of one id family.
+     */
+    private static final class Sequencer {
+        private final long tickMillis;
+        private final int sequenceBits;
+        private final Reservation reservation;
+        private final AtomicLong last = new AtomicLong();
+
+        Sequencer(long tickMillis, int sequenceBits, Reservation reservation) {
+            this.tickMillis = tickMillis;
+            this.sequenceBits = sequenceBits;
+            this.reservation = reservation;
+        }
+
+        long next() {
+            if (reservation != null) {
+                reservation.resume(last);
+            }
+            long floor = ((System.currentTimeMillis() - EPOCH_MILLIS) / tickMillis) << sequenceBits;
+            long value = last.accumulateAndGet(floor, (previous, now) -> Math.max(now, previous + 1));
+            if (reservation != null) {
+                reservation.cover(value);
+            }
+            return value;
+        }
+    }
+
+    /**
+     * Persisted upper bound (exclusive) of a sequencer's values.
+     */
+    private static final class Reservation {
+        private final ReservationStore store;
+        private final String name;
+        private final long ahead;
+        private volatile boolean resumed;
+        private volatile long reservedUntil;
+
+        Reservation(ReservationStore store, String name, long ahead) {
+            this.store = store;
+            this.name = name;
+            this.ahead = ahead;
+        }
+
+        // Loaded on first use, the database may not be ready when the bean is created
+        void resume(AtomicLong last) {
+            if (resumed) {
+                return;
+            }
+            synchronized (this) {
+                if (!resumed) {
+                    long mark = store.load(name);
+                    last.accumulateAndGet(mark - 1, Math::max);
+                    reservedUntil = mark;
+                    resumed = true;
+                }
+            }
+        }
+
+        void cover(long value) {
+            if (value < reservedUntil) {
+                return;
+            }
+            synchronized (this) {
+                if (value >= reservedUntil) {
+                    long until = value + ahead;
+                    store.raise(name, until);
+                    reservedUntil = until;
+                }
+            }
+        }
+    }
+}
@@ -431,4 +431,212 @@ VALUES (7005, 'Annual Compliance Fee', 'HEAD_BANK', 12000.00, 1, DATE_SUB(NOW(),
 -- =======================================================
 UPDATE head_bank
 SET total_earning = 22100.00
-WHERE id = 1;
\ No newline at end of file
+WHERE id = 1;
+
+-- =======================================================
+-- ID GENERATOR (pooled ids for high-volume tables)
+-- =======================================================
+-- Keeps each id_generator row ahead of the ids inserted explicitly above
+-- and of anything written while these tables were still AUTO_INCREMENT.
+INSERT INTO id_generator (gen_name, next_val)
+SELECT 'transactions', COALESCE(MAX(id), 0) + 1 FROM transactions
+ON DUPLICATE KEY UPDATE next_val = GREATEST(next_val, VALUES(next_val));
+
+INSERT INTO id_generator (gen_name, next_val)
+SELECT 'charges', COALESCE(MAX(id), 0) + 1 FROM charges
+ON DUPLICATE KEY UPDATE next_val = GREATEST(next_val, VALUES(next_val));
+
+INSERT INTO id_generator (gen_name, next_val)
+SELECT 'account', COALESCE(MAX(id), 0) + 1 FROM account
+ON DUPLICATE KEY UPDATE next_val = GREATEST(next_val, VALUES(next_val));
+
+INSERT INTO id_generator (gen_name, next_val)
+SELECT 'account_request', COALESCE(MAX(id), 0) + 1 FROM account_request
+ON DUPLICATE KEY UPDATE next_val = GREATEST(next_val, VALUES(next_val));
+
+INSERT INTO id_generator (gen_name, next_val)
+SELECT 'card_request', COALESCE(MAX(id), 0) + 1 FROM card_request
+ON DUPLICATE KEY UPDATE next_val = GREATEST(next_val, VALUES(next_val));
+
+INSERT INTO id_generator (gen_name, next_val)
+SELECT 'cheque_book_request', COALESCE(MAX(id), 0) + 1 FROM cheque_book_request
+ON DUPLICATE KEY UPDATE next_val = GREATEST(next_val, VALUES(next_val));
+
+
+-- =======================================================
+-- LEDGER OPENING SNAPSHOTS
+-- =======================================================
+-- Snapshots cut by wall time, before snapshots covered a commit sequence, may have
+-- missed late commits; they are dropped and the snapshot job takes new ones.
+-- Opening snapshots (no entry of the owner before as_of) cover no entries.
+DELETE s FROM ledger_snapshots s
+WHERE s.covered_seq IS NULL
+  AND EXISTS (SELECT 1 FROM ledger_entries e
+              WHERE e.owner_type = s.owner_type AND e.owner_id = s.owner_id AND e.created_at < s.as_of);
+
+UPDATE ledger_snapshots SET covered_seq = 0 WHERE covered_seq IS NULL;
+
+-- Balances that predate the ledger enter it as an opening snapshot. Owners that
+-- already have ledger entries are skipped: their balance is built from the journal.
+INSERT INTO ledger_snapshots (owner_type, owner_id, as_of, covered_seq, balance, created_at)
+SELECT 'ACCOUNT', a.id, NOW(), 0, COALESCE(a.current_balance, 0), NOW() FROM account a
+WHERE NOT EXISTS (SELECT 1 FROM ledger_snapshots s WHERE s.owner_type = 'ACCOUNT' AND s.owner_id = a.id)
+  AND NOT EXISTS (SELECT 1 FROM ledger_entries e WHERE e.owner_type = 'ACCOUNT' AND e.owner_id = a.id);
+
+INSERT INTO ledger_snapshots (owner_type, owner_id, as_of, covered_seq, balance, created_at)
+SELECT 'BANK_BRANCH', b.id, NOW(), 0, COALESCE(b.total_earning, 0) +
+       COALESCE((SELECT SUM(es.amount) FROM bank_earning_slot es WHERE es.bank_type = 'BANK_BRANCH' AND es.bank_id = b.id), 0),
+       NOW() FROM branch b
+WHERE NOT EXISTS (SELECT 1 FROM ledger_snapshots s WHERE s.owner_type = 'BANK_BRANCH' AND s.owner_id = b.id)
+  AND NOT EXISTS (SELECT 1 FROM ledger_entries e WHERE e.owner_type = 'BANK_BRANCH' AND e.owner_id = b.id);
+
+INSERT INTO ledger_snapshots (owner_type, owner_id, as_of, covered_seq, balance, created_at)
+SELECT 'HEAD_BANK', h.id, NOW(), 0, COALESCE(h.total_earning, 0) +
+       COALESCE((SELECT SUM(es.amount) FROM bank_earning_slot es WHERE es.bank_type = 'HEAD_BANK' AND es.bank_id = h.id), 0),
+       NOW() FROM head_bank h
+WHERE NOT EXISTS (SELECT 1 FROM ledger_snapshots s WHERE s.owner_type = 'HEAD_BANK' AND s.owner_id = h.id)
+  AND NOT EXISTS (SELECT 1 FROM ledger_entries e WHERE e.owner_type = 'HEAD_BANK' AND e.owner_id = h.id);
+
+INSERT INTO ledger_snapshots (owner_type, owner_id, as_of, covered_seq, balance, created_at)
+SELECT 'CENTRAL_BANK', c.id, NOW(), 0, COALESCE(c.total_earning, 0) +
+       COALESCE((SELECT SUM(es.amount) FROM bank_earning_slot es WHERE es.bank_type = 'CENTRAL_BANK' AND es.bank_id = c.id), 0),
+       NOW() FROM central_bank c
+WHERE NOT EXISTS (SELECT 1 FROM ledger_snapshots s WHERE s.owner_type = 'CENTRAL_BANK' AND s.owner_id = c.id)
+  AND NOT EXISTS (SELECT 1 FROM ledger_entries e WHERE e.owner_type = 'CENTRAL_BANK' AND e.owner_id = c.id);
+
+
+-- =======================================================
+-- TRANSACTION BRANCH / HEAD BANK BACKFILL
+-- =======================================================
+-- Transfers written before branch_id / head_bank_id / to_branch_id existed
+UPDATE transactions t
+JOIN account fa ON fa.id = t.from_account_id
+JOIN account ta ON ta.id = t.to_account_id
+JOIN branch b ON b.id = fa.branch_id
+SET t.branch_id = fa.branch_id,
+    t.head_bank_id = b.head_bank_id,
+    t.to_branch_id = ta.branch_id
+WHERE t.branch_id IS NULL;
+
+
+-- =======================================================
+-- CHARGE DAILY ROLL-UP BACKFILL
+-- =======================================================
+-- One-time load of the roll-up from existing charges (slot 0); new transfers maintain it themselves.
+-- Charges are first summed per (transaction, bank) so a transfer counts once per charging bank.
+-- Gated on the data_migration marker, not on the table being empty: live transfers may already
+-- have written their own slots. The marker is claimed in the same transaction as the load, so a
+-- second node blocks on it and then skips, and a failed load leaves no marker behind.
+START TRANSACTION;
+
+INSERT IGNORE INTO data_migration (name, applied_at) VALUES ('charge-rollup-backfill', NOW());
+
+SET @charge_rollup_claimed = ROW_COUNT();
+
+INSERT INTO charge_daily_rollup
+    (bank_type, bank_id, day, transaction_type, slot, txn_count, total_amount, total_net_amount, total_charges)
+SELECT pc.bank_type, pc.bank_id, DATE(t.transaction_date), t.transaction_type, 0,
+       COUNT(*), SUM(t.amount), SUM(COALESCE(t.net_amount, 0)), SUM(pc.charged)
+FROM (SELECT c.transaction_id, c.bank_type, c.bank_id, SUM(c.charged_amount) AS charged
+      FROM charges c
+      GROUP BY c.transaction_id, c.bank_type, c.bank_id) pc
+JOIN transactions t ON t.id = pc.transaction_id
+WHERE @charge_rollup_claimed = 1
+GROUP BY pc.bank_type, pc.bank_id, DATE(t.transaction_date), t.transaction_type
+ON DUPLICATE KEY UPDATE
+    txn_count = txn_count + VALUES(txn_count),
+    total_amount = total_amount + VALUES(total_amount),
+    total_net_amount = total_net_amount + VALUES(total_net_amount),
+    total_charges = total_charges + VALUES(total_charges);
+
+COMMIT;
+
+
+-- =======================================================
+-- EARNINGS TIMELINE BACKFILL
+-- =======================================================
+-- Hourly history rebuilt from charges for banks that have no timeline yet. Running totals
+-- start from the opening balance below, so the last cumulative value equals
+-- total_earning plus pending slots.
+INSERT INTO bank_earning_timeline
+    (bank_type, bank_id, bucket_start, amount, txn_count, cumulative_amount, cumulative_count)
+SELECT h.bank_type, h.bank_id, h.bucket_start, h.amount, h.txn_count,
+       bk.total - SUM(h.amount) OVER w_all + SUM(h.amount) OVER w_run,
+       SUM(h.txn_count) OVER w_run
+FROM (SELECT pc.bank_type, pc.bank_id, DATE_FORMAT(t.transaction_date, '%Y-%m-%d %H:00:00') AS bucket_start,
+             SUM(pc.charged) AS amount, COUNT(*) AS txn_count
+      FROM (SELECT c.transaction_id, c.bank_type, c.bank_id, SUM(c.charged_amount) AS charged
+            FROM charges c
+            GROUP BY c.transaction_id, c.bank_type, c.bank_id
+            HAVING SUM(c.charged_amount) <> 0) pc
+      JOIN transactions t ON t.id = pc.transaction_id
+      GROUP BY pc.bank_type, pc.bank_id, DATE_FORMAT(t.transaction_date, '%Y-%m-%d %H:00:00')) h
+JOIN (SELECT 'BANK_BRANCH' AS bank_type, b.id AS bank_id, COALESCE(b.total_earning, 0) +
+             COALESCE((SELECT SUM(es.amount) FROM bank_earning_slot es WHERE es.bank_type = 'BANK_BRANCH' AND es.bank_id = b.id), 0) AS total
+      FROM branch b
+      UNION ALL
+      SELECT 'HEAD_BANK', hb.id, COALESCE(hb.total_earning, 0) +
+             COALESCE((SELECT SUM(es.amount) FROM bank_earning_slot es WHERE es.bank_type = 'HEAD_BANK' AND es.bank_id = hb.id), 0)
+      FROM head_bank hb
+      UNION ALL
+      SELECT 'CENTRAL_BANK', cb.id, COALESCE(cb.total_earning, 0) +
+             COALESCE((SELECT SUM(es.amount) FROM bank_earning_slot es WHERE es.bank_type = 'CENTRAL_BANK' AND es.bank_id = cb.id), 0)
+      FROM central_bank cb) bk ON bk.bank_type = h.bank_type AND bk.bank_id = h.bank_id
+WHERE NOT EXISTS (SELECT 1 FROM bank_earning_timeline tl WHERE tl.bank_type = h.bank_type AND tl.bank_id = h.bank_id)
+  AND NOT EXISTS (SELECT 1 FROM bank_earning_bucket eb WHERE eb.bank_type = h.bank_type AND eb.bank_id = h.bank_id)
+WINDOW w_all AS (PARTITION BY h.bank_type, h.bank_id),
+       w_run AS (PARTITION BY h.bank_type, h.bank_id ORDER BY h.bucket_start);
+
+-- Opening balance: earnings that are not backed by a charge row (seeded totals), dated 1970-01-01
+-- so it counts in totalEarning but in no reporting period.
+INSERT INTO bank_earning_timeline
+    (bank_type, bank_id, bucket_start, amount, txn_count, cumulative_amount, cumulative_count)
+SELECT bk.bank_type, bk.bank_id, '1970-01-01 00:00:00',
+       bk.total - COALESCE(ch.charged, 0), 0, bk.total - COALESCE(ch.charged, 0), 0
+FROM (SELECT 'BANK_BRANCH' AS bank_type, b.id AS bank_id, COALESCE(b.total_earning, 0) +
+             COALESCE((SELECT SUM(es.amount) FROM bank_earning_slot es WHERE es.bank_type = 'BANK_BRANCH' AND es.bank_id = b.id), 0) AS total
+      FROM branch b
+      UNION ALL
+      SELECT 'HEAD_BANK', hb.id, COALESCE(hb.total_earning, 0) +
+             COALESCE((SELECT SUM(es.amount) FROM bank_earning_slot es WHERE es.bank_type = 'HEAD_BANK' AND es.bank_id = hb.id), 0)
+      FROM head_bank hb
+      UNION ALL
+      SELECT 'CENTRAL_BANK', cb.id, COALESCE(cb.total_earning, 0) +
+             COALESCE((SELECT SUM(es.amount) FROM bank_earning_slot es WHERE es.bank_type = 'CENTRAL_BANK' AND es.bank_id = cb.id), 0)
+      FROM central_bank cb) bk
+LEFT JOIN (SELECT c.bank_type, c.bank_id, SUM(c.charged_amount) AS charged
+           FROM charges c
+           GROUP BY c.bank_type, c.bank_id) ch ON ch.bank_type = bk.bank_type AND ch.bank_id = bk.bank_id
+WHERE NOT EXISTS (SELECT 1 FROM bank_earning_timeline tl
+                  WHERE tl.bank_type = bk.bank_type AND tl.bank_id = bk.bank_id
+                    AND tl.bucket_start = '1970-01-01 00:00:00');
+
+
+-- =======================================================
+-- LOGIN IDENTITY BACKFILL
+-- =======================================================
+-- Role-specific id and scoping ids on the users row, for users created before the columns existed
+UPDATE users u
+LEFT JOIN customer c ON c.user_id = u.id
+LEFT JOIN teller t ON t.user_id = u.id
+LEFT JOIN branch_manager bm ON bm.user_id = u.id
+LEFT JOIN head_bank_admin hba ON hba.user_id = u.id
+LEFT JOIN central_bank_admin cba ON cba.user_id = u.id
+LEFT JOIN branch b ON b.id = CASE u.role
+        WHEN 'CUSTOMER' THEN c.branch_id
+        WHEN 'TELLER' THEN t.branch_id
+        WHEN 'BRANCHMANAGER' THEN bm.branch_id
+    END
+SET u.specific_id = CASE u.role
+        WHEN 'CUSTOMER' THEN c.id
+        WHEN 'TELLER' THEN t.id
+        WHEN 'BRANCHMANAGER' THEN bm.id
+        WHEN 'HEADMANAGER' THEN hba.id
+        WHEN 'CENTRALADMIN' THEN cba.id
+    END,
+    u.branch_id = b.id,
+    u.head_bank_id = CASE u.role
+        WHEN 'HEADMANAGER' THEN hba.head_bank_id
+        ELSE b.head_bank_id
+    END
+WHERE u.specific_id IS NULL;
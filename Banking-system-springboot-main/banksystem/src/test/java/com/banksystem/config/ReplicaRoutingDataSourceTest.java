@@ -0,0 +1,171 @@
+package com.banksystem.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.List;
+
+import static com.banksystem.config.ReplicaRoutingDataSource.Target.PRIMARY;
+import static com.banksystem.config.ReplicaRoutingDataSource.Target.REPLICA;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ReplicaRoutingDataSourceTest {
+
+    private static final String SERVICE_PACKAGE = "com.banksystem.services.";
+    private static final String SERVICE_METHOD = SERVICE_PACKAGE + "CustomerService.getTransactionHistoryPage";
+
+    private DataSource primary;
+    private DataSource replica;
+    private ReplicaLagMonitor lagMonitor;
+    private SimpleMeterRegistry meterRegistry;
+    private ReplicaRoutingDataSource routing;
+
+    @BeforeEach
+    void setUp() {
+        primary = mock(DataSource.class);
+        replica = mock(DataSource.class);
+        lagMonitor = mock(ReplicaLagMonitor.class);
+        when(lagMonitor.isWithinLag()).thenReturn(true);
+        meterRegistry = new SimpleMeterRegistry();
+        routing = new ReplicaRoutingDataSource(primary, replica, SERVICE_PACKAGE, lagMonitor,
+                Duration.ofSeconds(5), meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        endTransaction();
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void readOnlyServiceTransactionGoesToReplica() {
+        login("alice");
+        beginTransaction(SERVICE_METHOD, true);
+
+        assertEquals(REPLICA, routing.determineCurrentLookupKey());
+        assertEquals(1, routed("replica", "read_only"));
+    }
+
+    @Test
+    void readWriteTransactionGoesToPrimary() {
+        login("alice");
+        beginTransaction(SERVICE_PACKAGE + "TransactionService.makeTransaction", false);
+
+        assertEquals(PRIMARY, routing.determineCurrentLookupKey());
+        assertEquals(1, routed("primary", "read_write"));
+    }
+
+    @Test
+    void readOnlyTransactionsOutsideTheServicesStayOnPrimary() {
+        // Implicit read-only transaction of a Spring Data repository method, e.g. the login lookup
+        beginTransaction("org.springframework.data.jpa.repository.support.SimpleJpaRepository.findById", true);
+        assertEquals(PRIMARY, routing.determineCurrentLookupKey());
+        endTransaction();
+
+        beginTransaction(null, true);
+        assertEquals(PRIMARY, routing.determineCurrentLookupKey());
+
+        assertEquals(2, routed("primary", "not_service"));
+    }
+
+    @Test
+    void userReadsTheirOwnWritesFromPrimary() {
+        login("alice");
+        beginTransaction(SERVICE_PACKAGE + "TransactionService.makeTransaction", false);
+        routing.determineCurrentLookupKey();
+        endTransaction();
+
+        beginTransaction(SERVICE_METHOD, true);
+        assertEquals(PRIMARY, routing.determineCurrentLookupKey());
+        assertEquals(1, routed("primary", "sticky"));
+
+        // Another user is not affected
+        login("bob");
+        assertEquals(REPLICA, routing.determineCurrentLookupKey());
+    }
+
+    @Test
+    void stickinessEndsAfterTheWindow() throws Exception {
+        routing = new ReplicaRoutingDataSource(primary, replica, SERVICE_PACKAGE, lagMonitor,
+                Duration.ofMillis(50), meterRegistry);
+        login("alice");
+        beginTransaction(SERVICE_PACKAGE + "TransactionService.makeTransaction", false);
+        routing.determineCurrentLookupKey();
+        endTransaction();
+
+        Thread.sleep(150);
+
+        beginTransaction(SERVICE_METHOD, true);
+        assertEquals(REPLICA, routing.determineCurrentLookupKey());
+    }
+
+    @Test
+    void autoCommitStatementsDoNotMakeTheUserSticky() {
+        login("alice");
+        // No transaction at all: a plain JdbcTemplate call
+        assertEquals(PRIMARY, routing.determineCurrentLookupKey());
+
+        beginTransaction(SERVICE_METHOD, true);
+        assertEquals(REPLICA, routing.determineCurrentLookupKey());
+    }
+
+    @Test
+    void laggingReplicaFallsBackToPrimary() {
+        when(lagMonitor.isWithinLag()).thenReturn(false);
+        login("alice");
+        beginTransaction(SERVICE_METHOD, true);
+
+        assertEquals(PRIMARY, routing.determineCurrentLookupKey());
+        assertEquals(1, routed("primary", "lagging"));
+    }
+
+    @Test
+    void lazyProxyRoutesAtTheFirstStatement() throws Exception {
+        Connection primaryConnection = mock(Connection.class);
+        Connection replicaConnection = mock(Connection.class);
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        when(replica.getConnection()).thenReturn(replicaConnection);
+        LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy(routing);
+
+        // The connection is handed out before the transaction's flags are known
+        Connection connection = proxy.getConnection();
+        beginTransaction(SERVICE_METHOD, true);
+        connection.createStatement();
+
+        verify(replicaConnection).createStatement();
+        verify(primaryConnection, never()).createStatement();
+    }
+
+    private void login(String username) {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                username, null, List.of(new SimpleGrantedAuthority("CUSTOMER"))));
+    }
+
+    // What the transaction manager sets before the first statement of a @Transactional method
+    private static void beginTransaction(String name, boolean readOnly) {
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        TransactionSynchronizationManager.setCurrentTransactionName(name);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(readOnly);
+    }
+
+    private static void endTransaction() {
+        TransactionSynchronizationManager.setActualTransactionActive(false);
+        TransactionSynchronizationManager.setCurrentTransactionName(null);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    }
+
+    private double routed(String target, String reason) {
+        return meterRegistry.get("datasource.route").tag("target", target).tag("reason", reason).counter().count();
+    }
+}
@@ -0,0 +1,58 @@
+package com.banksystem.dto;
+
+import com.banksystem.entity.Transaction;
+import com.banksystem.util.KeysetCursor;
+import com.banksystem.util.KeysetCursorCodec;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransactionPageDTOTest {
+
+    private static final LocalDateTime DAY = LocalDateTime.of(2026, 4, 1, 9, 30);
+
+    private final KeysetCursorCodec codec = new KeysetCursorCodec();
+
+    @Test
+    void extraRowMeansAnotherPageAndIsDropped() {
+        TransactionPageDTO page = TransactionPageDTO.of(rows(4), 3, codec);
+
+        assertTrue(page.isHasMore());
+        assertEquals(List.of(4L, 3L, 2L), page.getTransactions().stream().map(Transaction::getId).toList());
+        assertEquals(new KeysetCursor(DAY.minusMinutes(2), 2L), codec.decode(page.getNextCursor()));
+    }
+
+    @Test
+    void fullPageWithoutExtraRowIsTheLast() {
+        TransactionPageDTO page = TransactionPageDTO.of(rows(3), 3, codec);
+
+        assertFalse(page.isHasMore());
+        assertNull(page.getNextCursor());
+        assertEquals(3, page.getTransactions().size());
+    }
+
+    @Test
+    void emptyResultIsAnEmptyLastPage() {
+        TransactionPageDTO page = TransactionPageDTO.of(List.of(), 3, codec);
+
+        assertFalse(page.isHasMore());
+        assertNull(page.getNextCursor());
+        assertTrue(page.getTransactions().isEmpty());
+    }
+
+    // Newest first, as the keyset queries return them: ids n..1, one minute apart
+    private static List<Transaction> rows(int n) {
+        List<Transaction> rows = new ArrayList<>();
+        for (long id = n; id >= 1; id--) {
+            Transaction t = new Transaction();
+            t.setId(id);
+            t.setTransactionDate(DAY.minusMinutes(n - id));
+            rows.add(t);
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,172 @@
+package com.banksystem.entity;
+
+import com.banksystem.enums.EntryDirection;
+import com.banksystem.enums.LedgerEntryType;
+import com.banksystem.enums.LedgerOwnerType;
+import org.h2.jdbcx.JdbcDataSource;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs a real Hibernate session over an in-memory database with the JDBC settings of
+ * application.yml and counts what reaches the driver: the inserts must go out as JDBC
+ * batches, and id blocks must be fetched once per allocationSize rows, each on a
+ * second connection taken from the pool while the session's own one is checked out.
+ */
+class IdBlockBatchingTest {
+
+    private static final int ROWS = 5_000;
+    private static final int BATCH_SIZE = 50;
+    private static final int ALLOCATION_SIZE = 1_000;
+
+    private final AtomicInteger connections = new AtomicInteger();
+    private final AtomicInteger insertBatches = new AtomicInteger();
+    private final AtomicInteger singleInserts = new AtomicInteger();
+    private final AtomicInteger idStatements = new AtomicInteger();
+    private final AtomicInteger open = new AtomicInteger();
+    private final AtomicInteger maxOpen = new AtomicInteger();
+
+    private StandardServiceRegistry registry;
+    private SessionFactory sessionFactory;
+
+    @BeforeEach
+    void setUp() {
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:id_blocks;MODE=MySQL;DB_CLOSE_DELAY=-1");
+
+        Map<String, Object> settings = new HashMap<>();
+        settings.put(AvailableSettings.JAKARTA_NON_JTA_DATASOURCE, counting(h2));
+        settings.put(AvailableSettings.HBM2DDL_AUTO, "create-drop");
+        settings.put(AvailableSettings.STATEMENT_BATCH_SIZE, BATCH_SIZE);
+        settings.put(AvailableSettings.ORDER_INSERTS, true);
+        settings.put(AvailableSettings.PREFERRED_POOLED_OPTIMIZER, "pooled-lo");
+        settings.put(AvailableSettings.GENERATE_STATISTICS, true);
+        registry = new StandardServiceRegistryBuilder().applySettings(settings).build();
+        sessionFactory = new MetadataSources(registry)
+                .addAnnotatedClass(LedgerEntry.class)
+                .buildMetadata()
+                .buildSessionFactory();
+    }
+
+    @AfterEach
+    void tearDown() {
+        sessionFactory.close();
+        StandardServiceRegistryBuilder.destroy(registry);
+    }
+
+    @Test
+    void insertsGoOutInBatchesWithOneIdFetchPerBlock() {
+        Statistics statistics = sessionFactory.getStatistics();
+        statistics.clear();
+        connections.set(0);
+        idStatements.set(0);
+        maxOpen.set(open.get());
+
+        try (Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+            for (int i = 0; i < ROWS; i++) {
+                session.persist(leg(i));
+            }
+            session.getTransaction().commit();
+        }
+
+        assertEquals(ROWS, statistics.getEntityInsertCount());
+        assertEquals(ROWS / BATCH_SIZE, insertBatches.get(), "insert batches");
+        assertEquals(0, singleInserts.get(), "unbatched inserts");
+
+        // The session's own connection plus one isolated connection per id block,
+        // each running a SELECT ... FOR UPDATE and an UPDATE on id_generator
+        int blocks = ROWS / ALLOCATION_SIZE;
+        assertEquals(1 + blocks, connections.get(), "connections checked out");
+        assertEquals(2 * blocks, idStatements.get(), "id_generator statements");
+        // What the pool must cover: every writing thread may briefly need a second connection
+        assertEquals(2, maxOpen.get(), "connections open at the same time");
+    }
+
+    private static LedgerEntry leg(int i) {
+        LedgerEntry entry = new LedgerEntry();
+        entry.setTransactionId((long) i);
+        entry.setOwnerType(LedgerOwnerType.values()[0]);
+        entry.setOwnerId(1L);
+        entry.setDirection(EntryDirection.values()[0]);
+        entry.setAmount(BigDecimal.ONE);
+        entry.setEntryType(LedgerEntryType.values()[0]);
+        entry.setCreatedAt(LocalDateTime.now());
+        return entry;
+    }
+
+    // ==================== JDBC COUNTING ====================
+
+    private DataSource counting(DataSource target) {
+        return proxy(DataSource.class, target, (method, args, result) -> {
+            if (method.equals("getConnection")) {
+                connections.incrementAndGet();
+                maxOpen.accumulateAndGet(open.incrementAndGet(), Math::max);
+                return proxy(Connection.class, result, this::statementOf);
+            }
+            return result;
+        });
+    }
+
+    private Object statementOf(String method, Object[] args, Object result) {
+        if (method.equals("close")) {
+            open.decrementAndGet();
+        }
+        if (!method.equals("prepareStatement")) {
+            return result;
+        }
+        String sql = ((String) args[0]).toLowerCase();
+        if (sql.contains("id_generator")) {
+            idStatements.incrementAndGet();
+            return result;
+        }
+        boolean insert = sql.startsWith("insert into ledger_entries");
+        return proxy(PreparedStatement.class, result, (m, a, r) -> {
+            if (insert && m.equals("executeBatch")) {
+                insertBatches.incrementAndGet();
+            } else if (insert && m.startsWith("execute")) {
+                singleInserts.incrementAndGet();
+            }
+            return r;
+        });
+    }
+
+    @FunctionalInterface
+    private interface AfterCall {
+        Object apply(String method, Object[] args, Object result) throws Exception;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, Object target, AfterCall after) {
+        InvocationHandler handler = (p, method, args) -> {
+            try {
+                return after.apply(method.getName(), args, method.invoke(target, args));
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        };
+        return (T) Proxy.newProxyInstance(IdBlockBatchingTest.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+}
@@ -0,0 +1,133 @@
+package com.banksystem.services;
+
+import com.banksystem.entity.Charges;
+import com.banksystem.entity.ChargesBook;
+import com.banksystem.enums.BankType;
+import com.banksystem.enums.TransactionType;
+import com.banksystem.repository.ChargesBookRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * The index must match exactly the rows the former lookup selected:
+ * bankId, bankType and transactionType equal and ":amount BETWEEN minValue AND maxValue".
+ */
+class ChargeRuleEngineTest {
+
+    private ChargesBookRepository chargesBookRepository;
+    private ChargeRuleEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        chargesBookRepository = mock(ChargesBookRepository.class);
+        engine = new ChargeRuleEngine(chargesBookRepository, mock(CacheInvalidationBus.class));
+    }
+
+    @Test
+    void boundsAreInclusiveLikeBetween() {
+        rules(rule("fee", BankType.BANK_BRANCH, 1L, TransactionType.TRANSFER, 100.0, 500.0, 5.0));
+
+        assertEquals(List.of("fee"), feeNames(BankType.BANK_BRANCH, 1L, TransactionType.TRANSFER, "100"));
+        assertEquals(List.of("fee"), feeNames(BankType.BANK_BRANCH, 1L, TransactionType.TRANSFER, "500"));
+        assertEquals(List.of("fee"), feeNames(BankType.BANK_BRANCH, 1L, TransactionType.TRANSFER, "250.75"));
+    }
+
+    @Test
+    void amountsOutsideTheRangeDoNotMatch() {
+        rules(rule("fee", BankType.BANK_BRANCH, 1L, TransactionType.TRANSFER, 100.0, 500.0, 5.0));
+
+        assertTrue(feeNames(BankType.BANK_BRANCH, 1L, TransactionType.TRANSFER, "99.99").isEmpty());
+        assertTrue(feeNames(BankType.BANK_BRANCH, 1L, TransactionType.TRANSFER, "500.01").isEmpty());
+    }
+
+    @Test
+    void rulesWithNullBoundsNeverMatch() {
+        rules(rule("no-min", BankType.BANK_BRANCH, 1L, TransactionType.TRANSFER, null, 500.0, 1.0),
+                rule("no-max", BankType.BANK_BRANCH, 1L, TransactionType.TRANSFER, 0.0, null, 2.0),
+                rule("no-type", BankType.BANK_BRANCH, 1L, null, 0.0, 500.0, 3.0));
+
+        assertTrue(feeNames(BankType.BANK_BRANCH, 1L, TransactionType.TRANSFER, "100").isEmpty());
+    }
+
+    @Test
+    void everyOverlappingRuleMatches() {
+        rules(rule("flat", BankType.HEAD_BANK, 7L, TransactionType.TRANSFER, 0.0, 10000.0, 2.0),
+                rule("mid", BankType.HEAD_BANK, 7L, TransactionType.TRANSFER, 1000.0, 5000.0, 10.0),
+                rule("high", BankType.HEAD_BANK, 7L, TransactionType.TRANSFER, 5000.0, 10000.0, 25.0));
+
+        assertEquals(List.of("flat"), feeNames(BankType.HEAD_BANK, 7L, TransactionType.TRANSFER, "999"));
+        assertEquals(List.of("flat", "mid"), feeNames(BankType.HEAD_BANK, 7L, TransactionType.TRANSFER, "1000"));
+        assertEquals(List.of("flat", "mid", "high"), feeNames(BankType.HEAD_BANK, 7L, TransactionType.TRANSFER, "5000"));
+        assertEquals(List.of("flat", "high"), feeNames(BankType.HEAD_BANK, 7L, TransactionType.TRANSFER, "7500"));
+    }
+
+    @Test
+    void rulesAreIsolatedPerBankAndTransactionType() {
+        rules(rule("branch-1", BankType.BANK_BRANCH, 1L, TransactionType.TRANSFER, 0.0, 1000.0, 1.0),
+                rule("branch-2", BankType.BANK_BRANCH, 2L, TransactionType.TRANSFER, 0.0, 1000.0, 1.0),
+                rule("head-1", BankType.HEAD_BANK, 1L, TransactionType.TRANSFER, 0.0, 1000.0, 1.0),
+                rule("withdrawal", BankType.BANK_BRANCH, 1L, TransactionType.WITHDRAWAL, 0.0, 1000.0, 1.0));
+
+        assertEquals(List.of("branch-1"), feeNames(BankType.BANK_BRANCH, 1L, TransactionType.TRANSFER, "10"));
+        assertEquals(List.of("head-1"), feeNames(BankType.HEAD_BANK, 1L, TransactionType.TRANSFER, "10"));
+        assertEquals(List.of("withdrawal"), feeNames(BankType.BANK_BRANCH, 1L, TransactionType.WITHDRAWAL, "10"));
+        assertTrue(feeNames(BankType.CENTRAL_BANK, 1L, TransactionType.TRANSFER, "10").isEmpty());
+    }
+
+    @Test
+    void resolvedChargesCarryTheRuleFee() {
+        rules(rule("fee", BankType.BANK_BRANCH, 1L, TransactionType.TRANSFER, 0.0, 1000.0, 4.5));
+
+        List<Charges> charges = new ArrayList<>();
+        engine.resolveInto(charges, BankType.BANK_BRANCH, 1L, TransactionType.TRANSFER, new BigDecimal("10"));
+
+        assertEquals(1, charges.size());
+        assertEquals(BankType.BANK_BRANCH, charges.get(0).getBankType());
+        assertEquals(1L, charges.get(0).getBankId());
+        assertEquals(4.5, charges.get(0).getChargedAmount());
+    }
+
+    @Test
+    void laterChangesToTheEntityDoNotLeakIntoTheIndex() {
+        ChargesBook managed = rule("fee", BankType.BANK_BRANCH, 1L, TransactionType.TRANSFER, 0.0, 1000.0, 4.5);
+        rules(managed);
+        engine.reload();
+
+        managed.setFeeAmount(99.0);
+        managed.setMaxValue(1.0);
+
+        List<Charges> charges = new ArrayList<>();
+        engine.resolveInto(charges, BankType.BANK_BRANCH, 1L, TransactionType.TRANSFER, new BigDecimal("10"));
+        assertEquals(4.5, charges.get(0).getChargedAmount());
+    }
+
+    private void rules(ChargesBook... rules) {
+        when(chargesBookRepository.findByIsActiveTrue()).thenReturn(List.of(rules));
+    }
+
+    private List<String> feeNames(BankType bankType, Long bankId, TransactionType type, String amount) {
+        List<Charges> charges = new ArrayList<>();
+        engine.resolveInto(charges, bankType, bankId, type, new BigDecimal(amount));
+        return charges.stream().map(Charges::getFeeName).toList();
+    }
+
+    private static ChargesBook rule(String feeName, BankType bankType, Long bankId, TransactionType type,
+                                    Double minValue, Double maxValue, Double feeAmount) {
+        ChargesBook cb = new ChargesBook();
+        cb.setFeeName(feeName);
+        cb.setBankType(bankType);
+        cb.setBankId(bankId);
+        cb.setTransactionType(type);
+        cb.setMinValue(minValue);
+        cb.setMaxValue(maxValue);
+        cb.setFeeAmount(feeAmount);
+        return cb;
+    }
+}
@@ -0,0 +1,218 @@
+package com.banksystem.services;
+
+import com.banksystem.dto.TransactionDto;
+import com.banksystem.entity.IdempotencyKey;
+import com.banksystem.entity.Transaction;
+import com.banksystem.enums.TransactionType;
+import com.banksystem.exception.BusinessRuleException;
+import com.banksystem.exception.IdempotencyConflictException;
+import com.banksystem.repository.IdempotencyKeyRepository;
+import com.banksystem.repository.TransactionRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class IdempotencyServiceTest {
+
+    private IdempotencyKeyRepository keyRepository;
+    private TransactionRepository transactionRepository;
+    private IdempotencyService service;
+
+    @BeforeEach
+    void setUp() {
+        keyRepository = mock(IdempotencyKeyRepository.class);
+        transactionRepository = mock(TransactionRepository.class);
+        service = new IdempotencyService(keyRepository, transactionRepository, 60, 100);
+        loginAs("alice");
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void noKeyMeansNoClaim() {
+        assertNull(service.claim(null, transfer("100")));
+        assertNull(service.claim("  ", transfer("100")));
+    }
+
+    @Test
+    void keysAreScopedPerUser() {
+        IdempotencyService.Claim alice = service.claim("k-1", transfer("100"));
+        loginAs("bob");
+        IdempotencyService.Claim bob = service.claim("k-1", transfer("100"));
+
+        assertNotEquals(alice.storageKey(), bob.storageKey());
+        assertEquals(alice.requestHash(), bob.requestHash());
+    }
+
+    @Test
+    void requestHashComparesAmountsByValue() {
+        assertEquals(service.claim("k", transfer("10")).requestHash(),
+                service.claim("k", transfer("10.00")).requestHash());
+        assertNotEquals(service.claim("k", transfer("10")).requestHash(),
+                service.claim("k", transfer("11")).requestHash());
+    }
+
+    @Test
+    void replayAfterCommitIsServedFromCacheWithoutRunningTheTransfer() {
+        IdempotencyService.Claim claim = service.claim("k-1", transfer("100"));
+        Transaction original = transaction(7L);
+        AtomicInteger runs = new AtomicInteger();
+
+        TransactionSynchronizationManager.initSynchronization();
+        Transaction first = service.execute(claim, () -> {
+            runs.incrementAndGet();
+            service.reserve(claim);
+            service.complete(claim, original);
+            return original;
+        });
+        commit();
+
+        Transaction replay = service.execute(claim, () -> {
+            runs.incrementAndGet();
+            return transaction(8L);
+        });
+
+        assertSame(original, first);
+        assertSame(original, replay);
+        assertEquals(1, runs.get());
+        verify(keyRepository).insertKey(eq(claim.storageKey()), eq("alice"), eq(claim.requestHash()),
+                any(LocalDateTime.class));
+    }
+
+    @Test
+    void replayWithDifferentBodyIsRejected() {
+        IdempotencyService.Claim claim = service.claim("k-1", transfer("100"));
+        TransactionSynchronizationManager.initSynchronization();
+        service.execute(claim, () -> {
+            service.complete(claim, transaction(7L));
+            return transaction(7L);
+        });
+        commit();
+
+        IdempotencyService.Claim changed = service.claim("k-1", transfer("999"));
+        assertThrows(IdempotencyConflictException.class,
+                () -> service.execute(changed, () -> fail("transfer must not run")));
+    }
+
+    @Test
+    void concurrentDuplicateReturnsTheCommittedOriginal() {
+        IdempotencyService.Claim claim = service.claim("k-1", transfer("100"));
+        Transaction original = transaction(7L);
+        when(keyRepository.findById(claim.storageKey()))
+                .thenReturn(Optional.of(storedKey(claim, claim.requestHash(), 7L)));
+        when(transactionRepository.findById(7L)).thenReturn(Optional.of(original));
+
+        Transaction result = service.execute(claim, () -> {
+            throw duplicateKey();
+        });
+
+        assertSame(original, result);
+    }
+
+    @Test
+    void concurrentDuplicateWithDifferentBodyIsRejected() {
+        IdempotencyService.Claim claim = service.claim("k-1", transfer("100"));
+        when(keyRepository.findById(claim.storageKey()))
+                .thenReturn(Optional.of(storedKey(claim, "other-hash", 7L)));
+
+        assertThrows(IdempotencyConflictException.class, () -> service.execute(claim, () -> {
+            throw duplicateKey();
+        }));
+    }
+
+    @Test
+    void duplicateStillInFlightIsReportedAsBusy() {
+        IdempotencyService.Claim claim = service.claim("k-1", transfer("100"));
+        when(keyRepository.findById(claim.storageKey())).thenReturn(Optional.empty());
+
+        assertThrows(BusinessRuleException.class, () -> service.execute(claim, () -> {
+            throw duplicateKey();
+        }));
+    }
+
+    @Test
+    void otherConstraintViolationsAreNotTreatedAsReplays() {
+        IdempotencyService.Claim claim = service.claim("k-1", transfer("100"));
+        DataIntegrityViolationException notNull = new DataIntegrityViolationException("could not execute statement",
+                new SQLIntegrityConstraintViolationException("Column 'principal' cannot be null", "23000", 1048));
+
+        assertSame(notNull, assertThrows(DataIntegrityViolationException.class,
+                () -> service.execute(claim, () -> {
+                    throw notNull;
+                })));
+        verify(keyRepository, never()).findById(any());
+    }
+
+    @Test
+    void duplicateKeyIsRecognisedThroughTheCauseChain() {
+        assertTrue(IdempotencyService.isDuplicateKey(duplicateKey()));
+        assertTrue(IdempotencyService.isDuplicateKey(new DuplicateKeyException("Duplicate entry")));
+        assertFalse(IdempotencyService.isDuplicateKey(new DataIntegrityViolationException("Data too long",
+                new SQLIntegrityConstraintViolationException("Data too long", "22001", 1406))));
+    }
+
+    @Test
+    void overlongKeyIsRejected() {
+        assertThrows(BusinessRuleException.class,
+                () -> service.claim("x".repeat(IdempotencyService.MAX_KEY_LENGTH + 1), transfer("1")));
+    }
+
+    // What Spring hands back for MySQL error 1062 on the idempotency_key insert
+    private static DataIntegrityViolationException duplicateKey() {
+        return new DataIntegrityViolationException("could not execute statement",
+                new SQLIntegrityConstraintViolationException("Duplicate entry 'k' for key 'PRIMARY'", "23000", 1062));
+    }
+
+    private static void loginAs(String username) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(username, null, List.of()));
+    }
+
+    private static void commit() {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+    }
+
+    private static TransactionDto transfer(String amount) {
+        TransactionDto dto = new TransactionDto();
+        dto.setSenderAccountNumber("ACC-1");
+        dto.setReceiverAccountNumber("ACC-2");
+        dto.setTransactionType(TransactionType.TRANSFER);
+        dto.setAmount(new BigDecimal(amount));
+        return dto;
+    }
+
+    private static Transaction transaction(Long id) {
+        Transaction transaction = new Transaction();
+        transaction.setId(id);
+        transaction.setTransactionReference("TXN-" + id);
+        return transaction;
+    }
+
+    private static IdempotencyKey storedKey(IdempotencyService.Claim claim, String requestHash, Long transactionId) {
+        return new IdempotencyKey(claim.storageKey(), claim.principal(), requestHash, transactionId, LocalDateTime.now());
+    }
+}
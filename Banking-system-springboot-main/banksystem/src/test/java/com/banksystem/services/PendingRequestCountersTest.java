@@ -0,0 +1,134 @@
+package com.banksystem.services;
+
+import com.banksystem.dto.PendingSummaryDTO;
+import com.banksystem.enums.PendingRequestType;
+import com.banksystem.enums.RequestStatus;
+import com.banksystem.repository.AccountRequestRepository;
+import com.banksystem.repository.CardRequestRepository;
+import com.banksystem.repository.ChequeBookRequestRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Deltas must only land once the surrounding transaction commits, so the dashboard
+ * never counts a request whose creation or approval was rolled back.
+ */
+class PendingRequestCountersTest {
+
+    private static final Long BRANCH = 7L;
+
+    private AccountRequestRepository accountRequestRepository;
+    private CardRequestRepository cardRequestRepository;
+    private ChequeBookRequestRepository chequeBookRequestRepository;
+    private PendingRequestCounters counters;
+
+    @BeforeEach
+    void setUp() {
+        accountRequestRepository = mock(AccountRequestRepository.class);
+        cardRequestRepository = mock(CardRequestRepository.class);
+        chequeBookRequestRepository = mock(ChequeBookRequestRepository.class);
+        counters = new PendingRequestCounters(accountRequestRepository, cardRequestRepository, chequeBookRequestRepository);
+
+        when(accountRequestRepository.countByBranchAndStatus(RequestStatus.PENDING)).thenReturn(rows(BRANCH, 3L));
+        when(cardRequestRepository.countByBranchAndStatus(RequestStatus.PENDING)).thenReturn(rows(BRANCH, 1L));
+        when(chequeBookRequestRepository.countByBranchAndStatus(RequestStatus.PENDING)).thenReturn(rows(BRANCH, 0L));
+        counters.reseed();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void seedsFromTheDatabase() {
+        assertSummary(3, 1, 0, counters.getSummary(BRANCH));
+        assertSummary(0, 0, 0, counters.getSummary(99L));
+    }
+
+    @Test
+    void deltasWaitForCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        counters.requestCreated(BRANCH, PendingRequestType.CARD);
+        counters.requestProcessed(BRANCH, PendingRequestType.ACCOUNT);
+        assertSummary(3, 1, 0, counters.getSummary(BRANCH));
+
+        complete(true);
+        assertSummary(2, 2, 0, counters.getSummary(BRANCH));
+    }
+
+    @Test
+    void rolledBackDeltasAreDropped() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        counters.requestCreated(BRANCH, PendingRequestType.CHEQUE_BOOK);
+        counters.requestProcessed(BRANCH, PendingRequestType.ACCOUNT);
+
+        complete(false);
+        assertSummary(3, 1, 0, counters.getSummary(BRANCH));
+    }
+
+    @Test
+    void outsideATransactionDeltasApplyAtOnce() {
+        counters.requestCreated(11L, PendingRequestType.ACCOUNT);
+
+        assertSummary(1, 0, 0, counters.getSummary(11L));
+    }
+
+    @Test
+    void countsNeverGoNegative() {
+        counters.requestProcessed(BRANCH, PendingRequestType.CHEQUE_BOOK);
+
+        assertEquals(0, counters.getSummary(BRANCH).getPendingChequeBookRequests());
+    }
+
+    @Test
+    void reseedReplacesDriftedCounts() {
+        counters.requestCreated(BRANCH, PendingRequestType.ACCOUNT);
+        when(accountRequestRepository.countByBranchAndStatus(RequestStatus.PENDING)).thenReturn(rows(BRANCH, 5L));
+
+        counters.reseed();
+        assertSummary(5, 1, 0, counters.getSummary(BRANCH));
+    }
+
+    // What the transaction manager does at the end of the transaction
+    private static void complete(boolean commit) {
+        List<TransactionSynchronization> synchronizations =
+                new ArrayList<>(TransactionSynchronizationManager.getSynchronizations());
+        TransactionSynchronizationManager.clearSynchronization();
+        for (TransactionSynchronization synchronization : synchronizations) {
+            if (commit) {
+                synchronization.afterCommit();
+            }
+            synchronization.afterCompletion(commit
+                    ? TransactionSynchronization.STATUS_COMMITTED
+                    : TransactionSynchronization.STATUS_ROLLED_BACK);
+        }
+    }
+
+    // (branchId, COUNT(*)) as returned by countByBranchAndStatus
+    private static List<Object[]> rows(Long branchId, long count) {
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[]{branchId, count});
+        return rows;
+    }
+
+    private static void assertSummary(int accounts, int cards, int chequeBooks, PendingSummaryDTO summary) {
+        assertEquals(accounts, summary.getPendingAccountRequests());
+        assertEquals(cards, summary.getPendingCardRequests());
+        assertEquals(chequeBooks, summary.getPendingChequeBookRequests());
+        assertEquals(accounts + cards + chequeBooks, summary.getTotalPendingRequests());
+    }
+}
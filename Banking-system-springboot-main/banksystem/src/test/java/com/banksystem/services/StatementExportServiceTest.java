@@ -0,0 +1,143 @@
+package com.banksystem.services;
+
+import com.banksystem.dto.StatementRow;
+import com.banksystem.enums.ExportFormat;
+import com.banksystem.repository.TransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class StatementExportServiceTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2026, 1, 1, 0, 0);
+    private static final LocalDateTime END = LocalDateTime.of(2026, 2, 1, 0, 0);
+    private static final int PAGE_SIZE = 3;
+
+    private TransactionRepository transactionRepository;
+    private StatementExportService service;
+
+    @BeforeEach
+    void setUp() {
+        transactionRepository = mock(TransactionRepository.class);
+        service = new StatementExportService(transactionRepository, PAGE_SIZE);
+    }
+
+    @Test
+    void formulaLikeTextIsPrefixedAndQuoted() throws Exception {
+        sides(List.of(row(1, START, "=HYPERLINK(\"http://x\")"), row(2, START.plusHours(1), "+1"),
+                        row(3, START.plusHours(2), "-2"), row(4, START.plusHours(3), "@SUM(A1)"),
+                        row(5, START.plusHours(4), "\tcmd"), row(6, START.plusHours(5), "\rcmd")),
+                List.of());
+
+        List<String> descriptions = csvLines().stream().skip(1)
+                .map(line -> line.substring(line.indexOf("COMPLETED,") + "COMPLETED,".length()))
+                .toList();
+
+        assertEquals(List.of("\"'=HYPERLINK(\"\"http://x\"\")\"", "\"'+1\"", "\"'-2\"", "\"'@SUM(A1)\"",
+                "\"'\tcmd\""), descriptions.subList(0, 5));
+        assertTrue(csv().contains(",\"'\rcmd\"\n"));
+    }
+
+    @Test
+    void plainTextAndNegativeAmountsAreLeftAlone() throws Exception {
+        StatementRow refund = row(1, START, "rent, March");
+        when(refund.getAmount()).thenReturn(new BigDecimal("-12.50"));
+        sides(List.of(refund), List.of());
+
+        String line = csvLines().get(1);
+
+        assertTrue(line.contains(",-12.50,"), line);
+        assertTrue(line.endsWith(",\"rent, March\""), line);
+    }
+
+    @Test
+    void sidesAreMergedInDateThenIdOrderAcrossPages() throws Exception {
+        LocalDateTime t = START.plusDays(1);
+        List<StatementRow> sent = List.of(row(10, t, "s"), row(30, t, "s"), row(31, t.plusHours(1), "s"),
+                row(40, t.plusHours(2), "s"), row(41, t.plusHours(5), "s"));
+        List<StatementRow> received = List.of(row(5, START, "r"), row(20, t, "r"), row(35, t.plusHours(1), "r"),
+                row(36, t.plusHours(1), "r"), row(50, t.plusHours(3), "r"), row(51, t.plusHours(3), "r"),
+                row(52, t.plusHours(4), "r"));
+        sides(sent, received);
+
+        List<String> references = csvLines().stream().skip(1).map(line -> line.substring(0, line.indexOf(','))).toList();
+
+        assertEquals(List.of("TX5", "TX10", "TX20", "TX30", "TX31", "TX35", "TX36", "TX40", "TX50", "TX51", "TX52", "TX41"),
+                references);
+    }
+
+    @Test
+    void eachSideIsReadInBoundedPages() throws Exception {
+        List<StatementRow> sent = new ArrayList<>();
+        for (int i = 1; i <= 7; i++) {
+            sent.add(row(i, START.plusMinutes(i), "s"));
+        }
+        sides(sent, List.of());
+
+        assertEquals(8, csvLines().size());
+        // 3 + 3 + 1 rows on the sent side, one empty page on the received side
+        verify(transactionRepository, times(3)).findAccountSentRows(eq(1L), any(), any(), eq(END), eq(PAGE_SIZE));
+        verify(transactionRepository, times(1)).findAccountReceivedRows(eq(1L), any(), any(), eq(END), eq(PAGE_SIZE));
+    }
+
+    @Test
+    void emptyStatementHasOnlyTheHeader() throws Exception {
+        sides(List.of(), List.of());
+
+        assertEquals(1, csvLines().size());
+    }
+
+    private void sides(List<StatementRow> sent, List<StatementRow> received) {
+        when(transactionRepository.findAccountSentRows(eq(1L), any(), any(), eq(END), anyInt()))
+                .thenAnswer(inv -> page(sent, inv.getArgument(1), inv.getArgument(2), inv.getArgument(4)));
+        when(transactionRepository.findAccountReceivedRows(eq(1L), any(), any(), eq(END), anyInt()))
+                .thenAnswer(inv -> page(received, inv.getArgument(1), inv.getArgument(2), inv.getArgument(4)));
+    }
+
+    // Behaves like the keyset query: rows strictly after (afterDate, afterId), oldest first
+    private static List<StatementRow> page(List<StatementRow> rows, LocalDateTime afterDate, Long afterId, int limit) {
+        return rows.stream()
+                .filter(r -> r.getTransactionDate().isAfter(afterDate)
+                        || (r.getTransactionDate().isEqual(afterDate) && r.getId() > afterId))
+                .sorted(Comparator.comparing(StatementRow::getTransactionDate).thenComparing(StatementRow::getId))
+                .limit(limit)
+                .toList();
+    }
+
+    private String csv() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        service.writeAccountStatement(1L, START, END, ExportFormat.CSV, out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private List<String> csvLines() throws Exception {
+        return List.of(csv().split("\n"));
+    }
+
+    private static StatementRow row(long id, LocalDateTime date, String description) {
+        StatementRow row = mock(StatementRow.class);
+        when(row.getId()).thenReturn(id);
+        when(row.getTransactionReference()).thenReturn("TX" + id);
+        when(row.getTransactionDate()).thenReturn(date);
+        when(row.getFromAccountNumber()).thenReturn("1000");
+        when(row.getToAccountNumber()).thenReturn("2000");
+        when(row.getTransactionType()).thenReturn("TRANSFER");
+        when(row.getAmount()).thenReturn(new BigDecimal("100.00"));
+        when(row.getTotalCharges()).thenReturn(new BigDecimal("1.00"));
+        when(row.getNetAmount()).thenReturn(new BigDecimal("99.00"));
+        when(row.getStatus()).thenReturn("COMPLETED");
+        when(row.getDescription()).thenReturn(description);
+        return row;
+    }
+}
@@ -0,0 +1,218 @@
+package com.banksystem.services;
+
+import com.banksystem.dto.TransactionDto;
+import com.banksystem.entity.Transaction;
+import com.banksystem.enums.TransactionType;
+import com.banksystem.exception.BusinessRuleException;
+import com.banksystem.services.TransactionService.TransferOutcome;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.CannotAcquireLockException;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * Drives the committer thread against a mocked TransactionService. Transfers are
+ * identified by their sender, and the transaction of "ACCn" gets id n.
+ */
+class TransferPipelineTest {
+
+    private TransactionService transactionService;
+    private IdempotencyService idempotencyService;
+    private TransferPipeline pipeline;
+    private ExecutorService callers;
+
+    @BeforeEach
+    void setUp() {
+        transactionService = mock(TransactionService.class);
+        idempotencyService = mock(IdempotencyService.class);
+        callers = Executors.newCachedThreadPool();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (pipeline != null) {
+            pipeline.stop();
+        }
+        callers.shutdownNow();
+    }
+
+    @Test
+    void concurrentTransfersCommitAsOneGroup() throws Exception {
+        when(transactionService.applyGroup(anyList())).thenAnswer(inv -> succeedAll(inv.getArgument(0)));
+        start(3, 5_000, 10_000);
+
+        List<Future<Transaction>> results = submitAll("ACC1", "ACC2", "ACC3");
+
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(i + 1L, results.get(i).get(5, TimeUnit.SECONDS).getId());
+        }
+        verify(transactionService).applyGroup(argThat(group -> group.size() == 3));
+        verify(transactionService, never()).makeTransaction(any());
+    }
+
+    @Test
+    void businessRuleFailureStaysWithItsOwnTransfer() throws Exception {
+        when(transactionService.applyGroup(anyList())).thenAnswer(inv -> {
+            List<TransactionDto> group = inv.getArgument(0);
+            List<TransferOutcome> outcomes = new ArrayList<>();
+            for (TransactionDto dto : group) {
+                outcomes.add(dto.getSenderAccountNumber().equals("ACC2")
+                        ? new TransferOutcome(null, "Insufficient balance")
+                        : new TransferOutcome(transaction(dto), null));
+            }
+            return outcomes;
+        });
+        start(3, 5_000, 10_000);
+
+        List<Future<Transaction>> results = submitAll("ACC1", "ACC2", "ACC3");
+
+        assertEquals(1L, results.get(0).get(5, TimeUnit.SECONDS).getId());
+        ExecutionException failed = assertThrows(ExecutionException.class, () -> results.get(1).get(5, TimeUnit.SECONDS));
+        assertInstanceOf(BusinessRuleException.class, failed.getCause());
+        assertEquals("Insufficient balance", failed.getCause().getMessage());
+        assertEquals(3L, results.get(2).get(5, TimeUnit.SECONDS).getId());
+        verify(transactionService, times(1)).applyGroup(anyList());
+    }
+
+    @Test
+    void failedGroupIsReplayedOneByOneWithoutRetries() throws Exception {
+        // The group deadlocks, and so does ACC2 on its own
+        when(transactionService.applyGroup(anyList())).thenAnswer(inv -> {
+            List<TransactionDto> group = inv.getArgument(0);
+            if (group.size() > 1 || group.get(0).getSenderAccountNumber().equals("ACC2")) {
+                throw new CannotAcquireLockException("Deadlock found when trying to get lock");
+            }
+            return succeedAll(group);
+        });
+        start(3, 5_000, 10_000);
+
+        List<Future<Transaction>> results = submitAll("ACC1", "ACC2", "ACC3");
+
+        assertEquals(1L, results.get(0).get(5, TimeUnit.SECONDS).getId());
+        ExecutionException failed = assertThrows(ExecutionException.class, () -> results.get(1).get(5, TimeUnit.SECONDS));
+        assertInstanceOf(CannotAcquireLockException.class, failed.getCause());
+        assertEquals(3L, results.get(2).get(5, TimeUnit.SECONDS).getId());
+        // One group attempt, then one attempt per transfer; the retrying single-transfer path is never used
+        verify(transactionService, times(4)).applyGroup(anyList());
+        verify(transactionService, never()).makeTransaction(any());
+    }
+
+    @Test
+    void timeoutCancelsAQueuedTransferButNotOneTheCommitterOwns() throws Exception {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(transactionService.applyGroup(anyList())).thenAnswer(inv -> {
+            entered.countDown();
+            awaitQuietly(release);
+            return succeedAll(inv.getArgument(0));
+        });
+        start(1, 0, 200);
+
+        Future<Transaction> owned = callers.submit(() -> pipeline.submit(transfer("ACC1"), null));
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+
+        // Still queued behind ACC1 when the caller gives up: it is cancelled and never runs
+        BusinessRuleException cancelled = assertThrows(BusinessRuleException.class,
+                () -> pipeline.submit(transfer("ACC2"), null));
+        assertTrue(cancelled.getMessage().contains("cancelled"), cancelled.getMessage());
+
+        ExecutionException stillRunning = assertThrows(ExecutionException.class, () -> owned.get(5, TimeUnit.SECONDS));
+        assertTrue(stillRunning.getCause().getMessage().contains("still being processed"),
+                stillRunning.getCause().getMessage());
+
+        release.countDown();
+        verify(transactionService, after(300).times(1)).applyGroup(anyList());
+        verify(transactionService, never()).applyGroup(argThat(group ->
+                group.get(0).getSenderAccountNumber().equals("ACC2")));
+    }
+
+    @Test
+    void shutdownFailsQueuedTransfersAndFinishesTheCurrentGroup() throws Exception {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(transactionService.applyGroup(anyList())).thenAnswer(inv -> {
+            entered.countDown();
+            awaitQuietly(release);
+            return succeedAll(inv.getArgument(0));
+        });
+        start(1, 0, 10_000);
+
+        Future<Transaction> inFlight = callers.submit(() -> pipeline.submit(transfer("ACC1"), null));
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+        Future<Transaction> queued = callers.submit(() -> pipeline.submit(transfer("ACC2"), null));
+        // Let ACC2 reach the queue
+        Thread.sleep(200);
+
+        pipeline.stop();
+        release.countDown();
+
+        assertEquals(1L, inFlight.get(5, TimeUnit.SECONDS).getId());
+        ExecutionException failed = assertThrows(ExecutionException.class, () -> queued.get(5, TimeUnit.SECONDS));
+        assertTrue(failed.getCause().getMessage().contains("shutting down"), failed.getCause().getMessage());
+        verify(transactionService, times(1)).applyGroup(anyList());
+
+        // Once stopped, transfers run on the caller's thread
+        Transaction direct = new Transaction();
+        when(transactionService.makeTransaction(any())).thenReturn(direct);
+        assertSame(direct, pipeline.submit(transfer("ACC3"), null));
+    }
+
+    private void start(int maxGroupSize, long windowMillis, long awaitTimeoutMillis) {
+        pipeline = new TransferPipeline(transactionService, idempotencyService, true, 64,
+                maxGroupSize, windowMillis, awaitTimeoutMillis);
+        pipeline.start();
+    }
+
+    private List<Future<Transaction>> submitAll(String... senders) {
+        List<Future<Transaction>> results = new ArrayList<>();
+        for (String sender : senders) {
+            results.add(callers.submit(() -> pipeline.submit(transfer(sender), null)));
+        }
+        return results;
+    }
+
+    private static List<TransferOutcome> succeedAll(List<TransactionDto> group) {
+        return group.stream().map(dto -> new TransferOutcome(transaction(dto), null)).toList();
+    }
+
+    private static Transaction transaction(TransactionDto dto) {
+        Transaction transaction = new Transaction();
+        transaction.setId(Long.parseLong(dto.getSenderAccountNumber().substring(3)));
+        return transaction;
+    }
+
+    private static TransactionDto transfer(String sender) {
+        TransactionDto dto = new TransactionDto();
+        dto.setSenderAccountNumber(sender);
+        dto.setReceiverAccountNumber("ACC100");
+        dto.setTransactionType(TransactionType.values()[0]);
+        dto.setAmount(new BigDecimal("10"));
+        return dto;
+    }
+
+    // The committer is interrupted by stop() while it is inside applyGroup
+    private static void awaitQuietly(CountDownLatch latch) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                latch.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.banksystem.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BloomFilterTest {
+
+    // Production sizing (app.security.revocation.bloom-bits / bloom-hashes)
+    private static final long BITS = 1 << 20;
+    private static final int HASHES = 7;
+
+    @Test
+    void emptyFilterContainsNothing() {
+        BloomFilter filter = new BloomFilter(BITS, HASHES);
+
+        assertFalse(filter.mightContain("token:abc"));
+        assertFalse(filter.mightContain(""));
+    }
+
+    @Test
+    void everyAddedValueIsFound() {
+        BloomFilter filter = new BloomFilter(BITS, HASHES);
+        for (int i = 0; i < 100_000; i++) {
+            filter.add("token:" + i);
+        }
+        for (int i = 0; i < 100_000; i++) {
+            assertTrue(filter.mightContain("token:" + i), "false negative for token:" + i);
+        }
+    }
+
+    @Test
+    void concurrentAddsLoseNoBits() throws Exception {
+        BloomFilter filter = new BloomFilter(BITS, HASHES);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                int thread = t;
+                futures.add(pool.submit(() -> {
+                    for (int i = 0; i < 10_000; i++) {
+                        filter.add("subject:" + thread + ":" + i);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        for (int t = 0; t < 8; t++) {
+            for (int i = 0; i < 10_000; i++) {
+                assertTrue(filter.mightContain("subject:" + t + ":" + i), "false negative for subject:" + t + ":" + i);
+            }
+        }
+    }
+
+    @Test
+    void falsePositiveRateMatchesTheSizing() {
+        BloomFilter filter = new BloomFilter(BITS, HASHES);
+        for (int i = 0; i < 50_000; i++) {
+            filter.add("token:" + i);
+        }
+
+        int falsePositives = 0;
+        int probes = 100_000;
+        for (int i = 0; i < probes; i++) {
+            if (filter.mightContain("other:" + i)) {
+                falsePositives++;
+            }
+        }
+        // (1 - e^(-7 * 50000 / 2^20))^7 is about 0.015%
+        assertTrue(falsePositives < probes / 1_000, falsePositives + " false positives in " + probes);
+    }
+
+    @Test
+    void nonAsciiValuesAreHashedByTheirBytes() {
+        BloomFilter filter = new BloomFilter(BITS, HASHES);
+        filter.add("user:é");
+
+        assertTrue(filter.mightContain("user:é"));
+        assertFalse(filter.mightContain("user:e"));
+    }
+
+    @Test
+    void degenerateSizesStillWork() {
+        BloomFilter filter = new BloomFilter(0, 0);
+        filter.add("a");
+        filter.add("b");
+
+        assertTrue(filter.mightContain("a"));
+        assertTrue(filter.mightContain("b"));
+    }
+}
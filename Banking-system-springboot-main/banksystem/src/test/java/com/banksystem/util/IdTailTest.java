@@ -0,0 +1,90 @@
+package com.banksystem.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdTailTest {
+
+    @Test
+    void startsAfterTheGivenId() {
+        IdTail tail = new IdTail(60_000);
+        assertFalse(tail.isStarted());
+
+        tail.start(-5);
+        assertTrue(tail.isStarted());
+        assertEquals(0, tail.position());
+
+        tail.start(41);
+        assertEquals(41, tail.position());
+        assertFalse(tail.advance(41));
+        assertTrue(tail.gaps().isEmpty());
+    }
+
+    @Test
+    void eachIdIsNewOnlyOnce() {
+        IdTail tail = new IdTail(60_000);
+        tail.start(0);
+
+        assertTrue(tail.advance(1));
+        assertTrue(tail.advance(2));
+        assertFalse(tail.advance(2));
+        assertFalse(tail.advance(1));
+        assertEquals(2, tail.position());
+    }
+
+    @Test
+    void lateCommitFillsTheGapItLeft() {
+        IdTail tail = new IdTail(60_000);
+        tail.start(10);
+
+        // Id 12 committed before 11 and 13
+        assertTrue(tail.advance(12));
+        assertTrue(tail.advance(14));
+        assertEquals(List.of(11L, 13L), tail.gaps());
+
+        assertTrue(tail.advance(13));
+        assertFalse(tail.advance(13));
+        assertEquals(List.of(11L), tail.gaps());
+        assertEquals(14, tail.position());
+    }
+
+    @Test
+    void gapsAreGivenUpAfterTheTimeout() throws Exception {
+        IdTail tail = new IdTail(50);
+        tail.start(0);
+        tail.advance(3);
+        assertEquals(List.of(1L, 2L), tail.gaps());
+
+        Thread.sleep(150);
+
+        // A rolled-back insert never shows up
+        assertTrue(tail.gaps().isEmpty());
+        assertFalse(tail.advance(1));
+    }
+
+    @Test
+    void hugeJumpsTrackOnlyTheRecentIds() {
+        IdTail tail = new IdTail(60_000);
+        tail.start(0);
+
+        tail.advance(1_000_000);
+        List<Long> gaps = tail.gaps();
+        assertEquals(10_000, gaps.size());
+        assertEquals(990_000L, gaps.get(0));
+    }
+
+    @Test
+    void rowsSeenBeforeTheStartAreReadAgainByTheFirstPoll() {
+        IdTail tail = new IdTail(60_000);
+
+        assertTrue(tail.advance(7));
+        assertFalse(tail.isStarted());
+
+        tail.start(5);
+        assertTrue(tail.advance(7));
+        assertEquals(List.of(6L), tail.gaps());
+    }
+}
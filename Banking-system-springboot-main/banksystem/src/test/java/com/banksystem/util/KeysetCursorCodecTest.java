@@ -0,0 +1,64 @@
+package com.banksystem.util;
+
+import com.banksystem.exception.BusinessRuleException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeysetCursorCodecTest {
+
+    private final KeysetCursorCodec codec = new KeysetCursorCodec();
+
+    @Test
+    void roundTripsPosition() {
+        KeysetCursor cursor = new KeysetCursor(LocalDateTime.of(2026, 3, 14, 15, 9, 26, 535_000_000), 4_200_000_123L);
+
+        assertEquals(cursor, codec.decode(codec.encode(cursor)));
+    }
+
+    @Test
+    void roundTripsFirstPagePositionAndWholeSeconds() {
+        KeysetCursor first = new KeysetCursor(LocalDateTime.of(2026, 1, 1, 0, 0), Long.MAX_VALUE);
+
+        assertEquals(first, codec.decode(codec.encode(first)));
+    }
+
+    @Test
+    void encodedCursorIsUrlSafe() {
+        String encoded = codec.encode(new KeysetCursor(LocalDateTime.of(2026, 5, 1, 12, 0), 77L));
+
+        assertTrue(encoded.matches("[A-Za-z0-9_.-]+"), encoded);
+    }
+
+    @Test
+    void missingCursorFallsBackToFirstPage() {
+        KeysetCursor first = new KeysetCursor(LocalDateTime.of(2026, 1, 1, 0, 0), Long.MAX_VALUE);
+
+        assertSame(first, codec.decodeOrDefault(null, first));
+        assertSame(first, codec.decodeOrDefault("  ", first));
+    }
+
+    @Test
+    void encodedCursorIsOpaqueBase64OfThePosition() {
+        String encoded = codec.encode(new KeysetCursor(LocalDateTime.of(2026, 5, 1, 12, 0), 77L));
+
+        assertEquals("2026-05-01T12:00|77", new String(Base64.getUrlDecoder().decode(encoded), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void rejectsMalformedInput() {
+        String noSeparator = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString("2026-05-01T12:00".getBytes(StandardCharsets.UTF_8));
+        String badDate = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString("yesterday|77".getBytes(StandardCharsets.UTF_8));
+
+        assertThrows(BusinessRuleException.class, () -> codec.decode(noSeparator));
+        assertThrows(BusinessRuleException.class, () -> codec.decode(badDate));
+        assertThrows(BusinessRuleException.class, () -> codec.decode("not base64!"));
+        assertThrows(BusinessRuleException.class, () -> codec.decode(""));
+    }
+}
@@ -0,0 +1,193 @@
+package com.banksystem.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnowflakeIdGeneratorTest {
+
+    private static final long EPOCH_MILLIS = 1704067200000L;
+
+    private final MemoryStore store = new MemoryStore();
+
+    @Test
+    void idCarriesNodeSequenceAndMilliseconds() {
+        long before = System.currentTimeMillis() - EPOCH_MILLIS;
+        long id = new SnowflakeIdGenerator(42, store).nextId();
+        long after = System.currentTimeMillis() - EPOCH_MILLIS;
+
+        assertTrue(id > 0);
+        assertEquals(42, id & 0x3F);
+        long millis = id >>> (6 + 16);
+        assertTrue(millis >= before && millis <= after, "timestamp " + millis + " not in [" + before + ", " + after + "]");
+    }
+
+    @Test
+    void idsAreUniqueAndIncreasingOnOneNode() throws Exception {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1, store);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<long[]>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(pool.submit(() -> {
+                    long[] ids = new long[20_000];
+                    for (int i = 0; i < ids.length; i++) {
+                        ids[i] = generator.nextId();
+                    }
+                    return ids;
+                }));
+            }
+            Set<Long> all = new HashSet<>();
+            for (Future<long[]> future : futures) {
+                long[] ids = future.get();
+                for (int i = 0; i < ids.length; i++) {
+                    assertTrue(all.add(ids[i]), "duplicate id " + ids[i]);
+                    if (i > 0) {
+                        assertTrue(ids[i] > ids[i - 1]);
+                    }
+                }
+            }
+            assertEquals(160_000, all.size());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void nodesNeverCollide() {
+        SnowflakeIdGenerator a = new SnowflakeIdGenerator(1, store);
+        SnowflakeIdGenerator b = new SnowflakeIdGenerator(2, store);
+        Set<Long> ids = new HashSet<>();
+        for (int i = 0; i < 50_000; i++) {
+            assertTrue(ids.add(a.nextId()));
+            assertTrue(ids.add(b.nextId()));
+        }
+    }
+
+    @Test
+    void nodeIdMustFitSixBits() {
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeIdGenerator(-1, store));
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeIdGenerator(64, store));
+        assertDoesNotThrow(() -> new SnowflakeIdGenerator(SnowflakeIdGenerator.MAX_NODE_ID, store));
+    }
+
+    @Test
+    void cardNumbersPassLuhnAndAreUnique() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(5, store);
+        Set<String> cards = new HashSet<>();
+        // Far more than one minute's 64 numbers, so the sequence borrows ahead
+        for (int i = 0; i < 2_000; i++) {
+            String card = generator.nextCardNumber();
+            assertTrue(card.matches("4532\\d{12}"), card);
+            assertTrue(luhnValid(card), card);
+            assertTrue(cards.add(card), "duplicate card " + card);
+        }
+    }
+
+    @Test
+    void luhnCheckDigitMatchesKnownNumbers() {
+        assertEquals(3, SnowflakeIdGenerator.luhnCheckDigit("7992739871".toCharArray(), 10));
+        for (String valid : List.of("4532015112830366", "4111111111111111", "5500005555555559")) {
+            char[] digits = valid.toCharArray();
+            assertEquals(digits[15] - '0', SnowflakeIdGenerator.luhnCheckDigit(digits, 15), valid);
+        }
+    }
+
+    @Test
+    void restartDoesNotReissueCardNumbers() {
+        SnowflakeIdGenerator first = new SnowflakeIdGenerator(7, store);
+        Set<String> issued = new HashSet<>();
+        for (int i = 0; i < 500; i++) {
+            issued.add(first.nextCardNumber());
+        }
+
+        // Same node, same minute, same store: a restarted instance
+        SnowflakeIdGenerator restarted = new SnowflakeIdGenerator(7, store);
+        for (int i = 0; i < 500; i++) {
+            String card = restarted.nextCardNumber();
+            assertFalse(issued.contains(card), "reissued " + card);
+        }
+    }
+
+    @Test
+    void reservationIsRaisedBeforeValuesAreIssued() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(3, store);
+        generator.nextCardNumber();
+        long mark = store.marks.get("card:node-3");
+        for (int i = 0; i < 1_000; i++) {
+            generator.nextCardNumber();
+        }
+        assertTrue(store.marks.get("card:node-3") >= mark);
+        // One write per ten minutes of numbers, not one per card
+        assertTrue(store.raises.get("card:node-3") < 5, "raised " + store.raises.get("card:node-3") + " times");
+    }
+
+    @Test
+    void chequeBooksGetDisjointRanges() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(9, store);
+        int leaves = 100;
+        List<Long> starts = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            starts.add(generator.nextStartingChequeNumber(leaves));
+        }
+        SnowflakeIdGenerator restarted = new SnowflakeIdGenerator(9, store);
+        for (int i = 0; i < 1_000; i++) {
+            starts.add(restarted.nextStartingChequeNumber(leaves));
+        }
+
+        Set<Long> numbers = new HashSet<>();
+        for (long start : starts) {
+            assertTrue(start > 0);
+            for (int leaf = 0; leaf < leaves; leaf++) {
+                assertTrue(numbers.add(start + leaf), "cheque number " + (start + leaf) + " issued twice");
+            }
+        }
+    }
+
+    @Test
+    void chequeBookSizeIsBounded() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(0, store);
+        assertThrows(IllegalArgumentException.class, () -> generator.nextStartingChequeNumber(0));
+        assertThrows(IllegalArgumentException.class,
+                () -> generator.nextStartingChequeNumber(SnowflakeIdGenerator.MAX_CHEQUE_LEAVES + 1));
+    }
+
+    private static boolean luhnValid(String number) {
+        int sum = 0;
+        for (int i = 0; i < number.length(); i++) {
+            int d = number.charAt(number.length() - 1 - i) - '0';
+            if (i % 2 == 1) {
+                d = d * 2 > 9 ? d * 2 - 9 : d * 2;
+            }
+            sum += d;
+        }
+        return sum % 10 == 0;
+    }
+
+    private static final class MemoryStore implements SnowflakeIdGenerator.ReservationStore {
+        private final Map<String, Long> marks = new ConcurrentHashMap<>();
+        private final Map<String, Integer> raises = new HashMap<>();
+
+        @Override
+        public long load(String name) {
+            return marks.getOrDefault(name, 0L);
+        }
+
+        @Override
+        public synchronized void raise(String name, long reservedUntil) {
+            marks.merge(name, reservedUntil, Math::max);
+            raises.merge(name, 1, Integer::sum);
+        }
+    }
+}